@@ -0,0 +1,252 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.benchmarks;
+
+import com.google.gson.Gson;
+import com.yahoo.bullet.common.SerializerDeserializer;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.generic.GenericRecordBuilder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Generates the data used by the benchmarks. Every generator is seeded with the same seed, so the i-th event is the
+ * same in every format and across runs.
+ * <br><br>
+ * An event has a few primitive fields, a map, a list, a nested record and a number of filler strings that none of the
+ * benchmark schemas reference.
+ */
+public final class BenchmarkData {
+
+    public static final long SEED = 0xB011E7L;
+    public static final int BATCH_SIZE = 512;
+    public static final int FILLER_FIELDS = 16;
+    public static final int TAGS = 8;
+    public static final int VALUES = 8;
+
+    public static final Schema LOCATION_SCHEMA = SchemaBuilder.record("Location").namespace("com.yahoo.bullet.dsl.benchmarks")
+                                                              .fields()
+                                                                  .name("city").type().stringType().noDefault()
+                                                                  .name("zip").type().intType().noDefault()
+                                                              .endRecord();
+    public static final Schema EVENT_SCHEMA;
+
+    static {
+        SchemaBuilder.FieldAssembler<Schema> fields = SchemaBuilder.record("Event").namespace("com.yahoo.bullet.dsl.benchmarks")
+                                                                   .fields()
+                                                                       .name("id").type().longType().noDefault()
+                                                                       .name("name").type().stringType().noDefault()
+                                                                       .name("score").type().doubleType().noDefault()
+                                                                       .name("count").type().intType().noDefault()
+                                                                       .name("active").type().booleanType().noDefault()
+                                                                       .name("tags").type().map().values().stringType().noDefault()
+                                                                       .name("values").type().array().items().longType().noDefault()
+                                                                       .name("nested").type(LOCATION_SCHEMA).noDefault();
+        for (int i = 0; i < FILLER_FIELDS; i++) {
+            fields = fields.name("filler" + i).type().stringType().noDefault();
+        }
+        EVENT_SCHEMA = fields.endRecord();
+    }
+
+    /**
+     * The POJO form of an event. Only the fields the benchmark schemas reference are kept as members.
+     */
+    public static class Event implements Serializable {
+        private static final long serialVersionUID = 4062270437960286016L;
+
+        private Long id;
+        private String name;
+        private Double score;
+        private Integer count;
+        private Boolean active;
+        private Map<String, String> tags;
+        private List<Long> values;
+        private Map<String, Serializable> nested;
+
+        public Long id() {
+            return id;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public Double score() {
+            return score;
+        }
+
+        public Integer count() {
+            return count;
+        }
+
+        public Boolean active() {
+            return active;
+        }
+
+        public Map<String, String> tags() {
+            return tags;
+        }
+
+        public List<Long> values() {
+            return values;
+        }
+
+        public Map<String, Serializable> nested() {
+            return nested;
+        }
+    }
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Generates events as maps.
+     *
+     * @param count The number of events.
+     * @return The events as {@link HashMap}.
+     */
+    public static List<Object> maps(int count) {
+        Random random = new Random(SEED);
+        List<Object> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(map(random, i));
+        }
+        return events;
+    }
+
+    /**
+     * Generates events as JSON strings.
+     *
+     * @param count The number of events.
+     * @return The events as JSON.
+     */
+    public static List<Object> json(int count) {
+        Gson gson = new Gson();
+        return transform(maps(count), gson::toJson);
+    }
+
+    /**
+     * Generates events as POJOs.
+     *
+     * @param count The number of events.
+     * @return The events as {@link Event}.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Object> pojos(int count) {
+        return transform(maps(count), object -> {
+            Map<String, Object> map = (Map<String, Object>) object;
+            Event event = new Event();
+            event.id = (Long) map.get("id");
+            event.name = (String) map.get("name");
+            event.score = (Double) map.get("score");
+            event.count = (Integer) map.get("count");
+            event.active = (Boolean) map.get("active");
+            event.tags = (Map<String, String>) map.get("tags");
+            event.values = (List<Long>) map.get("values");
+            event.nested = (Map<String, Serializable>) map.get("nested");
+            return event;
+        });
+    }
+
+    /**
+     * Generates events as Avro records. Strings are {@link String}, which the
+     * {@link com.yahoo.bullet.dsl.converter.AvroBulletRecordConverter} requires.
+     *
+     * @param count The number of events.
+     * @return The events as {@link GenericRecord} with {@link #EVENT_SCHEMA}.
+     */
+    public static List<Object> avro(int count) {
+        return transform(maps(count), BenchmarkData::record);
+    }
+
+    /**
+     * Generates events as Avro binary encoded records.
+     *
+     * @param count The number of events.
+     * @return The events as byte[] encoded with {@link #EVENT_SCHEMA}.
+     */
+    public static List<Object> avroBytes(int count) {
+        GenericDatumWriter<GenericRecord> writer = new GenericDatumWriter<>(EVENT_SCHEMA);
+        return transform(avro(count), object -> {
+            try {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+                writer.write((GenericRecord) object, encoder);
+                encoder.flush();
+                return outputStream.toByteArray();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * Generates events as Java serialized maps.
+     *
+     * @param count The number of events.
+     * @return The events as byte[] serialized with Java serialization.
+     */
+    public static List<Object> javaBytes(int count) {
+        return transform(maps(count), object -> SerializerDeserializer.toBytes((Serializable) object));
+    }
+
+    private static HashMap<String, Object> map(Random random, int i) {
+        HashMap<String, Object> map = new HashMap<>();
+        map.put("id", (long) i);
+        map.put("name", "event-" + random.nextInt(1000));
+        map.put("score", random.nextDouble() * 100.0);
+        map.put("count", random.nextInt(10000));
+        map.put("active", random.nextBoolean());
+        HashMap<String, String> tags = new HashMap<>();
+        for (int j = 0; j < TAGS; j++) {
+            tags.put(String.valueOf((char) ('a' + j)), Long.toHexString(random.nextLong()));
+        }
+        map.put("tags", tags);
+        ArrayList<Long> values = new ArrayList<>();
+        for (int j = 0; j < VALUES; j++) {
+            values.add(random.nextLong());
+        }
+        map.put("values", values);
+        HashMap<String, Object> nested = new HashMap<>();
+        nested.put("city", "city-" + random.nextInt(100));
+        nested.put("zip", random.nextInt(100000));
+        map.put("nested", nested);
+        for (int j = 0; j < FILLER_FIELDS; j++) {
+            map.put("filler" + j, Long.toString(random.nextLong(), 36) + Long.toString(random.nextLong(), 36));
+        }
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static GenericRecord record(Object object) {
+        Map<String, Object> map = (Map<String, Object>) object;
+        GenericRecordBuilder location = new GenericRecordBuilder(LOCATION_SCHEMA);
+        ((Map<String, Object>) map.get("nested")).forEach(location::set);
+        GenericRecordBuilder builder = new GenericRecordBuilder(EVENT_SCHEMA);
+        map.forEach(builder::set);
+        builder.set("nested", location.build());
+        return builder.build();
+    }
+
+    private static List<Object> transform(List<Object> objects, Function<Object, Object> function) {
+        List<Object> transformed = new ArrayList<>(objects.size());
+        objects.forEach(object -> transformed.add(function.apply(object)));
+        return transformed;
+    }
+}
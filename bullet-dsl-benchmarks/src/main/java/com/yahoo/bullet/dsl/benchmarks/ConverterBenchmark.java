@@ -0,0 +1,169 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.benchmarks;
+
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.dsl.BulletDSLException;
+import com.yahoo.bullet.dsl.converter.AvroBinaryBulletRecordConverter;
+import com.yahoo.bullet.dsl.converter.AvroBulletRecordConverter;
+import com.yahoo.bullet.dsl.converter.BulletRecordConverter;
+import com.yahoo.bullet.dsl.converter.JSONBulletRecordConverter;
+import com.yahoo.bullet.dsl.converter.MapBulletRecordConverter;
+import com.yahoo.bullet.dsl.converter.POJOBulletRecordConverter;
+import com.yahoo.bullet.dsl.converter.RecordFilter;
+import com.yahoo.bullet.record.BulletRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of every {@link BulletRecordConverter} in records per second.
+ * <br><br>
+ * The schema parameter picks what is extracted: everything without a schema, the top-level fields (FLAT), references
+ * into the nested record, map and list (NESTED) or the nested record and map flattened into the record (RECORD).
+ * {@link #convertAndReadId(Blackhole)} reads a single field of each record, like a selective filter would, to measure
+ * lazy records against eager ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConverterBenchmark {
+
+    @Param({"MAP", "JSON", "JSON_STREAMING", "POJO", "AVRO", "AVRO_BINARY"})
+    public String converter;
+
+    @Param({"NONE", "FLAT", "NESTED", "RECORD"})
+    public String schema;
+
+    @Param({"false", "true"})
+    public boolean typeCheck;
+
+    @Param({"0"})
+    public int typeCheckSampleSize;
+
+    @Param({"false"})
+    public boolean lazy;
+
+    // Comma separated names of the fields to set or empty to set every field
+    @Param({""})
+    public String requiredFields;
+
+    // The fraction of the objects that match a filter on the id or 1 for no filter
+    @Param({"1.0"})
+    public double filterSelectivity;
+
+    private BulletRecordConverter recordConverter;
+    private List<Object> objects;
+
+    @Setup
+    public void setup() throws BulletDSLException {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, getSchemaFile());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_ENABLE, typeCheck);
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_SAMPLE_SIZE, typeCheckSampleSize);
+        config.set(BulletDSLConfig.RECORD_CONVERTER_LAZY_ENABLE, lazy);
+        if (filterSelectivity < 1.0) {
+            Map<String, Object> predicate = new HashMap<>();
+            predicate.put(RecordFilter.REFERENCE, "id");
+            predicate.put(RecordFilter.MAX, (long) (filterSelectivity * BenchmarkData.BATCH_SIZE) - 1);
+            config.set(BulletDSLConfig.FILTER_PREDICATES, Collections.singletonList(predicate));
+        }
+        switch (converter) {
+            case "MAP":
+                objects = BenchmarkData.maps(BenchmarkData.BATCH_SIZE);
+                recordConverter = new MapBulletRecordConverter(validate(config));
+                break;
+            case "JSON":
+            case "JSON_STREAMING":
+                config.set(BulletDSLConfig.RECORD_CONVERTER_JSON_STREAMING_ENABLE, converter.equals("JSON_STREAMING"));
+                objects = BenchmarkData.json(BenchmarkData.BATCH_SIZE);
+                recordConverter = new JSONBulletRecordConverter(validate(config));
+                break;
+            case "POJO":
+                config.set(BulletDSLConfig.RECORD_CONVERTER_POJO_CLASS_NAME, BenchmarkData.Event.class.getName());
+                objects = BenchmarkData.pojos(BenchmarkData.BATCH_SIZE);
+                recordConverter = new POJOBulletRecordConverter(validate(config));
+                break;
+            case "AVRO":
+                // Without a schema, the nested record can only be stored with the fix. It does nothing with a schema.
+                config.set(BulletDSLConfig.RECORD_CONVERTER_AVRO_STRING_TYPE_FIX_ENABLE, true);
+                objects = BenchmarkData.avro(BenchmarkData.BATCH_SIZE);
+                recordConverter = new AvroBulletRecordConverter(validate(config));
+                break;
+            case "AVRO_BINARY":
+                config.set(BulletDSLConfig.RECORD_CONVERTER_AVRO_SCHEMA_FILE, BenchmarkData.EVENT_SCHEMA.toString());
+                objects = BenchmarkData.avroBytes(BenchmarkData.BATCH_SIZE);
+                recordConverter = new AvroBinaryBulletRecordConverter(validate(config));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown converter: " + converter);
+        }
+        if (!requiredFields.isEmpty()) {
+            recordConverter.setRequiredFields(new HashSet<>(Arrays.asList(requiredFields.split(","))));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BATCH_SIZE)
+    public void convert(Blackhole blackhole) throws BulletDSLException {
+        for (Object object : objects) {
+            blackhole.consume(recordConverter.convert(object));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BATCH_SIZE)
+    public void convertAndReadId(Blackhole blackhole) throws BulletDSLException {
+        for (Object object : objects) {
+            BulletRecord record = recordConverter.convert(object);
+            blackhole.consume(record != null ? record.typedGet("id") : null);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BATCH_SIZE)
+    public List<?> convertAll() throws BulletDSLException {
+        return recordConverter.convertAll(objects);
+    }
+
+    private String getSchemaFile() {
+        switch (schema) {
+            case "NONE":
+                return null;
+            case "NESTED":
+                // POJO references can only go into maps
+                return converter.equals("POJO") ? "benchmarks/pojo_nested.json" : "benchmarks/nested.json";
+            default:
+                return "benchmarks/" + schema.toLowerCase() + ".json";
+        }
+    }
+
+    private static BulletDSLConfig validate(BulletDSLConfig config) {
+        config.validate();
+        return config;
+    }
+}
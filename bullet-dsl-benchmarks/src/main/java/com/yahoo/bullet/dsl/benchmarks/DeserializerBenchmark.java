@@ -0,0 +1,85 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.benchmarks;
+
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.dsl.BulletDSLException;
+import com.yahoo.bullet.dsl.deserializer.AvroDeserializer;
+import com.yahoo.bullet.dsl.deserializer.BulletDeserializer;
+import com.yahoo.bullet.dsl.deserializer.JavaDeserializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the {@link BulletDeserializer} implementations in messages per second. The Avro variants
+ * cover decoding a byte[], a heap and a direct {@link ByteBuffer}, and decoding with a projected reader schema. The
+ * Java variants cover a byte[] and a heap ByteBuffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeserializerBenchmark {
+
+    @Param({"AVRO", "AVRO_PROJECTION", "AVRO_HEAP_BUFFER", "AVRO_DIRECT_BUFFER", "JAVA", "JAVA_HEAP_BUFFER"})
+    public String deserializer;
+
+    private BulletDeserializer bulletDeserializer;
+    private List<Object> messages;
+
+    @Setup
+    public void setup() {
+        BulletDSLConfig config = new BulletDSLConfig();
+        if (deserializer.startsWith("JAVA")) {
+            messages = BenchmarkData.javaBytes(BenchmarkData.BATCH_SIZE);
+            if (deserializer.equals("JAVA_HEAP_BUFFER")) {
+                messages.replaceAll(bytes -> ByteBuffer.wrap((byte[]) bytes));
+            }
+            bulletDeserializer = new JavaDeserializer(config);
+            return;
+        }
+        config.set(BulletDSLConfig.DESERIALIZER_AVRO_SCHEMA_FILE, BenchmarkData.EVENT_SCHEMA.toString());
+        config.set(BulletDSLConfig.DESERIALIZER_AVRO_PROJECTION_ENABLE, deserializer.equals("AVRO_PROJECTION"));
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "benchmarks/flat.json");
+        config.validate();
+        messages = BenchmarkData.avroBytes(BenchmarkData.BATCH_SIZE);
+        if (deserializer.equals("AVRO_HEAP_BUFFER")) {
+            messages.replaceAll(bytes -> ByteBuffer.wrap((byte[]) bytes));
+        } else if (deserializer.equals("AVRO_DIRECT_BUFFER")) {
+            messages.replaceAll(bytes -> {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(((byte[]) bytes).length);
+                buffer.put((byte[]) bytes).flip();
+                return buffer;
+            });
+        }
+        bulletDeserializer = new AvroDeserializer(config);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BATCH_SIZE)
+    public void deserialize(Blackhole blackhole) throws BulletDSLException {
+        for (Object message : messages) {
+            blackhole.consume(bulletDeserializer.deserialize(message));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.connector;
+
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.dsl.BulletDSLException;
+import com.yahoo.bullet.dsl.benchmarks.BenchmarkData;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.pulsar.client.api.Consumer;
+import org.apache.pulsar.client.api.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of {@link BulletConnector#read()} in messages per second. The connectors read from in-process
+ * fakes that hand out a prebuilt batch on every read, so no broker is needed and only the connector itself is measured.
+ * <br><br>
+ * This lives in the connector package to set the fake consumers on the connectors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectorBenchmark {
+
+    private static final String TOPIC = "benchmark";
+
+    /**
+     * A {@link KafkaConsumer} that returns the same records on every poll and does not commit. It never connects to the
+     * bootstrap servers since it never polls the broker.
+     */
+    private static class FakeKafkaConsumer extends KafkaConsumer<Object, Object> {
+        private final ConsumerRecords<Object, Object> records;
+
+        private FakeKafkaConsumer(ConsumerRecords<Object, Object> records) {
+            super(getKafkaProperties());
+            this.records = records;
+        }
+
+        @Override
+        public ConsumerRecords<Object, Object> poll(Duration timeout) {
+            return records;
+        }
+
+        @Override
+        public void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        }
+
+        @Override
+        public void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets, OffsetCommitCallback callback) {
+        }
+    }
+
+    @Param({"KAFKA", "PULSAR"})
+    public String connector;
+
+    @Param({"false", "true"})
+    public boolean autoCommit;
+
+    @Param({"false", "true"})
+    public boolean asyncCommit;
+
+    private BulletConnector bulletConnector;
+
+    @Setup
+    public void setup() {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.CONNECTOR_ASYNC_COMMIT_ENABLE, asyncCommit);
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_ENABLE_AUTO_COMMIT, autoCommit);
+        config.validate();
+        List<Object> messages = BenchmarkData.avroBytes(BenchmarkData.BATCH_SIZE);
+        if (connector.equals("KAFKA")) {
+            KafkaConnector kafkaConnector = new KafkaConnector(config);
+            kafkaConnector.setConsumer(new FakeKafkaConsumer(getKafkaRecords(messages)));
+            bulletConnector = kafkaConnector;
+        } else {
+            PulsarConnector pulsarConnector = new PulsarConnector(config);
+            pulsarConnector.setConsumer(getPulsarConsumer(messages));
+            bulletConnector = pulsarConnector;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BATCH_SIZE)
+    public List<Object> read() throws BulletDSLException {
+        return bulletConnector.read();
+    }
+
+    private static Properties getKafkaProperties() {
+        Properties properties = new Properties();
+        properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        return properties;
+    }
+
+    private static ConsumerRecords<Object, Object> getKafkaRecords(List<Object> messages) {
+        List<ConsumerRecord<Object, Object>> records = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            records.add(new ConsumerRecord<>(TOPIC, 0, i, null, messages.get(i)));
+        }
+        return new ConsumerRecords<>(Collections.singletonMap(new TopicPartition(TOPIC, 0), records));
+    }
+
+    /**
+     * Fakes a Pulsar {@link Consumer} that hands out the messages one at a time and then times out once, which ends a
+     * read, before starting over. Acknowledging does nothing.
+     */
+    @SuppressWarnings("unchecked")
+    private static Consumer<Object> getPulsarConsumer(List<Object> values) {
+        List<Message<Object>> messages = new ArrayList<>(values.size());
+        for (Object value : values) {
+            messages.add((Message<Object>) Proxy.newProxyInstance(Message.class.getClassLoader(), new Class[] {Message.class},
+                (proxy, method, args) -> method.getName().equals("getValue") ? value : null));
+        }
+        CompletableFuture<Void> acknowledged = CompletableFuture.completedFuture(null);
+        int[] index = {0};
+        return (Consumer<Object>) Proxy.newProxyInstance(Consumer.class.getClassLoader(), new Class[] {Consumer.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "receive":
+                    if (index[0] == messages.size()) {
+                        index[0] = 0;
+                        return null;
+                    }
+                    return messages.get(index[0]++);
+                case "acknowledgeAsync":
+                    return acknowledged;
+                default:
+                    return null;
+            }
+        });
+    }
+}
@@ -8,8 +8,10 @@ package com.yahoo.bullet.dsl;
 import com.yahoo.bullet.common.BulletConfig;
 import com.yahoo.bullet.common.Config;
 import com.yahoo.bullet.common.Validator;
+import com.yahoo.bullet.dsl.connector.ConnectorRecord;
 import com.yahoo.bullet.dsl.connector.KafkaConnector;
 import com.yahoo.bullet.dsl.connector.PulsarConnector;
+import com.yahoo.bullet.dsl.converter.AvroBinaryBulletRecordConverter;
 import com.yahoo.bullet.dsl.converter.POJOBulletRecordConverter;
 import com.yahoo.bullet.dsl.deserializer.AvroDeserializer;
 
@@ -36,6 +38,9 @@ public class BulletDSLConfig extends BulletConfig {
     public static final String CONNECTOR_CLASS_NAME = "bullet.dsl.connector.class.name";
     public static final String CONNECTOR_ASYNC_COMMIT_ENABLE = "bullet.dsl.connector.async.commit.enable";
     public static final String CONNECTOR_READ_TIMEOUT_MS = "bullet.dsl.connector.read.timeout.ms";
+    public static final String CONNECTOR_PREFETCH_ENABLE = "bullet.dsl.connector.prefetch.enable";
+    public static final String CONNECTOR_PREFETCH_BUFFER_SIZE = "bullet.dsl.connector.prefetch.buffer.size";
+    public static final String CONNECTOR_METADATA_ENABLE = "bullet.dsl.connector.metadata.enable";
 
     public static final String CONNECTOR_KAFKA_NAMESPACE = "bullet.dsl.connector.kafka.";
     public static final String CONNECTOR_PULSAR_CLIENT_NAMESPACE = "bullet.dsl.connector.pulsar.client.";
@@ -48,6 +53,10 @@ public class BulletDSLConfig extends BulletConfig {
     public static final String CONNECTOR_KAFKA_VALUE_DESERIALIZER = "bullet.dsl.connector.kafka.value.deserializer";
     public static final String CONNECTOR_KAFKA_TOPICS = "bullet.dsl.connector.kafka.topics";
     public static final String CONNECTOR_KAFKA_START_AT_END_ENABLE = "bullet.dsl.connector.kafka.start.at.end.enable";
+    public static final String CONNECTOR_KAFKA_COMMIT_RECORDS = "bullet.dsl.connector.kafka.commit.records";
+    public static final String CONNECTOR_KAFKA_COMMIT_INTERVAL_MS = "bullet.dsl.connector.kafka.commit.interval.ms";
+    public static final String CONNECTOR_KAFKA_COMMIT_MANUAL_ENABLE = "bullet.dsl.connector.kafka.commit.manual.enable";
+    public static final String CONNECTOR_KAFKA_PARALLELISM = "bullet.dsl.connector.kafka.parallelism";
 
     public static final String CONNECTOR_PULSAR_CLIENT_SERVICE_URL = "bullet.dsl.connector.pulsar.client.serviceUrl";
     public static final String CONNECTOR_PULSAR_CONSUMER_SUBSCRIPTION_NAME = "bullet.dsl.connector.pulsar.consumer.subscriptionName";
@@ -58,6 +67,10 @@ public class BulletDSLConfig extends BulletConfig {
     public static final String CONNECTOR_PULSAR_TOPICS = "bullet.dsl.connector.pulsar.topics";
     public static final String CONNECTOR_PULSAR_SCHEMA_TYPE = "bullet.dsl.connector.pulsar.schema.type";
     public static final String CONNECTOR_PULSAR_SCHEMA_CLASS_NAME = "bullet.dsl.connector.pulsar.schema.class.name";
+    public static final String CONNECTOR_PULSAR_BATCH_MAX_MESSAGES = "bullet.dsl.connector.pulsar.batch.max.messages";
+    public static final String CONNECTOR_PULSAR_BATCH_MAX_BYTES = "bullet.dsl.connector.pulsar.batch.max.bytes";
+    public static final String CONNECTOR_PULSAR_BATCH_TIMEOUT_MS = "bullet.dsl.connector.pulsar.batch.timeout.ms";
+    public static final String CONNECTOR_PULSAR_ACK_CUMULATIVE_ENABLE = "bullet.dsl.connector.pulsar.ack.cumulative.enable";
 
     public static final String PULSAR_SCHEMA_BYTES = "BYTES";
     public static final String PULSAR_SCHEMA_STRING = "STRING";
@@ -82,31 +95,78 @@ public class BulletDSLConfig extends BulletConfig {
     public static final String RECORD_CONVERTER_CLASS_NAME = "bullet.dsl.converter.class.name";
     public static final String RECORD_CONVERTER_SCHEMA_FILE = "bullet.dsl.converter.schema.file";
     public static final String RECORD_CONVERTER_SCHEMA_TYPE_CHECK_ENABLE = "bullet.dsl.converter.schema.type.check.enable";
+    public static final String RECORD_CONVERTER_SCHEMA_TYPE_CHECK_SAMPLE_SIZE = "bullet.dsl.converter.schema.type.check.sample.size";
+    public static final String RECORD_CONVERTER_PARALLELISM = "bullet.dsl.converter.parallelism";
+    public static final String RECORD_CONVERTER_POOL_SIZE = "bullet.dsl.converter.pool.size";
+    public static final String RECORD_CONVERTER_LAZY_ENABLE = "bullet.dsl.converter.lazy.enable";
     public static final String RECORD_CONVERTER_POJO_CLASS_NAME = "bullet.dsl.converter.pojo.class.name";
     public static final String RECORD_CONVERTER_AVRO_STRING_TYPE_FIX_ENABLE = "bullet.dsl.converter.avro.string.type.fix.enable";
+    public static final String RECORD_CONVERTER_JSON_STREAMING_ENABLE = "bullet.dsl.converter.json.streaming.enable";
+    public static final String RECORD_CONVERTER_AVRO_SCHEMA_FILE = "bullet.dsl.converter.avro.schema.file";
+    public static final String RECORD_CONVERTER_AVRO_CLASS_NAME = "bullet.dsl.converter.avro.class.name";
+
+    // Filter properties
+    public static final String FILTER_PREDICATES = "bullet.dsl.filter.predicates";
 
     // BulletDeserializer properties
     public static final String DESERIALIZER_CLASS_NAME = "bullet.dsl.deserializer.class.name";
     public static final String DESERIALIZER_AVRO_CLASS_NAME = "bullet.dsl.deserializer.avro.class.name";
     public static final String DESERIALIZER_AVRO_SCHEMA_FILE = "bullet.dsl.deserializer.avro.schema.file";
+    public static final String DESERIALIZER_AVRO_PROJECTION_ENABLE = "bullet.dsl.deserializer.avro.projection.enable";
+
+    // BulletDSLPipeline properties
+    public static final String PIPELINE_QUEUE_CAPACITY = "bullet.dsl.pipeline.queue.capacity";
+    public static final String PIPELINE_READ_TIMEOUT_MS = "bullet.dsl.pipeline.read.timeout.ms";
+
+    // BulletSampler properties
+    public static final String SAMPLER_CLASS_NAME = "bullet.dsl.sampler.class.name";
+    public static final String SAMPLER_RATE = "bullet.dsl.sampler.rate";
+    public static final String SAMPLER_RATE_FIELD = "bullet.dsl.sampler.rate.field";
+    public static final String SAMPLER_KEY_REFERENCE = "bullet.dsl.sampler.key.reference";
+    public static final String SAMPLER_ADAPTIVE_RECORDS_PER_SECOND = "bullet.dsl.sampler.adaptive.records.per.second";
+    public static final String SAMPLER_ADAPTIVE_WINDOW_MS = "bullet.dsl.sampler.adaptive.window.ms";
 
     // Class names
     public static final String KAFKA_CONNECTOR_CLASS_NAME = KafkaConnector.class.getName();
     public static final String PULSAR_CONNECTOR_CLASS_NAME = PulsarConnector.class.getName();
     public static final String POJO_CONVERTER_CLASS_NAME = POJOBulletRecordConverter.class.getName();
+    public static final String AVRO_BINARY_CONVERTER_CLASS_NAME = AvroBinaryBulletRecordConverter.class.getName();
     public static final String AVRO_DESERIALIZER_CLASS_NAME = AvroDeserializer.class.getName();
 
     // Defaults
     public static final String DEFAULT_DSL_CONFIGURATION = "bullet_dsl_defaults.yaml";
     public static final boolean DEFAULT_CONNECTOR_ASYNC_COMMIT_ENABLE = true;
     public static final int DEFAULT_CONNECTOR_READ_TIMEOUT_MS = 0;
+    public static final boolean DEFAULT_CONNECTOR_PREFETCH_ENABLE = false;
+    public static final int DEFAULT_CONNECTOR_PREFETCH_BUFFER_SIZE = 4;
+    public static final boolean DEFAULT_CONNECTOR_METADATA_ENABLE = false;
     public static final boolean DEFAULT_CONNECTOR_KAFKA_ENABLE_AUTO_COMMIT = true;
     public static final boolean DEFAULT_CONNECTOR_KAFKA_START_AT_END_ENABLE = false;
+    public static final int DEFAULT_CONNECTOR_KAFKA_COMMIT_RECORDS = 0;
+    public static final int DEFAULT_CONNECTOR_KAFKA_COMMIT_INTERVAL_MS = 0;
+    public static final boolean DEFAULT_CONNECTOR_KAFKA_COMMIT_MANUAL_ENABLE = false;
+    public static final int DEFAULT_CONNECTOR_KAFKA_PARALLELISM = 1;
     public static final String DEFAULT_CONNECTOR_PULSAR_SCHEMA_TYPE = PULSAR_SCHEMA_BYTES;
     public static final String DEFAULT_CONNECTOR_PULSAR_CONSUMER_SUBSCRIPTION_TYPE = "Shared";
     public static final boolean DEFAULT_CONNECTOR_PULSAR_AUTH_ENABLE = false;
+    public static final int DEFAULT_CONNECTOR_PULSAR_BATCH_MAX_MESSAGES = 0;
+    public static final int DEFAULT_CONNECTOR_PULSAR_BATCH_MAX_BYTES = 0;
+    public static final int DEFAULT_CONNECTOR_PULSAR_BATCH_TIMEOUT_MS = 0;
+    public static final boolean DEFAULT_CONNECTOR_PULSAR_ACK_CUMULATIVE_ENABLE = false;
     public static final boolean DEFAULT_CONVERTER_TYPE_CHECK_ENABLE = false;
+    public static final int DEFAULT_CONVERTER_TYPE_CHECK_SAMPLE_SIZE = 0;
+    public static final int DEFAULT_CONVERTER_PARALLELISM = 1;
+    public static final int DEFAULT_CONVERTER_POOL_SIZE = 0;
+    public static final boolean DEFAULT_CONVERTER_LAZY_ENABLE = false;
     public static final boolean DEFAULT_CONVERTER_AVRO_STRING_TYPE_FIX_ENABLE = false;
+    public static final boolean DEFAULT_CONVERTER_JSON_STREAMING_ENABLE = false;
+    public static final boolean DEFAULT_DESERIALIZER_AVRO_PROJECTION_ENABLE = false;
+    public static final int DEFAULT_PIPELINE_QUEUE_CAPACITY = 4;
+    public static final int DEFAULT_PIPELINE_READ_TIMEOUT_MS = 100;
+    public static final double DEFAULT_SAMPLER_RATE = 1.0;
+    public static final String DEFAULT_SAMPLER_RATE_FIELD = "_sampling_rate";
+    public static final int DEFAULT_SAMPLER_ADAPTIVE_RECORDS_PER_SECOND = 100000;
+    public static final int DEFAULT_SAMPLER_ADAPTIVE_WINDOW_MS = 1000;
 
     public static final String FILE_PREFIX = "file://";
 
@@ -126,6 +186,15 @@ public class BulletDSLConfig extends BulletConfig {
                  .checkIf(Validator::isPositiveInt)
                  .unless(isEqual(0))
                  .defaultTo(DEFAULT_CONNECTOR_READ_TIMEOUT_MS);
+        VALIDATOR.define(CONNECTOR_PREFETCH_ENABLE)
+                 .checkIf(Validator::isBoolean)
+                 .defaultTo(DEFAULT_CONNECTOR_PREFETCH_ENABLE);
+        VALIDATOR.define(CONNECTOR_PREFETCH_BUFFER_SIZE)
+                 .checkIf(Validator::isPositiveInt)
+                 .defaultTo(DEFAULT_CONNECTOR_PREFETCH_BUFFER_SIZE);
+        VALIDATOR.define(CONNECTOR_METADATA_ENABLE)
+                 .checkIf(Validator::isBoolean)
+                 .defaultTo(DEFAULT_CONNECTOR_METADATA_ENABLE);
 
         // KafkaConnector validation
         VALIDATOR.define(CONNECTOR_KAFKA_TOPICS);
@@ -154,6 +223,26 @@ public class BulletDSLConfig extends BulletConfig {
         VALIDATOR.define(CONNECTOR_KAFKA_START_AT_END_ENABLE)
                  .checkIf(Validator::isBoolean)
                  .defaultTo(DEFAULT_CONNECTOR_KAFKA_START_AT_END_ENABLE);
+        VALIDATOR.define(CONNECTOR_KAFKA_COMMIT_RECORDS)
+                 .checkIf(Validator::isPositiveInt)
+                 .unless(isEqual(0))
+                 .defaultTo(DEFAULT_CONNECTOR_KAFKA_COMMIT_RECORDS);
+        VALIDATOR.define(CONNECTOR_KAFKA_COMMIT_INTERVAL_MS)
+                 .checkIf(Validator::isPositiveInt)
+                 .unless(isEqual(0))
+                 .defaultTo(DEFAULT_CONNECTOR_KAFKA_COMMIT_INTERVAL_MS);
+        VALIDATOR.define(CONNECTOR_KAFKA_COMMIT_MANUAL_ENABLE)
+                 .checkIf(Validator::isBoolean)
+                 .defaultTo(DEFAULT_CONNECTOR_KAFKA_COMMIT_MANUAL_ENABLE);
+        VALIDATOR.relate("Manual commits cannot be used with prefetching.", CONNECTOR_PREFETCH_ENABLE, CONNECTOR_KAFKA_COMMIT_MANUAL_ENABLE)
+                 .checkIf(isImpliedBy(Validator::isTrue, Validator::isFalse))
+                 .orFail();
+        VALIDATOR.define(CONNECTOR_KAFKA_PARALLELISM)
+                 .checkIf(Validator::isPositiveInt)
+                 .defaultTo(DEFAULT_CONNECTOR_KAFKA_PARALLELISM);
+        VALIDATOR.relate("Manual commits cannot be used with more than one Kafka consumer.", CONNECTOR_KAFKA_PARALLELISM, CONNECTOR_KAFKA_COMMIT_MANUAL_ENABLE)
+                 .checkIf(isImpliedBy(n -> ((Number) n).intValue() > 1, Validator::isFalse))
+                 .orFail();
 
         // PulsarConnector validation
         VALIDATOR.define(CONNECTOR_PULSAR_TOPICS);
@@ -192,6 +281,24 @@ public class BulletDSLConfig extends BulletConfig {
                  .checkIf(Validator::isString)
                  .unless(Validator::isNull)
                  .orFail();
+        VALIDATOR.define(CONNECTOR_PULSAR_BATCH_MAX_MESSAGES)
+                 .checkIf(Validator::isPositiveInt)
+                 .unless(isEqual(0))
+                 .defaultTo(DEFAULT_CONNECTOR_PULSAR_BATCH_MAX_MESSAGES);
+        VALIDATOR.define(CONNECTOR_PULSAR_BATCH_MAX_BYTES)
+                 .checkIf(Validator::isPositiveInt)
+                 .unless(isEqual(0))
+                 .defaultTo(DEFAULT_CONNECTOR_PULSAR_BATCH_MAX_BYTES);
+        VALIDATOR.define(CONNECTOR_PULSAR_BATCH_TIMEOUT_MS)
+                 .checkIf(Validator::isPositiveInt)
+                 .unless(isEqual(0))
+                 .defaultTo(DEFAULT_CONNECTOR_PULSAR_BATCH_TIMEOUT_MS);
+        VALIDATOR.define(CONNECTOR_PULSAR_ACK_CUMULATIVE_ENABLE)
+                 .checkIf(Validator::isBoolean)
+                 .defaultTo(DEFAULT_CONNECTOR_PULSAR_ACK_CUMULATIVE_ENABLE);
+        VALIDATOR.relate("Cumulative acknowledgement cannot be used with a Shared subscription.", CONNECTOR_PULSAR_ACK_CUMULATIVE_ENABLE, CONNECTOR_PULSAR_CONSUMER_SUBSCRIPTION_TYPE)
+                 .checkIf(isImpliedBy(Validator::isTrue, isEqual(DEFAULT_CONNECTOR_PULSAR_CONSUMER_SUBSCRIPTION_TYPE).negate()))
+                 .orFail();
 
         // BulletRecordConverter validation
         VALIDATOR.define(RECORD_CONVERTER_CLASS_NAME)
@@ -205,6 +312,20 @@ public class BulletDSLConfig extends BulletConfig {
         VALIDATOR.define(RECORD_CONVERTER_SCHEMA_TYPE_CHECK_ENABLE)
                  .checkIf(Validator::isBoolean)
                  .defaultTo(DEFAULT_CONVERTER_TYPE_CHECK_ENABLE);
+        VALIDATOR.define(RECORD_CONVERTER_SCHEMA_TYPE_CHECK_SAMPLE_SIZE)
+                 .checkIf(Validator::isPositiveInt)
+                 .unless(isEqual(0))
+                 .defaultTo(DEFAULT_CONVERTER_TYPE_CHECK_SAMPLE_SIZE);
+        VALIDATOR.define(RECORD_CONVERTER_PARALLELISM)
+                 .checkIf(Validator::isPositiveInt)
+                 .defaultTo(DEFAULT_CONVERTER_PARALLELISM);
+        VALIDATOR.define(RECORD_CONVERTER_POOL_SIZE)
+                 .checkIf(Validator::isPositiveInt)
+                 .unless(isEqual(0))
+                 .defaultTo(DEFAULT_CONVERTER_POOL_SIZE);
+        VALIDATOR.define(RECORD_CONVERTER_LAZY_ENABLE)
+                 .checkIf(Validator::isBoolean)
+                 .defaultTo(DEFAULT_CONVERTER_LAZY_ENABLE);
         VALIDATOR.define(RECORD_CONVERTER_POJO_CLASS_NAME);
         VALIDATOR.relate("If using POJOBulletRecordConverter, a POJO class name must be specified.", RECORD_CONVERTER_CLASS_NAME, RECORD_CONVERTER_POJO_CLASS_NAME)
                  .checkIf(isImpliedBy(isEqual(POJO_CONVERTER_CLASS_NAME), Validator::isClassName))
@@ -212,6 +333,27 @@ public class BulletDSLConfig extends BulletConfig {
         VALIDATOR.define(RECORD_CONVERTER_AVRO_STRING_TYPE_FIX_ENABLE)
                  .checkIf(Validator::isBoolean)
                  .defaultTo(DEFAULT_CONVERTER_AVRO_STRING_TYPE_FIX_ENABLE);
+        VALIDATOR.define(RECORD_CONVERTER_JSON_STREAMING_ENABLE)
+                 .checkIf(Validator::isBoolean)
+                 .defaultTo(DEFAULT_CONVERTER_JSON_STREAMING_ENABLE);
+        VALIDATOR.define(RECORD_CONVERTER_AVRO_SCHEMA_FILE)
+                 .checkIf(Validator::isString)
+                 .castTo(BulletDSLConfig::stringFromFile)
+                 .unless(Validator::isNull)
+                 .orFail();
+        VALIDATOR.define(RECORD_CONVERTER_AVRO_CLASS_NAME)
+                 .checkIf(Validator::isClassName)
+                 .unless(Validator::isNull)
+                 .orFail();
+        VALIDATOR.evaluate("If using AvroBinaryBulletRecordConverter, the Avro schema file or class name must be specified.", RECORD_CONVERTER_CLASS_NAME, RECORD_CONVERTER_AVRO_SCHEMA_FILE, RECORD_CONVERTER_AVRO_CLASS_NAME)
+                 .checkIf(BulletDSLConfig::isAtLeastOneAvroBinaryConverterFieldDefined)
+                 .orFail();
+
+        // Filter validation
+        VALIDATOR.define(FILTER_PREDICATES)
+                 .checkIf(Validator::isList)
+                 .unless(Validator::isNull)
+                 .orFail();
 
         // BulletDeserializer validation
         VALIDATOR.define(DESERIALIZER_CLASS_NAME);
@@ -224,9 +366,51 @@ public class BulletDSLConfig extends BulletConfig {
                  .checkIf(Validator::isClassName)
                  .unless(Validator::isNull)
                  .orFail();
+        VALIDATOR.define(DESERIALIZER_AVRO_PROJECTION_ENABLE)
+                 .checkIf(Validator::isBoolean)
+                 .defaultTo(DEFAULT_DESERIALIZER_AVRO_PROJECTION_ENABLE);
+        VALIDATOR.relate("If projecting Avro records, the converter schema file must be specified.", DESERIALIZER_AVRO_PROJECTION_ENABLE, RECORD_CONVERTER_SCHEMA_FILE)
+                 .checkIf(isImpliedBy(Validator::isTrue, Validator::isString))
+                 .orFail();
         VALIDATOR.evaluate("If using AvroDeserializer, the Avro schema file or class name must be specified.", DESERIALIZER_CLASS_NAME, DESERIALIZER_AVRO_SCHEMA_FILE, DESERIALIZER_AVRO_CLASS_NAME)
                  .checkIf(BulletDSLConfig::isAtLeastOneAvroDeserializerFieldDefined)
                  .orFail();
+
+        // BulletDSLPipeline validation
+        VALIDATOR.define(PIPELINE_QUEUE_CAPACITY)
+                 .checkIf(Validator::isPositiveInt)
+                 .defaultTo(DEFAULT_PIPELINE_QUEUE_CAPACITY);
+        VALIDATOR.define(PIPELINE_READ_TIMEOUT_MS)
+                 .checkIf(Validator::isPositiveInt)
+                 .unless(isEqual(0))
+                 .defaultTo(DEFAULT_PIPELINE_READ_TIMEOUT_MS);
+
+        // BulletSampler validation
+        VALIDATOR.define(SAMPLER_CLASS_NAME)
+                 .checkIf(Validator::isClassName)
+                 .unless(Validator::isNull)
+                 .orFail();
+        VALIDATOR.define(SAMPLER_RATE)
+                 .checkIf(Validator::isPositive)
+                 .checkIf(Validator.isInRange(0.0, 1.0))
+                 .castTo(Validator::asDouble)
+                 .defaultTo(DEFAULT_SAMPLER_RATE);
+        VALIDATOR.define(SAMPLER_RATE_FIELD)
+                 .checkIf(Validator::isString)
+                 .defaultTo(DEFAULT_SAMPLER_RATE_FIELD);
+        VALIDATOR.define(SAMPLER_KEY_REFERENCE)
+                 .checkIf(BulletDSLConfig::isMetadataReference)
+                 .unless(Validator::isNull)
+                 .orFail();
+        VALIDATOR.relate("If sampling by the hash of metadata, the connector metadata must be enabled.", SAMPLER_KEY_REFERENCE, CONNECTOR_METADATA_ENABLE)
+                 .checkIf(isImpliedBy(Validator::isString, Validator::isTrue))
+                 .orFail();
+        VALIDATOR.define(SAMPLER_ADAPTIVE_RECORDS_PER_SECOND)
+                 .checkIf(Validator::isPositiveInt)
+                 .defaultTo(DEFAULT_SAMPLER_ADAPTIVE_RECORDS_PER_SECOND);
+        VALIDATOR.define(SAMPLER_ADAPTIVE_WINDOW_MS)
+                 .checkIf(Validator::isPositiveInt)
+                 .defaultTo(DEFAULT_SAMPLER_ADAPTIVE_WINDOW_MS);
     }
 
     /**
@@ -286,6 +470,23 @@ public class BulletDSLConfig extends BulletConfig {
         return new BufferedReader(new InputStreamReader(is)).lines().collect(Collectors.joining("\n"));
     }
 
+    private static boolean isMetadataReference(Object reference) {
+        if (!(reference instanceof String)) {
+            return false;
+        }
+        String asString = (String) reference;
+        int delimiter = asString.indexOf('.');
+        return asString.startsWith(ConnectorRecord.METADATA_PREFIX) && delimiter > 1 && delimiter < asString.length() - 1;
+    }
+
+    private static boolean isAtLeastOneAvroBinaryConverterFieldDefined(List<Object> fields) {
+        String converterClassName = (String) fields.get(0);
+        if (!AVRO_BINARY_CONVERTER_CLASS_NAME.equals(converterClassName)) {
+            return true;
+        }
+        return fields.get(1) != null || fields.get(2) != null;
+    }
+
     private static boolean isAtLeastOneAvroDeserializerFieldDefined(List<Object> fields) {
         String deserializerClassName = (String) fields.get(0);
         if (!AVRO_DESERIALIZER_CLASS_NAME.equals(deserializerClassName)) {
@@ -0,0 +1,258 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.dsl.connector.BulletConnector;
+import com.yahoo.bullet.dsl.converter.BulletRecordConverter;
+import com.yahoo.bullet.dsl.deserializer.BulletDeserializer;
+import com.yahoo.bullet.dsl.sampler.BulletSampler;
+import com.yahoo.bullet.record.BulletRecord;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A BulletDSLPipeline wires a {@link BulletConnector}, an optional {@link BulletDeserializer} and a
+ * {@link BulletRecordConverter} together and runs reading, deserializing and converting as overlapping stages, each on
+ * its own thread. The stages hand batches to each other through bounded queues, so a slow stage eventually blocks the
+ * stages before it. Converted batches are pulled with {@link #read()}.
+ * <br><br>
+ * If a {@link BulletSampler} is configured, each batch is sampled by the read stage as soon as it is read, so the
+ * objects that are dropped are never deserialized or converted. The rate a batch was sampled at is set on the records
+ * converted from it.
+ * <br><br>
+ * If a stage fails, the pipeline stops and the failure is thrown from {@link #read()} once the batches converted
+ * before it have been read.
+ */
+@Slf4j
+public class BulletDSLPipeline implements AutoCloseable {
+
+    private static final long STAGE_POLL_MS = 100L;
+
+    /**
+     * A step of the pipeline applied to each batch.
+     */
+    @FunctionalInterface
+    private interface Step<T> {
+        T apply(Batch batch) throws BulletDSLException;
+    }
+
+    /**
+     * A batch of objects along with the rate it was sampled at.
+     */
+    private static class Batch {
+        private final List<Object> objects;
+        private final double rate;
+
+        private Batch(List<Object> objects, double rate) {
+            this.objects = objects;
+            this.rate = rate;
+        }
+    }
+
+    @Getter
+    private final BulletConnector connector;
+    @Getter
+    private final BulletDeserializer deserializer;
+    @Getter
+    private final BulletRecordConverter converter;
+    @Getter
+    private final BulletSampler sampler;
+
+    private final long readTimeout;
+    private final BlockingQueue<Batch> read;
+    private final BlockingQueue<Batch> deserialized;
+    private final BlockingQueue<List<BulletRecord>> converted;
+    private final List<Thread> threads = new ArrayList<>();
+
+    private volatile boolean running;
+    private volatile Exception failure;
+
+    /**
+     * Constructs a BulletDSLPipeline with the {@link BulletConnector}, {@link BulletDeserializer} and
+     * {@link BulletRecordConverter} specified in the given configuration. The deserialize stage is skipped if no
+     * deserializer is specified. The {@link BulletSampler} is also specified in the configuration, if any.
+     *
+     * @param bulletConfig The configuration that specifies the pieces of the pipeline and their settings.
+     */
+    public BulletDSLPipeline(BulletConfig bulletConfig) {
+        this(new BulletDSLConfig(bulletConfig));
+    }
+
+    private BulletDSLPipeline(BulletDSLConfig config) {
+        this(config, BulletConnector.from(config), getDeserializer(config), BulletRecordConverter.from(config));
+    }
+
+    /**
+     * Constructs a BulletDSLPipeline from the given pieces. The {@link BulletSampler}, if any, is specified in the given
+     * configuration.
+     *
+     * @param bulletConfig The configuration that specifies the settings for the pipeline.
+     * @param connector The {@link BulletConnector} to read from.
+     * @param deserializer The {@link BulletDeserializer} to use or null to skip the deserialize stage.
+     * @param converter The {@link BulletRecordConverter} to convert with.
+     */
+    public BulletDSLPipeline(BulletConfig bulletConfig, BulletConnector connector, BulletDeserializer deserializer, BulletRecordConverter converter) {
+        BulletDSLConfig config = new BulletDSLConfig(bulletConfig);
+        int capacity = config.getAs(BulletDSLConfig.PIPELINE_QUEUE_CAPACITY, Number.class).intValue();
+        this.connector = connector;
+        this.deserializer = deserializer;
+        this.converter = converter;
+        sampler = config.get(BulletDSLConfig.SAMPLER_CLASS_NAME) == null ? null : BulletSampler.from(config);
+        readTimeout = config.getAs(BulletDSLConfig.PIPELINE_READ_TIMEOUT_MS, Number.class).longValue();
+        read = new ArrayBlockingQueue<>(capacity);
+        deserialized = new ArrayBlockingQueue<>(capacity);
+        converted = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Initializes the {@link BulletConnector} and starts the stages of the pipeline. Must be called before read().
+     *
+     * @throws BulletDSLException if the connector could not be initialized.
+     */
+    public void start() throws BulletDSLException {
+        connector.initialize();
+        running = true;
+        start("read", this::runReader);
+        if (deserializer == null) {
+            start("convert", () -> runStage(read, converted, this::convert));
+        } else {
+            start("deserialize", () -> runStage(read, deserialized, this::deserialize));
+            start("convert", () -> runStage(deserialized, converted, this::convert));
+        }
+    }
+
+    /**
+     * Reads the next batch of converted records. Waits for at most the configured read timeout.
+     *
+     * @return The next non-empty batch of records or an empty list if none was ready in time.
+     * @throws BulletDSLException if a stage of the pipeline failed.
+     */
+    public List<BulletRecord> read() throws BulletDSLException {
+        List<BulletRecord> records;
+        try {
+            records = converted.poll(readTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        }
+        if (records != null) {
+            return records;
+        }
+        Exception cause = failure;
+        if (cause instanceof BulletDSLException) {
+            throw (BulletDSLException) cause;
+        } else if (cause != null) {
+            throw new BulletDSLException("The pipeline failed.", cause);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Stops the stages of the pipeline, waits for them to finish and closes the {@link BulletConnector} and the
+     * {@link BulletRecordConverter}. Batches that have not been read yet are dropped.
+     *
+     * @throws Exception if the connector could not be closed.
+     */
+    @Override
+    public void close() throws Exception {
+        running = false;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        threads.clear();
+        try {
+            connector.close();
+        } finally {
+            converter.close();
+        }
+    }
+
+    private void start(String stage, Runnable runnable) {
+        Thread thread = new Thread(runnable, "bullet-dsl-pipeline-" + stage);
+        thread.setDaemon(true);
+        threads.add(thread);
+        thread.start();
+    }
+
+    private void runReader() {
+        try {
+            while (running) {
+                List<Object> batch = connector.read();
+                if (batch != null && sampler != null) {
+                    batch = sampler.sample(batch);
+                }
+                if (batch != null && !batch.isEmpty()) {
+                    offer(read, new Batch(batch, sampler != null ? sampler.getRate() : 1.0));
+                }
+            }
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    private <T> void runStage(BlockingQueue<Batch> input, BlockingQueue<T> output, Step<T> step) {
+        try {
+            while (running) {
+                Batch batch = input.poll(STAGE_POLL_MS, TimeUnit.MILLISECONDS);
+                T result = batch != null ? step.apply(batch) : null;
+                // Batches left empty by the filter are dropped so that read() only returns empty lists on timeouts
+                if (result != null) {
+                    offer(output, result);
+                }
+            }
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    private <T> void offer(BlockingQueue<T> queue, T batch) throws InterruptedException {
+        // Waits for the next stage to catch up unless the pipeline is stopped
+        boolean offered;
+        do {
+            offered = queue.offer(batch, STAGE_POLL_MS, TimeUnit.MILLISECONDS);
+        } while (!offered && running);
+    }
+
+    private void fail(Exception e) {
+        log.error("Stopping the pipeline after a stage failed: ", e);
+        if (failure == null) {
+            failure = e;
+        }
+        running = false;
+    }
+
+    private Batch deserialize(Batch batch) throws BulletDSLException {
+        List<Object> objects = new ArrayList<>(batch.objects.size());
+        for (Object object : batch.objects) {
+            objects.add(deserializer.deserialize(object));
+        }
+        return new Batch(objects, batch.rate);
+    }
+
+    private List<BulletRecord> convert(Batch batch) throws BulletDSLException {
+        List<BulletRecord> records = converter.convertAll(batch.objects);
+        return records.isEmpty() ? null : annotate(records, batch.rate);
+    }
+
+    private List<BulletRecord> annotate(List<BulletRecord> records, double rate) {
+        return sampler == null ? records : sampler.annotate(records, rate);
+    }
+
+    private static BulletDeserializer getDeserializer(BulletDSLConfig config) {
+        if (config.get(BulletDSLConfig.DESERIALIZER_CLASS_NAME) == null) {
+            return null;
+        }
+        return BulletDeserializer.from(config);
+    }
+}
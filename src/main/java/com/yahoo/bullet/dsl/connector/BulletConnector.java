@@ -13,6 +13,12 @@ import lombok.Getter;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A BulletConnector is used to read objects from a data source such as Kafka or Pulsar. Connectors should extend this
@@ -26,6 +32,17 @@ public abstract class BulletConnector implements AutoCloseable, Serializable {
     @Getter(AccessLevel.PACKAGE)
     protected BulletDSLConfig config;
 
+    private transient ExecutorService readExecutor;
+    private transient volatile Thread readThread;
+
+    /**
+     * A task run by {@link #runOnReadThread(ReadTask)}.
+     */
+    @FunctionalInterface
+    protected interface ReadTask {
+        void run() throws BulletDSLException;
+    }
+
     /**
      * Constructor that takes a configuration containing the settings relevant for this connector.
      *
@@ -51,12 +68,138 @@ public abstract class BulletConnector implements AutoCloseable, Serializable {
     public abstract List<Object> read() throws BulletDSLException;
 
     /**
-     * Creates a BulletConnector instance using the specified class.
+     * Reads and deserializes messages from a data source without blocking the caller. By default, {@link #read()} is
+     * run on a thread dedicated to this BulletConnector, so reads are run one at a time in the order they were requested.
+     * Connectors that can read asynchronously natively should override this. Do not mix read() and readAsync() on the
+     * same instance.
+     *
+     * @return A {@link CompletableFuture} of the list of deserialized objects. It completes exceptionally with a
+     *         {@link BulletDSLException} if there is a connection or reading error.
+     */
+    public CompletableFuture<List<Object>> readAsync() {
+        CompletableFuture<List<Object>> result = new CompletableFuture<>();
+        getReadExecutor().execute(() -> {
+            try {
+                result.complete(read());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Commits the messages returned by the reads so far if the BulletConnector is configured to only commit on request.
+     * By default, this does nothing since the messages are committed as they are read.
+     *
+     * @throws BulletDSLException if there is an error committing.
+     */
+    public void commit() throws BulletDSLException {
+    }
+
+    /**
+     * Makes the messages of each read that returned messages only be committed once {@link #delivered()} was called for
+     * that read. Connectors that read from this one ahead of their caller, such as the {@link PrefetchingConnector}, call
+     * this before {@link #initialize()} so that the messages they buffered but never handed over are not committed. By
+     * default, this is not supported and the messages are committed as they are read.
+     *
+     * @return Whether the commits are deferred.
+     */
+    protected boolean deferCommits() {
+        return false;
+    }
+
+    /**
+     * Marks the messages of the oldest read that returned messages and was not marked yet as delivered, so they are
+     * committed like the messages of a read normally are. Only used after {@link #deferCommits()} returned true. Unlike
+     * reads, this may be called from any thread.
+     *
+     * @throws BulletDSLException if the messages could not be committed.
+     */
+    protected void delivered() throws BulletDSLException {
+    }
+
+    /**
+     * Stops the thread used by the default {@link #readAsync()} after the pending reads are done. Connectors that use it
+     * should call this when closed before closing their source.
+     */
+    protected synchronized void shutdownReadExecutor() {
+        if (readExecutor == null) {
+            return;
+        }
+        readExecutor.shutdown();
+        try {
+            readExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        readExecutor = null;
+    }
+
+    /**
+     * Runs the given task on the thread used by the default {@link #readAsync()} and waits for it, or runs it on the
+     * calling thread if that thread is not used. Lets connectors whose source is not thread-safe use it outside of reads.
+     *
+     * @param task The task to run.
+     * @throws BulletDSLException if the task failed.
+     */
+    protected void runOnReadThread(ReadTask task) throws BulletDSLException {
+        ExecutorService executor;
+        synchronized (this) {
+            executor = readExecutor;
+        }
+        if (executor == null || Thread.currentThread() == readThread) {
+            task.run();
+            return;
+        }
+        Future<?> future = executor.submit(() -> {
+            task.run();
+            return null;
+        });
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BulletDSLException) {
+                throw (BulletDSLException) e.getCause();
+            }
+            throw new BulletDSLException("Could not run on the read thread.", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulletDSLException("Interrupted while waiting for the read thread.", e);
+        }
+    }
+
+    private synchronized ExecutorService getReadExecutor() {
+        if (readExecutor == null) {
+            readExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "bullet-dsl-read-" + getClass().getSimpleName());
+                thread.setDaemon(true);
+                readThread = thread;
+                return thread;
+            });
+        }
+        return readExecutor;
+    }
+
+    /**
+     * Creates a BulletConnector instance using the specified class. If the class is {@link KafkaConnector} and its
+     * parallelism is greater than 1, a {@link ParallelKafkaConnector} is created instead. If prefetching is enabled, the
+     * instance is wrapped in a {@link PrefetchingConnector}.
      *
      * @param config The configuration containing the BulletConnector class name and other relevant settings.
      * @return A new instance of the specified BulletConnector class.
      */
     public static BulletConnector from(BulletDSLConfig config) {
-        return config.loadConfiguredClass(BulletDSLConfig.CONNECTOR_CLASS_NAME);
+        BulletConnector connector;
+        if (BulletDSLConfig.KAFKA_CONNECTOR_CLASS_NAME.equals(config.get(BulletDSLConfig.CONNECTOR_CLASS_NAME)) &&
+            config.getAs(BulletDSLConfig.CONNECTOR_KAFKA_PARALLELISM, Number.class).intValue() > 1) {
+            connector = new ParallelKafkaConnector(config);
+        } else {
+            connector = config.loadConfiguredClass(BulletDSLConfig.CONNECTOR_CLASS_NAME);
+        }
+        if (config.getAs(BulletDSLConfig.CONNECTOR_PREFETCH_ENABLE, Boolean.class)) {
+            return new PrefetchingConnector(config, connector);
+        }
+        return connector;
     }
 }
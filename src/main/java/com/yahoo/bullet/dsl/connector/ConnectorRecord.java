@@ -0,0 +1,60 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.connector;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A message read by a {@link BulletConnector} with metadata enabled. It holds the value of the message along with the
+ * message itself, so its metadata, e.g. the Kafka offset, is only read if the schema of the converter references it.
+ * <br><br>
+ * Deserializers replace the value in place. Converters set the referenced metadata as fields. A reference to metadata
+ * is the namespace of the connector, e.g. {@link KafkaConnector#METADATA_NAMESPACE}, followed by the key of the
+ * metadata, such as <code>$kafka.offset</code>.
+ */
+public abstract class ConnectorRecord {
+
+    public static final String METADATA_PREFIX = "$";
+
+    @Getter @Setter
+    private Object value;
+
+    /**
+     * Constructor that takes the value of the message.
+     *
+     * @param value The value of the message.
+     */
+    protected ConnectorRecord(Object value) {
+        this.value = value;
+    }
+
+    /**
+     * Gets the metadata with the given key if the message was read from the given namespace.
+     *
+     * @param namespace The namespace of the metadata, e.g. <code>$kafka</code>.
+     * @param key The key of the metadata.
+     * @return The metadata or null if it does not exist.
+     */
+    public Object getMetadata(String namespace, String key) {
+        return getNamespace().equals(namespace) ? getMetadata(key) : null;
+    }
+
+    /**
+     * Gets the namespace of the metadata of this message.
+     *
+     * @return The namespace starting with {@link #METADATA_PREFIX}.
+     */
+    protected abstract String getNamespace();
+
+    /**
+     * Reads the metadata with the given key from the message.
+     *
+     * @param key The key of the metadata.
+     * @return The metadata or null if it does not exist.
+     */
+    protected abstract Object getMetadata(String key);
+}
@@ -11,22 +11,49 @@ import com.yahoo.bullet.dsl.BulletDSLException;
 import lombok.AccessLevel;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
 
 import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A {@link BulletConnector} that reads and deserializes messages from Kafka.
+ * <br><br>
+ * If auto commit is disabled, the connector tracks the offset of the last record read from each partition and commits
+ * these offsets once a configured number of records was read or a configured interval passed since the last commit.
+ * If neither is configured, it commits after every read that returned records. If manual commits are enabled, the
+ * offsets are only committed by {@link #commit()}, e.g. once the records were successfully converted.
+ * <br><br>
+ * {@link #readAsync()} polls on a thread dedicated to this connector. Since the consumer is not thread-safe,
+ * {@link #commit()} then commits on that thread too.
+ * <br><br>
+ * If commits are deferred by a connector that reads ahead of its caller, the records of a read are only counted and
+ * committed as above once they were delivered to the caller. Records that were never delivered are not committed, so
+ * they are read again after a restart.
+ * <br><br>
+ * If metadata is enabled, the records are read as {@link ConnectorRecord} instances whose metadata is referenced with
+ * {@link #METADATA_NAMESPACE}. The keys are topic, partition, offset, timestamp, timestampType and key.
  */
 @Slf4j
 public class KafkaConnector extends BulletConnector {
 
+    public static final String METADATA_NAMESPACE = ConnectorRecord.METADATA_PREFIX + "kafka";
+
     private static final long serialVersionUID = -256168979644903950L;
 
     // Exposed for tests
@@ -37,7 +64,21 @@ public class KafkaConnector extends BulletConnector {
     private boolean startAtEnd;
     private boolean autoCommit;
     private boolean asyncCommit;
+    private boolean manualCommit;
+    private int commitRecords;
+    private long commitInterval;
     private Duration timeout;
+    private boolean metadata;
+
+    private transient Map<TopicPartition, OffsetAndMetadata> offsets;
+    // The records not committed yet in total and per partition so that the ones of revoked partitions can be discounted
+    private transient int uncommittedRecords;
+    private transient Map<TopicPartition, Integer> uncommittedCounts;
+    private transient long lastCommit;
+    // If commits are deferred, the reads not delivered yet and how many of the oldest ones were delivered since. The
+    // reads are only used by the thread that reads.
+    private transient Queue<Read> undelivered;
+    private transient AtomicInteger delivered;
 
     /**
      * Constructs a KafkaConnector from a given configuration.
@@ -50,17 +91,36 @@ public class KafkaConnector extends BulletConnector {
         startAtEnd = config.getAs(BulletDSLConfig.CONNECTOR_KAFKA_START_AT_END_ENABLE, Boolean.class);
         autoCommit = config.getAs(BulletDSLConfig.CONNECTOR_KAFKA_ENABLE_AUTO_COMMIT, Boolean.class);
         asyncCommit = config.getAs(BulletDSLConfig.CONNECTOR_ASYNC_COMMIT_ENABLE, Boolean.class);
+        manualCommit = config.getAs(BulletDSLConfig.CONNECTOR_KAFKA_COMMIT_MANUAL_ENABLE, Boolean.class);
+        commitRecords = config.getAs(BulletDSLConfig.CONNECTOR_KAFKA_COMMIT_RECORDS, Number.class).intValue();
+        commitInterval = config.getAs(BulletDSLConfig.CONNECTOR_KAFKA_COMMIT_INTERVAL_MS, Number.class).longValue();
         timeout = Duration.ofMillis(config.getAs(BulletDSLConfig.CONNECTOR_READ_TIMEOUT_MS, Number.class).longValue());
+        metadata = config.getAs(BulletDSLConfig.CONNECTOR_METADATA_ENABLE, Boolean.class);
     }
 
     @Override
     public void initialize() {
         consumer = new KafkaConsumer<>(config.getAllWithPrefix(Optional.empty(), BulletDSLConfig.CONNECTOR_KAFKA_NAMESPACE, true));
-        consumer.subscribe(topics);
+        consumer.subscribe(topics, new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                revoke(partitions);
+            }
+
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            }
+
+            @Override
+            public void onPartitionsLost(Collection<TopicPartition> partitions) {
+                forget(partitions);
+            }
+        });
         if (startAtEnd) {
             consumer.seekToEnd(Collections.emptyList());
         }
         consumer.poll(Duration.ZERO);
+        lastCommit = now();
     }
 
     @Override
@@ -71,24 +131,244 @@ public class KafkaConnector extends BulletConnector {
         } catch (KafkaException e) {
             throw new BulletDSLException("Could not read from consumer.", e);
         }
-        List<Object> objects = new ArrayList<>();
-        buffer.forEach(record -> objects.add(record.value()));
+        List<Object> objects = new ArrayList<>(buffer.count());
+        if (metadata) {
+            buffer.forEach(record -> objects.add(new KafkaRecord(record)));
+        } else {
+            buffer.forEach(record -> objects.add(record.value()));
+        }
         if (!autoCommit) {
-            commit();
+            if (undelivered == null) {
+                track(new Read(buffer));
+            } else {
+                if (!buffer.isEmpty()) {
+                    undelivered.add(new Read(buffer));
+                }
+                trackDelivered();
+            }
+            if (!manualCommit && isCommitDue()) {
+                commitOffsets();
+            }
         }
         return objects;
     }
 
+    /**
+     * Commits the offsets of the records returned by the reads so far. Does nothing if auto commit is enabled. Like
+     * {@link #read()}, this must be called from the thread that reads unless reading with {@link #readAsync()}.
+     *
+     * @throws BulletDSLException if the offsets could not be committed.
+     */
+    @Override
+    public void commit() throws BulletDSLException {
+        if (!autoCommit) {
+            runOnReadThread(this::commitOffsets);
+        }
+    }
+
+    /**
+     * Defers the commits of the records of each read until they are delivered. Not supported with auto commit or manual
+     * commits.
+     *
+     * @return Whether the commits are deferred.
+     */
+    @Override
+    protected boolean deferCommits() {
+        if (autoCommit || manualCommit) {
+            return false;
+        }
+        undelivered = new ArrayDeque<>();
+        delivered = new AtomicInteger();
+        return true;
+    }
+
+    @Override
+    protected void delivered() {
+        // The records are tracked by the thread that reads since the consumer is not thread-safe
+        delivered.incrementAndGet();
+    }
+
     @Override
     public void close() {
+        // The consumer must not be used by the thread that reads asynchronously while it is closed
+        shutdownReadExecutor();
+        if (!autoCommit && !manualCommit) {
+            if (undelivered != null) {
+                trackDelivered();
+            }
+            try {
+                commitOffsets();
+            } catch (BulletDSLException e) {
+                log.error("Could not commit offsets before closing: ", e);
+            }
+        }
         consumer.close();
     }
 
-    private void commit() {
+    private Map<TopicPartition, OffsetAndMetadata> getOffsets() {
+        if (offsets == null) {
+            offsets = new HashMap<>();
+        }
+        return offsets;
+    }
+
+    private Map<TopicPartition, Integer> getUncommittedCounts() {
+        if (uncommittedCounts == null) {
+            uncommittedCounts = new HashMap<>();
+        }
+        return uncommittedCounts;
+    }
+
+    private void track(Read read) {
+        getOffsets().putAll(read.offsets);
+        Map<TopicPartition, Integer> counts = getUncommittedCounts();
+        read.counts.forEach((partition, count) -> {
+            counts.merge(partition, count, Integer::sum);
+            uncommittedRecords += count;
+        });
+    }
+
+    private void trackDelivered() {
+        for (int i = delivered.getAndSet(0); i > 0; i--) {
+            track(undelivered.remove());
+        }
+    }
+
+    private void forget(Collection<TopicPartition> partitions) {
+        getOffsets().keySet().removeAll(partitions);
+        Map<TopicPartition, Integer> counts = getUncommittedCounts();
+        for (TopicPartition partition : partitions) {
+            Integer count = counts.remove(partition);
+            if (count != null) {
+                uncommittedRecords -= count;
+            }
+        }
+        if (undelivered != null) {
+            undelivered.forEach(read -> {
+                read.offsets.keySet().removeAll(partitions);
+                read.counts.keySet().removeAll(partitions);
+            });
+        }
+    }
+
+    private boolean isCommitDue() {
+        if (uncommittedRecords == 0) {
+            return false;
+        }
+        if (commitRecords == 0 && commitInterval == 0) {
+            return true;
+        }
+        return (commitRecords > 0 && uncommittedRecords >= commitRecords) ||
+               (commitInterval > 0 && now() - lastCommit >= commitInterval);
+    }
+
+    // Exposed for testing
+    void revoke(Collection<TopicPartition> partitions) {
+        if (undelivered != null) {
+            trackDelivered();
+        }
+        Map<TopicPartition, OffsetAndMetadata> tracked = getOffsets();
+        // Records not committed manually yet are redelivered to the new owner of the partition
+        if (!manualCommit) {
+            Map<TopicPartition, OffsetAndMetadata> revoked = new HashMap<>();
+            partitions.stream().filter(tracked::containsKey).forEach(partition -> revoked.put(partition, tracked.get(partition)));
+            try {
+                if (!revoked.isEmpty()) {
+                    consumer.commitSync(revoked);
+                }
+            } catch (KafkaException e) {
+                log.error("Could not commit offsets of revoked partitions: ", e);
+            }
+        }
+        // The new owner of the partition reads the records that were not delivered again
+        forget(partitions);
+    }
+
+    private void commitOffsets() throws BulletDSLException {
+        Map<TopicPartition, OffsetAndMetadata> tracked = getOffsets();
+        if (tracked.isEmpty()) {
+            return;
+        }
+        Map<TopicPartition, OffsetAndMetadata> committing = new HashMap<>(tracked);
         if (asyncCommit) {
-            consumer.commitAsync();
+            consumer.commitAsync(committing, (committed, e) -> {
+                if (e != null) {
+                    log.error("Could not commit offsets: " + committed, e);
+                }
+            });
         } else {
-            consumer.commitSync();
+            try {
+                consumer.commitSync(committing);
+            } catch (KafkaException e) {
+                throw new BulletDSLException("Could not commit offsets.", e);
+            }
+        }
+        tracked.clear();
+        getUncommittedCounts().clear();
+        uncommittedRecords = 0;
+        lastCommit = now();
+    }
+
+    /**
+     * Gets the current time. Exposed for testing.
+     *
+     * @return The current time in milliseconds.
+     */
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * The offsets after the last record of each partition returned by a read and the number of records it returned
+     * from each partition.
+     */
+    private static final class Read {
+        private final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        private final Map<TopicPartition, Integer> counts = new HashMap<>();
+
+        private Read(ConsumerRecords<Object, Object> buffer) {
+            for (TopicPartition partition : buffer.partitions()) {
+                List<ConsumerRecord<Object, Object>> records = buffer.records(partition);
+                offsets.put(partition, new OffsetAndMetadata(records.get(records.size() - 1).offset() + 1));
+                counts.put(partition, records.size());
+            }
+        }
+    }
+
+    /**
+     * A {@link ConnectorRecord} that reads the metadata from its {@link ConsumerRecord}.
+     */
+    private static class KafkaRecord extends ConnectorRecord {
+        private final ConsumerRecord<Object, Object> record;
+
+        private KafkaRecord(ConsumerRecord<Object, Object> record) {
+            super(record.value());
+            this.record = record;
+        }
+
+        @Override
+        protected String getNamespace() {
+            return METADATA_NAMESPACE;
+        }
+
+        @Override
+        protected Object getMetadata(String key) {
+            switch (key) {
+                case "topic":
+                    return record.topic();
+                case "partition":
+                    return record.partition();
+                case "offset":
+                    return record.offset();
+                case "timestamp":
+                    return record.timestamp();
+                case "timestampType":
+                    return record.timestampType().name;
+                case "key":
+                    return record.key();
+                default:
+                    return null;
+            }
         }
     }
 }
@@ -0,0 +1,233 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.connector;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.dsl.BulletDSLException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link BulletConnector} that reads from Kafka with a configured number of {@link KafkaConnector} instances, each
+ * polling its own consumer on its own thread. The consumers share the group id, so Kafka spreads the partitions of the
+ * topics across them. The batches they read are buffered in a queue bounded by the prefetch buffer size and
+ * {@link #read()} merges the batches buffered so far into one.
+ * <br><br>
+ * Each consumer commits the offsets of its partitions as it reads, so manual commits cannot be used. A consumer only
+ * commits a batch once it was returned by {@link #read()}, so batches still buffered when closed are read again. If a
+ * consumer fails to read, the failure is thrown from {@link #read()} once the buffered batches have been read.
+ */
+@Slf4j
+public class ParallelKafkaConnector extends BulletConnector {
+
+    private static final long serialVersionUID = -1907325318471236608L;
+    private static final long OFFER_TIMEOUT_MS = 100L;
+
+    // Exposed for testing
+    @Getter(AccessLevel.PACKAGE)
+    private final List<BulletConnector> connectors;
+    private final int bufferSize;
+    private final long timeout;
+
+    private transient BlockingQueue<Batch> buffer;
+    // The consumers of each merged batch that was not delivered yet if this connector defers its commits
+    private transient Queue<List<BulletConnector>> undelivered;
+    private transient List<Thread> threads;
+    private transient volatile boolean running;
+    private transient volatile Exception failure;
+
+    /**
+     * Constructs a ParallelKafkaConnector from a given configuration.
+     *
+     * @param bulletConfig The configuration that specifies the settings for a ParallelKafkaConnector.
+     */
+    public ParallelKafkaConnector(BulletConfig bulletConfig) {
+        this(bulletConfig, createConnectors(bulletConfig));
+    }
+
+    // Exposed for testing
+    ParallelKafkaConnector(BulletConfig bulletConfig, List<BulletConnector> connectors) {
+        super(bulletConfig);
+        Objects.requireNonNull(connectors);
+        this.connectors = connectors;
+        bufferSize = config.getAs(BulletDSLConfig.CONNECTOR_PREFETCH_BUFFER_SIZE, Number.class).intValue();
+        timeout = config.getAs(BulletDSLConfig.CONNECTOR_READ_TIMEOUT_MS, Number.class).longValue();
+    }
+
+    @Override
+    public void initialize() throws BulletDSLException {
+        List<Boolean> deferred = new ArrayList<>(connectors.size());
+        for (BulletConnector connector : connectors) {
+            deferred.add(connector.deferCommits());
+            connector.initialize();
+        }
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        failure = null;
+        running = true;
+        threads = new ArrayList<>(connectors.size());
+        for (int i = 0; i < connectors.size(); i++) {
+            BulletConnector connector = connectors.get(i);
+            BulletConnector origin = deferred.get(i) ? connector : null;
+            Thread thread = new Thread(() -> poll(connector, origin), "bullet-dsl-kafka-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+    }
+
+    /**
+     * Reads the batches buffered by the consumers merged into one. Waits for at most the read timeout if none is
+     * buffered.
+     *
+     * @return The buffered messages or an empty list if none was read in time.
+     * @throws BulletDSLException if a consumer failed to read.
+     */
+    @Override
+    public List<Object> read() throws BulletDSLException {
+        Batch batch;
+        try {
+            batch = buffer.poll(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        }
+        if (batch != null) {
+            return merge(batch);
+        }
+        Exception cause = failure;
+        if (cause instanceof BulletDSLException) {
+            throw (BulletDSLException) cause;
+        } else if (cause != null) {
+            throw new BulletDSLException("Could not read from connector.", cause);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Stops the consumer threads, waits for them to finish their current reads and closes the consumers. Buffered
+     * batches that have not been read are dropped without being committed.
+     *
+     * @throws Exception if a consumer could not be closed.
+     */
+    @Override
+    public void close() throws Exception {
+        shutdownReadExecutor();
+        running = false;
+        if (threads != null) {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            threads = null;
+        }
+        for (BulletConnector connector : connectors) {
+            connector.close();
+        }
+    }
+
+    /**
+     * Defers the commits of the merged batches until they are delivered. This always succeeds since the consumers
+     * already only commit the batches that were read.
+     *
+     * @return Whether the commits are deferred.
+     */
+    @Override
+    protected boolean deferCommits() {
+        undelivered = new ConcurrentLinkedQueue<>();
+        return true;
+    }
+
+    @Override
+    protected void delivered() throws BulletDSLException {
+        deliver(undelivered.remove());
+    }
+
+    private List<Object> merge(Batch first) throws BulletDSLException {
+        List<Batch> batches = new ArrayList<>();
+        batches.add(first);
+        buffer.drainTo(batches);
+        List<BulletConnector> origins = new ArrayList<>(batches.size());
+        batches.stream().map(batch -> batch.origin).filter(Objects::nonNull).forEach(origins::add);
+        if (undelivered != null) {
+            undelivered.add(origins);
+        } else {
+            deliver(origins);
+        }
+        if (batches.size() == 1) {
+            return first.objects;
+        }
+        int size = 0;
+        for (Batch batch : batches) {
+            size += batch.objects.size();
+        }
+        List<Object> merged = new ArrayList<>(size);
+        batches.forEach(batch -> merged.addAll(batch.objects));
+        return merged;
+    }
+
+    private static void deliver(List<BulletConnector> origins) throws BulletDSLException {
+        for (BulletConnector origin : origins) {
+            origin.delivered();
+        }
+    }
+
+    private void poll(BulletConnector connector, BulletConnector origin) {
+        try {
+            while (running) {
+                List<Object> objects = connector.read();
+                if (objects != null && !objects.isEmpty()) {
+                    offer(new Batch(origin, objects));
+                }
+            }
+        } catch (Exception e) {
+            log.error("Stopping all consumers after one failed: ", e);
+            failure = e;
+            running = false;
+        }
+    }
+
+    private void offer(Batch batch) throws InterruptedException {
+        // Waits for the caller to catch up unless closed
+        boolean offered;
+        do {
+            offered = buffer.offer(batch, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } while (!offered && running);
+    }
+
+    private static List<BulletConnector> createConnectors(BulletConfig bulletConfig) {
+        BulletDSLConfig config = new BulletDSLConfig(bulletConfig);
+        int parallelism = config.getAs(BulletDSLConfig.CONNECTOR_KAFKA_PARALLELISM, Number.class).intValue();
+        List<BulletConnector> connectors = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            connectors.add(new KafkaConnector(bulletConfig));
+        }
+        return connectors;
+    }
+
+    /**
+     * A batch read by a consumer and the consumer to deliver it to once read, if that consumer defers its commits.
+     */
+    private static final class Batch {
+        private final BulletConnector origin;
+        private final List<Object> objects;
+
+        private Batch(BulletConnector origin, List<Object> objects) {
+            this.origin = origin;
+            this.objects = objects;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.connector;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.dsl.BulletDSLException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link BulletConnector} that reads from another BulletConnector on a background thread and buffers the batches it
+ * reads, so the next batch is fetched while the caller processes the current one. The buffer is bounded by the
+ * configured number of batches. Once it is full, the background thread waits for the caller to catch up.
+ * <br><br>
+ * If the background thread fails to read, the failure is thrown from {@link #read()} once the buffered batches have
+ * been read.
+ * <br><br>
+ * The commits of the wrapped connector are deferred if it supports it, so the messages of a batch are only committed
+ * once {@link #read()} returned it. The batches still buffered when this is closed are then read again after a
+ * restart. Manual commits cannot be used.
+ */
+@Slf4j
+public class PrefetchingConnector extends BulletConnector {
+
+    private static final long serialVersionUID = 6351480725216883467L;
+    private static final long OFFER_TIMEOUT_MS = 100L;
+
+    @Getter
+    private final BulletConnector connector;
+    private final int bufferSize;
+    private final long timeout;
+
+    private transient BlockingQueue<List<Object>> buffer;
+    private transient boolean deferred;
+    private transient Thread thread;
+    private transient volatile boolean running;
+    private transient volatile Exception failure;
+
+    /**
+     * Constructs a PrefetchingConnector that reads from the given connector.
+     *
+     * @param bulletConfig The configuration that specifies the settings for a PrefetchingConnector.
+     * @param connector The {@link BulletConnector} to read from.
+     */
+    public PrefetchingConnector(BulletConfig bulletConfig, BulletConnector connector) {
+        super(bulletConfig);
+        Objects.requireNonNull(connector);
+        this.connector = connector;
+        bufferSize = config.getAs(BulletDSLConfig.CONNECTOR_PREFETCH_BUFFER_SIZE, Number.class).intValue();
+        timeout = config.getAs(BulletDSLConfig.CONNECTOR_READ_TIMEOUT_MS, Number.class).longValue();
+    }
+
+    @Override
+    public void initialize() throws BulletDSLException {
+        deferred = connector.deferCommits();
+        connector.initialize();
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        failure = null;
+        running = true;
+        thread = new Thread(this::prefetch, "bullet-dsl-prefetch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Reads the next buffered batch. Waits for at most the read timeout if none is buffered.
+     *
+     * @return The next batch or an empty list if none was read in time.
+     * @throws BulletDSLException if the wrapped connector failed to read or to commit the batch.
+     */
+    @Override
+    public List<Object> read() throws BulletDSLException {
+        List<Object> batch;
+        try {
+            batch = buffer.poll(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        }
+        if (batch != null) {
+            if (deferred) {
+                connector.delivered();
+            }
+            return batch;
+        }
+        Exception cause = failure;
+        if (cause instanceof BulletDSLException) {
+            throw (BulletDSLException) cause;
+        } else if (cause != null) {
+            throw new BulletDSLException("Could not read from connector.", cause);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Stops the background thread, waits for it to finish its current read and closes the wrapped connector. Buffered
+     * batches that have not been read are dropped without being committed if the commits are deferred.
+     *
+     * @throws Exception if the wrapped connector could not be closed.
+     */
+    @Override
+    public void close() throws Exception {
+        shutdownReadExecutor();
+        running = false;
+        if (thread != null) {
+            thread.join();
+            thread = null;
+        }
+        connector.close();
+    }
+
+    private void prefetch() {
+        try {
+            while (running) {
+                List<Object> batch = connector.read();
+                if (batch != null && !batch.isEmpty()) {
+                    offer(batch);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Stopping prefetching after the connector failed: ", e);
+            failure = e;
+            running = false;
+        }
+    }
+
+    private void offer(List<Object> batch) throws InterruptedException {
+        // Waits for the caller to catch up unless closed
+        boolean offered;
+        do {
+            offered = buffer.offer(batch, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } while (!offered && running);
+    }
+}
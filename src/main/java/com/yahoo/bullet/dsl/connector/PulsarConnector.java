@@ -21,17 +21,39 @@ import org.apache.pulsar.client.api.Schema;
 
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 /**
  * A {@link BulletConnector} that reads and deserializes messages from Pulsar.
+ * <br><br>
+ * A read receives messages until none arrives within the read timeout or the batch limits on the number of messages,
+ * their size or the time spent are reached. The messages are either acknowledged one at a time or, if cumulative
+ * acknowledgement is enabled, with one cumulative acknowledgement per topic after the batch is received.
+ * <br><br>
+ * If commits are deferred by a connector that reads ahead of its caller, the messages of a read are only acknowledged
+ * once they were delivered to the caller. Messages that were never delivered are not acknowledged, so Pulsar delivers
+ * them again.
+ * <br><br>
+ * {@link #readAsync()} hands the messages it received to its caller without acknowledging them if the read was cancelled
+ * or failed, and returns them first on the next asynchronous read. It cannot be used if commits are deferred.
+ * <br><br>
+ * If metadata is enabled, the messages are read as {@link ConnectorRecord} instances whose metadata is referenced with
+ * {@link #METADATA_NAMESPACE}. The keys are topic, key, messageId, publishTime, eventTime, sequenceId and properties.
  */
 @Slf4j
 public class PulsarConnector extends BulletConnector {
 
+    public static final String METADATA_NAMESPACE = ConnectorRecord.METADATA_PREFIX + "pulsar";
+
     private static final long serialVersionUID = 2958805692867790602L;
 
     // Exposed for tests
@@ -41,8 +63,22 @@ public class PulsarConnector extends BulletConnector {
     @Setter(AccessLevel.PACKAGE)
     private transient Consumer<Object> consumer;
 
+    // Runs the asynchronous reads once a message arrives instead of the thread of the client that received it
+    @Setter(AccessLevel.PACKAGE)
+    private transient Executor executor;
+
     private boolean asyncCommit;
     private int timeout;
+    private int maxMessages;
+    private long maxBytes;
+    private long batchTimeout;
+    private boolean cumulativeAck;
+    private boolean metadata;
+
+    // The messages of the reads not delivered yet if commits are deferred
+    private transient Queue<List<Message<Object>>> undelivered;
+    // The messages received by asynchronous reads that were not handed over, which the next one returns first
+    private transient Queue<Message<Object>> abandoned;
 
     /**
      * Constructs a PulsarConnector from a given configuration.
@@ -54,6 +90,11 @@ public class PulsarConnector extends BulletConnector {
         super(bulletConfig);
         asyncCommit = config.getAs(BulletDSLConfig.CONNECTOR_ASYNC_COMMIT_ENABLE, Boolean.class);
         timeout = config.getAs(BulletDSLConfig.CONNECTOR_READ_TIMEOUT_MS, Number.class).intValue();
+        maxMessages = config.getAs(BulletDSLConfig.CONNECTOR_PULSAR_BATCH_MAX_MESSAGES, Number.class).intValue();
+        maxBytes = config.getAs(BulletDSLConfig.CONNECTOR_PULSAR_BATCH_MAX_BYTES, Number.class).longValue();
+        batchTimeout = config.getAs(BulletDSLConfig.CONNECTOR_PULSAR_BATCH_TIMEOUT_MS, Number.class).longValue();
+        cumulativeAck = config.getAs(BulletDSLConfig.CONNECTOR_PULSAR_ACK_CUMULATIVE_ENABLE, Boolean.class);
+        metadata = config.getAs(BulletDSLConfig.CONNECTOR_METADATA_ENABLE, Boolean.class);
     }
 
     @Override
@@ -95,23 +136,128 @@ public class PulsarConnector extends BulletConnector {
     @Override
     public List<Object> read() throws BulletDSLException {
         List<Object> objects = new ArrayList<>();
+        List<Message<Object>> messages = undelivered != null ? new ArrayList<>() : null;
+        // The last message of each topic, which acknowledges the ones before it when cumulative
+        Map<String, Message<Object>> lastMessages = cumulativeAck ? new HashMap<>() : null;
+        long deadline = batchTimeout > 0 ? now() + batchTimeout : Long.MAX_VALUE;
+        long bytes = 0L;
         Message<Object> message;
-        while ((message = getMessage()) != null) {
-            objects.add(message.getValue());
-            acknowledge(message);
+        while ((message = getMessage(deadline)) != null) {
+            objects.add(toObject(message));
+            if (messages != null) {
+                messages.add(message);
+            } else if (cumulativeAck) {
+                lastMessages.put(message.getTopicName(), message);
+            } else {
+                acknowledge(message);
+            }
+            if (maxBytes > 0) {
+                bytes += message.getData().length;
+            }
+            if (objects.size() == maxMessages || (maxBytes > 0 && bytes >= maxBytes)) {
+                break;
+            }
+        }
+        if (messages != null) {
+            if (!messages.isEmpty()) {
+                undelivered.add(messages);
+            }
+        } else if (cumulativeAck) {
+            for (Message<Object> last : lastMessages.values()) {
+                acknowledgeCumulative(last);
+            }
         }
         return objects;
     }
 
+    /**
+     * Reads messages without blocking. The returned future completes once a message arrives, with that message and the
+     * messages already received after it, within the batch limits on the number of messages and their size. The
+     * messages are acknowledged asynchronously. If the future is completed or cancelled by the caller before the
+     * messages are handed over, or they could not all be read, the messages received are returned first by the next
+     * call instead. Not supported if commits are deferred.
+     *
+     * @return A {@link CompletableFuture} of a non-empty list of deserialized objects.
+     */
+    @Override
+    public CompletableFuture<List<Object>> readAsync() {
+        CompletableFuture<List<Object>> result = new CompletableFuture<>();
+        if (undelivered != null) {
+            result.completeExceptionally(new BulletDSLException("Cannot read asynchronously if commits are deferred."));
+            return result;
+        }
+        Message<Object> first = getAbandoned().poll();
+        CompletableFuture<Message<Object>> received = first != null ? CompletableFuture.completedFuture(first) : consumer.receiveAsync();
+        received.whenCompleteAsync((message, throwable) -> {
+            if (throwable != null) {
+                result.completeExceptionally(new BulletDSLException("Could not read from consumer.", throwable));
+                return;
+            }
+            List<Message<Object>> messages = new ArrayList<>();
+            try {
+                // Does not take more messages if the caller no longer waits for them
+                if (result.isDone()) {
+                    messages.add(message);
+                } else {
+                    drain(message, messages);
+                }
+                List<Object> objects = new ArrayList<>(messages.size());
+                messages.forEach(drained -> objects.add(toObject(drained)));
+                if (result.complete(objects)) {
+                    acknowledgeAsync(messages);
+                    return;
+                }
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+            getAbandoned().addAll(messages);
+        }, executor != null ? executor : ForkJoinPool.commonPool());
+        return result;
+    }
+
+    @Override
+    protected boolean deferCommits() {
+        undelivered = new ConcurrentLinkedQueue<>();
+        return true;
+    }
+
+    @Override
+    protected void delivered() throws BulletDSLException {
+        List<Message<Object>> messages = undelivered.remove();
+        if (!cumulativeAck) {
+            for (Message<Object> message : messages) {
+                acknowledge(message);
+            }
+            return;
+        }
+        Map<String, Message<Object>> lastMessages = new HashMap<>();
+        messages.forEach(message -> lastMessages.put(message.getTopicName(), message));
+        for (Message<Object> last : lastMessages.values()) {
+            acknowledgeCumulative(last);
+        }
+    }
+
     @Override
     public void close() {
         consumer.closeAsync();
         client.closeAsync();
     }
 
-    private Message<Object> getMessage() throws BulletDSLException {
+    private Object toObject(Message<Object> message) {
+        return metadata ? new PulsarRecord(message) : message.getValue();
+    }
+
+    private Message<Object> getMessage(long deadline) throws BulletDSLException {
+        int wait = timeout;
+        if (deadline != Long.MAX_VALUE) {
+            long remaining = deadline - now();
+            if (remaining <= 0) {
+                return null;
+            }
+            wait = (int) Math.min(wait, remaining);
+        }
         try {
-            return consumer.receive(timeout, TimeUnit.MILLISECONDS);
+            return consumer.receive(wait, TimeUnit.MILLISECONDS);
         } catch (PulsarClientException e) {
             throw new BulletDSLException("Could not read from consumer.", e);
         }
@@ -129,6 +275,59 @@ public class PulsarConnector extends BulletConnector {
         }
     }
 
+    private void drain(Message<Object> first, List<Message<Object>> messages) throws BulletDSLException {
+        long bytes = 0L;
+        Message<Object> message = first;
+        while (message != null) {
+            messages.add(message);
+            if (maxBytes > 0) {
+                bytes += message.getData().length;
+            }
+            if (messages.size() == maxMessages || (maxBytes > 0 && bytes >= maxBytes)) {
+                break;
+            }
+            message = getAbandoned().poll();
+            if (message != null) {
+                continue;
+            }
+            // Does not wait for messages that have not been received yet
+            try {
+                message = consumer.receive(0, TimeUnit.MILLISECONDS);
+            } catch (PulsarClientException e) {
+                throw new BulletDSLException("Could not read from consumer.", e);
+            }
+        }
+    }
+
+    private synchronized Queue<Message<Object>> getAbandoned() {
+        if (abandoned == null) {
+            abandoned = new ConcurrentLinkedQueue<>();
+        }
+        return abandoned;
+    }
+
+    private void acknowledgeAsync(List<Message<Object>> messages) {
+        if (!cumulativeAck) {
+            messages.forEach(consumer::acknowledgeAsync);
+            return;
+        }
+        Map<String, Message<Object>> lastMessages = new HashMap<>();
+        messages.forEach(message -> lastMessages.put(message.getTopicName(), message));
+        lastMessages.values().forEach(consumer::acknowledgeCumulativeAsync);
+    }
+
+    private void acknowledgeCumulative(Message<Object> message) throws BulletDSLException {
+        if (asyncCommit) {
+            consumer.acknowledgeCumulativeAsync(message);
+        } else {
+            try {
+                consumer.acknowledgeCumulative(message);
+            } catch (PulsarClientException e) {
+                throw new BulletDSLException("Could not acknowledge message.", e);
+            }
+        }
+    }
+
     private Schema getSchema(String schemaType, String schemaClassName) throws BulletDSLException {
         try {
             Class schemaClass = schemaClassName != null ? Class.forName(schemaClassName) : null;
@@ -152,4 +351,54 @@ public class PulsarConnector extends BulletConnector {
         }
         throw new BulletDSLException("Pulsar schema type must be one of: " + BulletDSLConfig.PULSAR_SCHEMA_TYPES);
     }
+
+    /**
+     * A {@link ConnectorRecord} that reads the metadata from its {@link Message}.
+     */
+    private static class PulsarRecord extends ConnectorRecord {
+        private final Message<Object> message;
+
+        private PulsarRecord(Message<Object> message) {
+            super(message.getValue());
+            this.message = message;
+        }
+
+        @Override
+        protected String getNamespace() {
+            return METADATA_NAMESPACE;
+        }
+
+        @Override
+        protected Object getMetadata(String key) {
+            switch (key) {
+                case "topic":
+                    return message.getTopicName();
+                case "key":
+                    return message.hasKey() ? message.getKey() : null;
+                case "messageId":
+                    return message.getMessageId().toString();
+                case "publishTime":
+                    return message.getPublishTime();
+                case "eventTime":
+                    // Zero if the event time was not set
+                    long eventTime = message.getEventTime();
+                    return eventTime != 0L ? eventTime : null;
+                case "sequenceId":
+                    return message.getSequenceId();
+                case "properties":
+                    return new HashMap<>(message.getProperties());
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Gets the current time. Exposed for testing.
+     *
+     * @return The current time in milliseconds.
+     */
+    long now() {
+        return System.currentTimeMillis();
+    }
 }
@@ -0,0 +1,326 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.converter;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.dsl.BulletDSLException;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.util.ByteBufferInputStream;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * AvroBinaryBulletRecordConverter converts Avro binary encoded records, given as a byte[] or a {@link ByteBuffer},
+ * directly into BulletRecords without deserializing them into a {@link GenericRecord} first. It is meant to be used
+ * with the {@link com.yahoo.bullet.dsl.deserializer.IdentityDeserializer} in place of an
+ * {@link com.yahoo.bullet.dsl.deserializer.AvroDeserializer} and an {@link AvroBulletRecordConverter}.
+ * <br><br>
+ * The records are decoded with the Avro schema from {@link BulletDSLConfig#RECORD_CONVERTER_AVRO_SCHEMA_FILE} or
+ * {@link BulletDSLConfig#RECORD_CONVERTER_AVRO_CLASS_NAME}. If a Bullet DSL schema is provided, only the values it
+ * references are materialized and everything else is skipped over in the encoded bytes. Strings are always decoded
+ * as {@link String}, enums as their symbols, bytes and fixed as byte[] and Avro records as maps. Since the bytes
+ * must be decoded to read any field, records are always converted eagerly even if lazy records are enabled.
+ * <br><br>
+ * If a schema is not specified, every top-level field is decoded and set without any regard to type-safety, except
+ * for bytes and fixed fields, which Bullet has no type for. The types of the fields are taken from the Avro schema
+ * where possible instead of being inferred from each value.
+ */
+public class AvroBinaryBulletRecordConverter extends BulletRecordConverter {
+
+    private static final long serialVersionUID = 4216389057126487709L;
+    // Decoders only buffer input and are reused by each thread converting with any instance. They are pointed at an
+    // empty input after each use so that they do not keep the last record reachable.
+    private static final ThreadLocal<BinaryDecoder> DECODERS = new ThreadLocal<>();
+    private static final byte[] NO_INPUT = new byte[0];
+
+    protected Schema avroSchema;
+    private Type[] avroTypes;
+
+    /**
+     * Constructs an AvroBinaryBulletRecordConverter from a given configuration.
+     *
+     * @param bulletConfig The configuration that specifies the settings for an AvroBinaryBulletRecordConverter.
+     * @throws BulletDSLException if there is an error creating the converter.
+     */
+    public AvroBinaryBulletRecordConverter(BulletConfig bulletConfig) throws BulletDSLException {
+        super(bulletConfig);
+        build();
+    }
+
+    @Override
+    protected BulletRecordConverter build() throws BulletDSLException {
+        BulletRecordConverter converter = super.build();
+        String schemaFile = config.getAs(BulletDSLConfig.RECORD_CONVERTER_AVRO_SCHEMA_FILE, String.class);
+        String className = config.getAs(BulletDSLConfig.RECORD_CONVERTER_AVRO_CLASS_NAME, String.class);
+        avroSchema = schemaFile != null ? new Schema.Parser().parse(schemaFile) : getSchemaFromClassName(className);
+        avroTypes = AvroBulletRecordConverter.toFieldTypes(avroSchema);
+        return converter;
+    }
+
+    @Override
+    public BulletRecord convert(Object object, BulletRecord record) throws BulletDSLException {
+        return convert(object, record, getProjection());
+    }
+
+    @Override
+    BulletRecord convert(Object object, BulletRecord record, Projection current) throws BulletDSLException {
+        BinaryDecoder decoder = getDecoder(object);
+        try {
+            if (schema != null) {
+                ExtractionPlan plan = current.getPlan();
+                return setFields(plan, decode(plan, decoder), record, current.getRequired());
+            }
+            // No Bullet DSL schema
+            Set<String> required = current.getRequired();
+            for (Schema.Field field : avroSchema.getFields()) {
+                if (!isRequired(required, field.name())) {
+                    GenericDatumReader.skip(field.schema(), decoder);
+                    continue;
+                }
+                Object value = readValue(field.schema(), decoder);
+                // Bullet has no type for bytes
+                if (value != null && !(value instanceof byte[])) {
+                    setValue(record, field.name(), avroTypes[field.pos()], (Serializable) value);
+                }
+            }
+            return record;
+        } catch (IOException e) {
+            throw new BulletDSLException("Failed to decode avro record.", e);
+        } finally {
+            clear(decoder);
+        }
+    }
+
+    @Override
+    protected boolean accepts(Object object) throws BulletDSLException {
+        // Decodes only the references of the filter before decoding the record again to convert it
+        BinaryDecoder decoder = getDecoder(object);
+        try {
+            return getFilter().test(decode(getFilter().getPlan(), decoder), 0);
+        } catch (IOException e) {
+            throw new BulletDSLException("Failed to decode avro record.", e);
+        } finally {
+            clear(decoder);
+        }
+    }
+
+    @Override
+    protected Object getLazySource(Object object) {
+        return null;
+    }
+
+    /**
+     * Decodes the top-level field with the given name from an encoded record, skipping over the fields before it.
+     * Conversion does not use this since it reads all the fields it needs in a single pass over the record.
+     *
+     * @param object The encoded record as a byte[] or a {@link ByteBuffer}.
+     * @param base The name of the top-level field.
+     * @return The decoded value of the field or null if there is no such field.
+     * @throws UncheckedIOException if the record could not be decoded.
+     * @throws IllegalArgumentException if the record is not a byte[] or a {@link ByteBuffer}.
+     */
+    @Override
+    protected Object get(Object object, String base) {
+        BinaryDecoder decoder;
+        try {
+            decoder = getDecoder(object);
+        } catch (BulletDSLException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        try {
+            for (Schema.Field field : avroSchema.getFields()) {
+                if (field.name().equals(base)) {
+                    return readValue(field.schema(), decoder);
+                }
+                GenericDatumReader.skip(field.schema(), decoder);
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode avro record.", e);
+        } finally {
+            clear(decoder);
+        }
+    }
+
+    private Object[] decode(ExtractionPlan plan, Decoder decoder) throws IOException {
+        Object[] values = new Object[plan.getValueCount()];
+        for (Schema.Field field : avroSchema.getFields()) {
+            ExtractionPlan.Node node = plan.getRoot(field.name());
+            if (node == null) {
+                GenericDatumReader.skip(field.schema(), decoder);
+            } else {
+                read(field.schema(), node, decoder, values);
+            }
+        }
+        return values;
+    }
+
+    private void read(Schema fieldSchema, ExtractionPlan.Node node, Decoder decoder, Object[] values) throws IOException {
+        if (node.hasFields()) {
+            ExtractionPlan.fill(this, node, readValue(fieldSchema, decoder), values);
+            return;
+        }
+        switch (fieldSchema.getType()) {
+            case UNION:
+                read(fieldSchema.getTypes().get(decoder.readIndex()), node, decoder, values);
+                return;
+            case RECORD:
+                for (Schema.Field field : fieldSchema.getFields()) {
+                    ExtractionPlan.Node child = node.getChild(field.name());
+                    if (child == null) {
+                        GenericDatumReader.skip(field.schema(), decoder);
+                    } else {
+                        read(field.schema(), child, decoder, values);
+                    }
+                }
+                return;
+            case MAP:
+                for (long n = decoder.readMapStart(); n != 0; n = decoder.mapNext()) {
+                    for (long i = 0; i < n; i++) {
+                        ExtractionPlan.Node child = node.getChild(decoder.readString());
+                        if (child == null) {
+                            GenericDatumReader.skip(fieldSchema.getValueType(), decoder);
+                        } else {
+                            read(fieldSchema.getValueType(), child, decoder, values);
+                        }
+                    }
+                }
+                return;
+            case ARRAY:
+                int size = 0;
+                for (long n = decoder.readArrayStart(); n != 0; n = decoder.arrayNext()) {
+                    for (long i = 0; i < n; i++, size++) {
+                        ExtractionPlan.Node child = node.getChild(size);
+                        if (child == null) {
+                            GenericDatumReader.skip(fieldSchema.getElementType(), decoder);
+                        } else {
+                            read(fieldSchema.getElementType(), child, decoder, values);
+                        }
+                    }
+                }
+                node.failMissingIndices(size, values);
+                return;
+            default:
+                // Nothing can be referenced inside other types
+                GenericDatumReader.skip(fieldSchema, decoder);
+        }
+    }
+
+    /**
+     * Decodes a value of the given {@link Schema}.
+     *
+     * @param fieldSchema The {@link Schema} of the value.
+     * @param decoder The {@link Decoder} positioned at the value.
+     * @return The decoded value.
+     * @throws IOException if the value could not be decoded.
+     */
+    protected Object readValue(Schema fieldSchema, Decoder decoder) throws IOException {
+        switch (fieldSchema.getType()) {
+            case NULL:
+                decoder.readNull();
+                return null;
+            case BOOLEAN:
+                return decoder.readBoolean();
+            case INT:
+                return decoder.readInt();
+            case LONG:
+                return decoder.readLong();
+            case FLOAT:
+                return decoder.readFloat();
+            case DOUBLE:
+                return decoder.readDouble();
+            case STRING:
+                return decoder.readString();
+            case ENUM:
+                return fieldSchema.getEnumSymbols().get(decoder.readEnum());
+            case BYTES:
+                ByteBuffer buffer = decoder.readBytes(null);
+                byte[] array = new byte[buffer.remaining()];
+                buffer.get(array);
+                return array;
+            case FIXED:
+                byte[] bytes = new byte[fieldSchema.getFixedSize()];
+                decoder.readFixed(bytes);
+                return bytes;
+            case UNION:
+                return readValue(fieldSchema.getTypes().get(decoder.readIndex()), decoder);
+            case RECORD:
+                HashMap<String, Object> record = new HashMap<>();
+                for (Schema.Field field : fieldSchema.getFields()) {
+                    record.put(field.name(), readValue(field.schema(), decoder));
+                }
+                return record;
+            case MAP:
+                HashMap<String, Object> map = new HashMap<>();
+                for (long n = decoder.readMapStart(); n != 0; n = decoder.mapNext()) {
+                    for (long i = 0; i < n; i++) {
+                        map.put(decoder.readString(), readValue(fieldSchema.getValueType(), decoder));
+                    }
+                }
+                return map;
+            case ARRAY:
+                ArrayList<Object> list = new ArrayList<>();
+                for (long n = decoder.readArrayStart(); n != 0; n = decoder.arrayNext()) {
+                    for (long i = 0; i < n; i++) {
+                        list.add(readValue(fieldSchema.getElementType(), decoder));
+                    }
+                }
+                return list;
+        }
+        throw new IOException("Unknown avro type: " + fieldSchema.getType());
+    }
+
+    private static BinaryDecoder getDecoder(Object object) throws BulletDSLException {
+        BinaryDecoder decoder = DECODERS.get();
+        if (object instanceof ByteBuffer) {
+            ByteBuffer buffer = (ByteBuffer) object;
+            if (buffer.hasArray()) {
+                decoder = DecoderFactory.get().binaryDecoder(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), decoder);
+            } else {
+                List<ByteBuffer> buffers = Collections.singletonList(buffer.duplicate());
+                decoder = DecoderFactory.get().binaryDecoder(new ByteBufferInputStream(buffers), decoder);
+            }
+        } else if (object instanceof byte[]) {
+            byte[] bytes = (byte[]) object;
+            decoder = DecoderFactory.get().binaryDecoder(bytes, 0, bytes.length, decoder);
+        } else {
+            throw new BulletDSLException("Avro binary records must be a byte[] or a ByteBuffer: " + (object == null ? null : object.getClass()));
+        }
+        DECODERS.set(decoder);
+        return decoder;
+    }
+
+    private static void clear(BinaryDecoder decoder) {
+        DecoderFactory.get().binaryDecoder(NO_INPUT, 0, 0, decoder);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Schema getSchemaFromClassName(String className) throws BulletDSLException {
+        try {
+            Class<? extends GenericRecord> cls = (Class<? extends GenericRecord>) Class.forName(className);
+            GenericRecord avro = cls.getConstructor().newInstance();
+            return avro.getSchema();
+        } catch (Exception e) {
+            throw new BulletDSLException("Could not get avro schema from class name: " + className, e);
+        }
+    }
+}
@@ -10,23 +10,30 @@ import com.yahoo.bullet.dsl.BulletDSLConfig;
 import com.yahoo.bullet.dsl.BulletDSLException;
 import com.yahoo.bullet.dsl.schema.BulletRecordField;
 import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.typesystem.TypedObject;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericContainer;
 import org.apache.avro.generic.GenericRecord;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * AvroBulletRecordConverter converts an Avro record into a BulletRecord. The Avro record must use {@link String} as its
  * string type.
  * <br><br>
- * If a schema is not specified, avro records are effectively flattened without any regard to type-safety.
+ * If a schema is not specified, avro records are effectively flattened without any regard to type-safety. The types of
+ * the fields are taken from the Avro schema of the records where possible instead of being inferred from each value.
  * <br><br>
  * Note, this class is not related to {@link com.yahoo.bullet.record.avro.TypedAvroBulletRecord} or
  * {@link com.yahoo.bullet.record.avro.UntypedAvroBulletRecord}.
@@ -37,6 +44,22 @@ public class AvroBulletRecordConverter extends BulletRecordConverter {
     private static final long serialVersionUID = -5066600942303615002L;
     protected boolean runStringFixer;
 
+    private transient volatile Map<Schema, Type[]> fieldTypes;
+
+    /**
+     * The position of a field in a particular Avro {@link Schema}. Cached in {@link ExtractionPlan.Node} so that records
+     * sharing a schema are read by position instead of looking the field up by name.
+     */
+    private static class FieldPosition {
+        private final Schema schema;
+        private final int pos;
+
+        private FieldPosition(Schema schema, int pos) {
+            this.schema = schema;
+            this.pos = pos;
+        }
+    }
+
     /**
      * Constructs an AvroBulletRecordConverter without a schema.
      *
@@ -80,14 +103,18 @@ public class AvroBulletRecordConverter extends BulletRecordConverter {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public BulletRecord convert(Object object, BulletRecord record) throws BulletDSLException {
+        return convert(object, record, getProjection());
+    }
+
+    @Override
+    BulletRecord convert(Object object, BulletRecord record, Projection current) throws BulletDSLException {
         if (schema != null) {
-            return super.convert(object, record);
+            return convertFields(object, record, current);
         }
         // No Bullet DSL schema
         GenericRecord avro = (GenericRecord) object;
-        return convertGenericRecord(avro, avro.getSchema(), record);
+        return convertGenericRecord(avro, avro.getSchema(), record, current.getRequired());
     }
 
     /**
@@ -99,28 +126,138 @@ public class AvroBulletRecordConverter extends BulletRecordConverter {
      * @return The {@link BulletRecord} with the added fields.
      */
     protected BulletRecord convertGenericRecord(GenericRecord genericRecord, Schema schema, BulletRecord record) {
+        return convertGenericRecord(genericRecord, schema, record, getRequiredFields());
+    }
+
+    private BulletRecord convertGenericRecord(GenericRecord genericRecord, Schema schema, BulletRecord record, Set<String> required) {
+        Type[] types = getFieldTypes(schema);
         for (Schema.Field field : schema.getFields()) {
+            if (!isRequired(required, field.name())) {
+                continue;
+            }
             Object datum = genericRecord.get(field.pos());
             if (datum != null) {
                 Serializable value = runStringFixer ? fix(field.schema(), datum) : (Serializable) datum;
-                record.typedSet(field.name(), new TypedObject(value));
+                setValue(record, field.name(), types[field.pos()], value);
             }
         }
         return record;
     }
 
+    /**
+     * Gets the {@link Type} of the value of each field of the given Avro record {@link Schema}. Records usually share a
+     * handful of schemas, so the types are computed once per schema.
+     *
+     * @param schema The Avro record {@link Schema}.
+     * @return The types indexed by the position of the fields. A type is null if it cannot be known from the schema.
+     */
+    private Type[] getFieldTypes(Schema schema) {
+        Map<Schema, Type[]> cache = fieldTypes;
+        if (cache == null) {
+            cache = new ConcurrentHashMap<>();
+            fieldTypes = cache;
+        }
+        return cache.computeIfAbsent(schema, AvroBulletRecordConverter::toFieldTypes);
+    }
+
+    /**
+     * Computes the {@link Type} of the value of each field of the given Avro record {@link Schema}.
+     *
+     * @param schema The Avro record {@link Schema}.
+     * @return The types indexed by the position of the fields. A type is null if it cannot be known from the schema.
+     */
+    static Type[] toFieldTypes(Schema schema) {
+        List<Schema.Field> fields = schema.getFields();
+        Type[] types = new Type[fields.size()];
+        for (Schema.Field field : fields) {
+            types[field.pos()] = toType(field.schema());
+        }
+        return types;
+    }
+
+    /**
+     * Gets the {@link Type} of the values of the given Avro {@link Schema} if it is known from the schema alone. A union
+     * of null and another schema has the type of the other schema. Records, enums, bytes and other unions do not have a
+     * known type.
+     *
+     * @param schema The Avro {@link Schema}.
+     * @return The {@link Type} or null if it is not known.
+     */
+    static Type toType(Schema schema) {
+        if (schema.getType() != Schema.Type.UNION) {
+            return toValueType(schema);
+        }
+        List<Schema> branches = schema.getTypes();
+        if (branches.size() != 2) {
+            return null;
+        }
+        if (branches.get(0).getType() == Schema.Type.NULL) {
+            return toValueType(branches.get(1));
+        } else if (branches.get(1).getType() == Schema.Type.NULL) {
+            return toValueType(branches.get(0));
+        }
+        return null;
+    }
+
+    private static Type toValueType(Schema schema) {
+        switch (schema.getType()) {
+            case BOOLEAN:
+                return Type.BOOLEAN;
+            case INT:
+                return Type.INTEGER;
+            case LONG:
+                return Type.LONG;
+            case FLOAT:
+                return Type.FLOAT;
+            case DOUBLE:
+                return Type.DOUBLE;
+            case STRING:
+                return Type.STRING;
+            case MAP:
+                return getContainerType(Type.MAPS, toValueType(schema.getValueType()));
+            case ARRAY:
+                return getContainerType(Type.LISTS, toValueType(schema.getElementType()));
+        }
+        return null;
+    }
+
     @Override
-    @SuppressWarnings("unchecked")
     protected void setField(BulletRecordField field, Object value, BulletRecord record) {
+        if (field.getType() == null) {
+            setField(field, value, record, getRequiredFields());
+        } else {
+            super.setField(field, value, record);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void setField(BulletRecordField field, Object value, BulletRecord record, Set<String> required) {
         if (field.getType() == null) {
             if (value instanceof Map) {
-                flattenMap((Map<String, Serializable>) value, record);
+                flattenMap((Map<String, Serializable>) value, record, required);
             } else {
-                flattenRecord((GenericRecord) value, record);
+                flattenRecord((GenericRecord) value, record, required);
             }
         } else {
-            super.setField(field, value, record);
+            super.setField(field, value, record, required);
+        }
+    }
+
+    @Override
+    protected TypedObject getRecordEntry(Object value, String name) {
+        if (!(value instanceof GenericRecord)) {
+            return super.getRecordEntry(value, name);
         }
+        // Typed the same as flattenRecord
+        GenericRecord genericRecord = (GenericRecord) value;
+        Schema.Field field = genericRecord.getSchema().getField(name);
+        Serializable entry = field != null ? (Serializable) genericRecord.get(field.pos()) : null;
+        if (entry == null) {
+            return null;
+        }
+        Type type = getFieldTypes(genericRecord.getSchema())[field.pos()];
+        return type != null ? new TypedObject(type, entry) : new TypedObject(entry);
     }
 
     @Override
@@ -137,20 +274,35 @@ public class AvroBulletRecordConverter extends BulletRecordConverter {
         return super.getField(object, field);
     }
 
+    @Override
+    protected Object get(Object object, ExtractionPlan.Node node) {
+        return getRecordField((GenericRecord) object, node);
+    }
+
+    @Override
+    protected Object getField(Object object, ExtractionPlan.Node node) {
+        if (object instanceof GenericRecord) {
+            return getRecordField((GenericRecord) object, node);
+        }
+        return super.getField(object, node);
+    }
+
     /**
-     * Fixes data, if necessary, to ensure that the datum is {@link Serializable}.
+     * Fixes data, if necessary, to ensure that the datum is {@link Serializable}. The datum is never modified. Containers
+     * are only copied when they are not already {@link Serializable} with {@link String} keys or have entries to fix.
      *
      * @param fieldSchema The {@link Schema} of the datum.
      * @param datum The datum to fix.
      * @return The datum as a {@link Serializable}.
      */
+    @SuppressWarnings("unchecked")
     protected Serializable fix(Schema fieldSchema, Object datum) {
         if (datum == null) {
             return null;
         }
         switch (fieldSchema.getType()) {
             case STRING:
-                return datum.toString();
+                return datum instanceof String ? (String) datum : datum.toString();
             case UNION:
                 return fixUnion(fieldSchema.getTypes(), datum);
             case MAP:
@@ -164,39 +316,104 @@ public class AvroBulletRecordConverter extends BulletRecordConverter {
     }
 
     /**
-     * Fixes data, if necessary, to ensure that the datum is {@link Serializable}.
+     * Fixes data, if necessary, to ensure that the datum is {@link Serializable}. The datum is fixed with the branch of
+     * the union that it actually belongs to. If that cannot be resolved, e.g. for a record with a differently named
+     * schema, the first non null branch that works is used.
      *
      * @param types The list of {@link Schema} of the datum.
      * @param datum The datum to fix.
-     * @return The datum as a {@link Serializable}.
+     * @return The datum as a {@link Serializable} or null if no branch of the union works.
      */
     protected Serializable fixUnion(List<Schema> types, Object datum) {
-        Serializable fixed = null;
+        String name = getSchemaName(datum);
+        for (Schema schema : types) {
+            if (schema.getFullName().equals(name)) {
+                return fix(schema, datum);
+            }
+        }
+        // Falls back to trying each branch
         for (Schema schema : types) {
-            Schema.Type type = schema.getType();
-            if (type == Schema.Type.NULL) {
+            if (schema.getType() == Schema.Type.NULL) {
                 continue;
             }
-            // Use the first non null type that works
             try {
-                fixed = fix(schema, datum);
+                return fix(schema, datum);
             } catch (Exception e) {
                 log.error("Caught exception while processing Avro union: ", e);
             }
         }
-        return fixed;
+        return null;
+    }
+
+    /**
+     * Gets the name of the branch of a union that a datum belongs to, like {@link org.apache.avro.generic.GenericData}
+     * resolves unions, or null if it cannot be told from the datum.
+     */
+    private static String getSchemaName(Object datum) {
+        if (datum instanceof GenericContainer) {
+            return ((GenericContainer) datum).getSchema().getFullName();
+        }
+        if (datum instanceof CharSequence) {
+            return Schema.Type.STRING.getName();
+        }
+        if (datum instanceof Integer) {
+            return Schema.Type.INT.getName();
+        }
+        if (datum instanceof Long) {
+            return Schema.Type.LONG.getName();
+        }
+        if (datum instanceof Float) {
+            return Schema.Type.FLOAT.getName();
+        }
+        if (datum instanceof Double) {
+            return Schema.Type.DOUBLE.getName();
+        }
+        if (datum instanceof Boolean) {
+            return Schema.Type.BOOLEAN.getName();
+        }
+        if (datum instanceof ByteBuffer) {
+            return Schema.Type.BYTES.getName();
+        }
+        if (datum instanceof Map) {
+            return Schema.Type.MAP.getName();
+        }
+        if (datum instanceof Collection) {
+            return Schema.Type.ARRAY.getName();
+        }
+        return null;
     }
 
     /**
-     * Fixes a map, if necessary, to ensure that all fields and values in the map are {@link Serializable}.
+     * Fixes a map, if necessary, to ensure that all fields and values in the map are {@link Serializable}. A
+     * {@link Serializable} map with {@link String} keys is returned as is unless a value needs to be fixed. Otherwise,
+     * the map is copied.
      *
      * @param valueType The {@link Schema} of the values in the map.
      * @param value The {@link Map} to fix.
      * @return A map with all fields and values {@link Serializable}.
      */
+    @SuppressWarnings("unchecked")
     protected Serializable fixMap(Schema valueType, Map<CharSequence, Object> value) {
+        boolean fixValues = needsFix(valueType);
+        if (hasStringKeys(value) && value instanceof Serializable) {
+            if (!fixValues) {
+                return (Serializable) value;
+            }
+            // The map belongs to the caller, so it is only copied if a value had to be fixed
+            HashMap<CharSequence, Object> copy = null;
+            for (Map.Entry<CharSequence, Object> entry : value.entrySet()) {
+                Object fixed = fix(valueType, entry.getValue());
+                if (fixed != entry.getValue()) {
+                    if (copy == null) {
+                        copy = new HashMap<>(value);
+                    }
+                    copy.put(entry.getKey(), fixed);
+                }
+            }
+            return copy != null ? copy : (Serializable) value;
+        }
         HashMap<String, Object> map = new HashMap<>();
-        value.forEach((k, v) -> map.put(k == null ? null : k.toString(), fix(valueType, v)));
+        value.forEach((k, v) -> map.put(k == null ? null : k.toString(), fixValues ? fix(valueType, v) : v));
         return map;
     }
 
@@ -214,24 +431,89 @@ public class AvroBulletRecordConverter extends BulletRecordConverter {
     }
 
     /**
-     * Fixes an array, if necessary, to ensure that all elements of the array are {@link Serializable}.
+     * Fixes an array, if necessary, to ensure that all elements of the array are {@link Serializable}. A
+     * {@link Serializable} list is returned as is unless an element needs to be fixed. Otherwise, the list is copied.
      *
      * @param elementType The {@link Schema} of the elements in the array.
      * @param value The {@link List} representation of the array to fix.
      * @return A List with all elements {@link Serializable}.
      */
     protected Serializable fixArray(Schema elementType, List<Object> value) {
-        ArrayList<Object> list = new ArrayList<>();
-        value.forEach(e -> list.add(fix(elementType, e)));
+        boolean fixElements = needsFix(elementType);
+        if (value instanceof Serializable) {
+            if (!fixElements) {
+                return (Serializable) value;
+            }
+            // The list belongs to the caller, so it is only copied if an element had to be fixed
+            ArrayList<Object> copy = null;
+            int i = 0;
+            for (Object element : value) {
+                Object fixed = fix(elementType, element);
+                if (fixed != element) {
+                    if (copy == null) {
+                        copy = new ArrayList<>(value);
+                    }
+                    copy.set(i, fixed);
+                }
+                i++;
+            }
+            return copy != null ? copy : (Serializable) value;
+        }
+        ArrayList<Object> list = new ArrayList<>(value.size());
+        value.forEach(e -> list.add(fixElements ? fix(elementType, e) : e));
         return list;
     }
 
-    private void flattenRecord(GenericRecord genericRecord, BulletRecord record) {
-        for (Schema.Field field : genericRecord.getSchema().getFields()) {
-            String key = field.name();
-            Serializable value = (Serializable) genericRecord.get(field.pos());
+    /**
+     * Checks whether values of the given {@link Schema} may be changed by {@link #fix(Schema, Object)}. Only primitives,
+     * enums and bytes, or unions of them, can be left as is.
+     *
+     * @param schema The {@link Schema} to check.
+     * @return True if values of the schema may need to be fixed.
+     */
+    protected static boolean needsFix(Schema schema) {
+        switch (schema.getType()) {
+            case STRING:
+            case MAP:
+            case RECORD:
+            case ARRAY:
+                return true;
+            case UNION:
+                return schema.getTypes().stream().anyMatch(AvroBulletRecordConverter::needsFix);
+        }
+        return false;
+    }
+
+    private static boolean hasStringKeys(Map<CharSequence, Object> map) {
+        for (CharSequence key : map.keySet()) {
+            if (key != null && !(key instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object getRecordField(GenericRecord genericRecord, ExtractionPlan.Node node) {
+        Schema recordSchema = genericRecord.getSchema();
+        Object state = node.getState();
+        if (state instanceof FieldPosition && ((FieldPosition) state).schema == recordSchema) {
+            return genericRecord.get(((FieldPosition) state).pos);
+        }
+        Schema.Field field = recordSchema.getField(node.getKey());
+        if (field == null) {
+            return genericRecord.get(node.getKey());
+        }
+        node.setState(new FieldPosition(recordSchema, field.pos()));
+        return genericRecord.get(field.pos());
+    }
+
+    private void flattenRecord(GenericRecord genericRecord, BulletRecord record, Set<String> required) {
+        Schema schema = genericRecord.getSchema();
+        Type[] types = getFieldTypes(schema);
+        for (Schema.Field field : schema.getFields()) {
+            Serializable value = isRequired(required, field.name()) ? (Serializable) genericRecord.get(field.pos()) : null;
             if (value != null) {
-                record.typedSet(key, new TypedObject(value));
+                setValue(record, field.name(), types[field.pos()], value);
             }
         }
     }
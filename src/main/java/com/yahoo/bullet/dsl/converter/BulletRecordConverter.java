@@ -5,41 +5,89 @@
  */
 package com.yahoo.bullet.dsl.converter;
 
-import com.google.gson.Gson;
-import com.google.gson.stream.JsonReader;
 import com.yahoo.bullet.common.BulletConfig;
-import com.yahoo.bullet.common.BulletError;
 import com.yahoo.bullet.dsl.BulletDSLConfig;
 import com.yahoo.bullet.dsl.BulletDSLException;
+import com.yahoo.bullet.dsl.connector.ConnectorRecord;
 import com.yahoo.bullet.dsl.schema.BulletRecordField;
 import com.yahoo.bullet.dsl.schema.BulletRecordSchema;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.record.BulletRecordProvider;
+import com.yahoo.bullet.record.UntypedBulletRecord;
 import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.typesystem.TypedObject;
+import lombok.AccessLevel;
+import lombok.Getter;
 
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * BulletRecordConverter is used to convert objects into BulletRecords. Converters should extend this class and expect
  * configuration though {@link BulletDSLConfig}. If a {@link BulletRecordSchema} is provided, and type-checking is
  * enabled, the converter will check that values match their types in the schema and throw if they do not. If a schema is
  * not provided, the level of type-checking is left to the implementation.
+ * <br><br>
+ * References in the schema that start with {@link ConnectorRecord#METADATA_PREFIX}, e.g. <code>$kafka.offset</code>,
+ * are the metadata of the messages read by a connector with metadata enabled. They are not extracted from the object but
+ * read from the {@link ConnectorRecord} by {@link #convert(Object)} and {@link #convertAll(List)}, and only if the
+ * schema has such references.
+ * <br><br>
+ * If a record pool is configured, records given back with {@link #release(BulletRecord)} are emptied and reused by
+ * {@link #convert(Object)} and {@link #convertAll(List)} instead of creating new records.
+ * <br><br>
+ * Values whose {@link Type} is known, either from the schema or from the source schema of the object, are set without
+ * inferring their type. If type checking is disabled and the record is an {@link UntypedBulletRecord}, which does not
+ * store types, they are also set without wrapping them in a {@link TypedObject}.
+ * <br><br>
+ * If lazy records are enabled and a schema is provided, {@link #convert(Object)} and {@link #convertAll(List)} return a
+ * {@link LazyBulletRecord} that wraps the object and converts a field only when it is first read. Converters whose
+ * objects must be decoded before their fields can be read return the decoded object from {@link #getLazySource(Object)}
+ * or null to convert eagerly.
+ * <br><br>
+ * The fields that are set can be narrowed down while converting with {@link #setRequiredFields(Set)}, e.g. to the
+ * fields referenced by the queries that are running. The fields of the schema that are not required are then not
+ * extracted at all.
+ * <br><br>
+ * If filter predicates are configured, objects that do not match them are dropped before a record is built for them.
+ * {@link #convert(Object)} then returns null and {@link #convertAll(List)} leaves them out. With a schema, the references
+ * of the predicates are extracted with the fields. Without a schema, they are checked by {@link #accepts(Object)} first.
  */
-public abstract class BulletRecordConverter implements Serializable {
+public abstract class BulletRecordConverter implements AutoCloseable, Serializable {
 
     private static final long serialVersionUID = -8337322656873297988L;
+    private static final int MINIMUM_CHUNK_SIZE = 64;
+    private static final int CHUNKS_PER_THREAD = 4;
+
     private BulletRecordProvider provider;
+    private int parallelism;
+    private int poolSize;
+    private transient ForkJoinPool pool;
+    private transient volatile BlockingQueue<BulletRecord> recordPool;
     protected BulletDSLConfig config;
     protected BulletRecordSchema schema;
     protected boolean shouldTypeCheck = false;
+    private Map<Type, TypeValidator> validators;
+    private boolean lazy;
+    @Getter(AccessLevel.PROTECTED)
+    private RecordFilter filter;
+    private List<BulletRecordField> extractedFields;
+    private List<BulletRecordField> metadataFields;
+    private volatile Projection projection;
+    @Getter
+    private volatile Set<String> requiredFields;
 
     /**
      * Constructor that takes a configuration containing the settings relevant for this converter.
@@ -62,18 +110,19 @@ public abstract class BulletRecordConverter implements Serializable {
         String schemaFile = config.getAs(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, String.class);
 
         shouldTypeCheck = config.getAs(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_ENABLE, Boolean.class);
+        int sampleSize = config.getAs(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_SAMPLE_SIZE, Number.class).intValue();
+        validators = TypeValidator.forAllTypes(sampleSize);
+        parallelism = config.getAs(BulletDSLConfig.RECORD_CONVERTER_PARALLELISM, Number.class).intValue();
+        poolSize = config.getAs(BulletDSLConfig.RECORD_CONVERTER_POOL_SIZE, Number.class).intValue();
         provider = BulletRecordProvider.from(recordProviderClassName);
+        filter = RecordFilter.from(config);
 
         if (schemaFile != null) {
-            try (JsonReader reader = getJsonReader(schemaFile)) {
-                schema = new Gson().fromJson(reader, BulletRecordSchema.class);
-            } catch (Exception e) {
-                throw new BulletDSLException("Could not read or parse the schema file: " + schemaFile, e);
-            }
-            Optional<List<BulletError>> errors = schema.initialize();
-            if (errors.isPresent()) {
-                throw new BulletDSLException(errors.get().toString());
-            }
+            schema = BulletRecordSchema.from(schemaFile);
+            lazy = config.getAs(BulletDSLConfig.RECORD_CONVERTER_LAZY_ENABLE, Boolean.class);
+            compile(schema.getFields());
+        } else {
+            project();
         }
         return this;
     }
@@ -82,30 +131,508 @@ public abstract class BulletRecordConverter implements Serializable {
      * Converts an object to a BulletRecord using the configuration-defined implementation of BulletRecord.
      *
      * @param object The object to be converted.
-     * @return A BulletRecord with fields from object.
+     * @return A BulletRecord with fields from object or null if the object does not match the filter predicates.
      * @throws BulletDSLException if there is an error converting the object to a BulletRecord.
      */
     public BulletRecord convert(Object object) throws BulletDSLException {
-        return convert(object, provider.getInstance());
+        return convertRecord(object, projection, null);
+    }
+
+    /**
+     * Converts a batch of objects, such as the result of {@link com.yahoo.bullet.dsl.connector.BulletConnector#read()},
+     * to BulletRecords using the configuration-defined implementation of BulletRecord. The whole batch is converted with
+     * the fields that were required when it started, and the records it needs are taken from the record pool at once.
+     * Converters that can parse batches more efficiently than one object at a time can override this.
+     * <br><br>
+     * If the configured parallelism is greater than 1, large batches are split across a {@link ForkJoinPool} owned by
+     * this converter. Conversion must then be thread-safe, which is true for all the converters in this library. The
+     * pool is started by the first batch that needs it and is shut down by {@link #close()}.
+     *
+     * @param objects The objects to be converted.
+     * @return A list of BulletRecords in the same order as the objects, without the objects that do not match the
+     *         filter predicates.
+     * @throws BulletDSLException if there is an error converting any object to a BulletRecord.
+     */
+    public List<BulletRecord> convertAll(List<Object> objects) throws BulletDSLException {
+        int size = objects.size();
+        Projection current = projection;
+        if (parallelism <= 1 || size <= MINIMUM_CHUNK_SIZE) {
+            List<BulletRecord> records = new ArrayList<>(size);
+            List<BulletRecord> spare = takeRecords(size);
+            try {
+                for (Object object : objects) {
+                    BulletRecord record = convertRecord(object, current, spare);
+                    if (record != null) {
+                        records.add(record);
+                    }
+                }
+            } catch (Exception e) {
+                // The records converted before the failure are never returned, so they go back to the pool
+                releaseAll(records);
+                throw e;
+            } finally {
+                giveBack(spare);
+            }
+            return records;
+        }
+        BulletRecord[] records = new BulletRecord[size];
+        int chunkSize = Math.max(MINIMUM_CHUNK_SIZE, size / (parallelism * CHUNKS_PER_THREAD));
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        getPool().invoke(new ConvertTask(objects, records, current, failure, 0, size, chunkSize));
+        Exception cause = failure.get();
+        if (cause != null) {
+            releaseAll(Arrays.asList(records));
+            if (cause instanceof BulletDSLException) {
+                throw (BulletDSLException) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+        if (filter == null) {
+            return new ArrayList<>(Arrays.asList(records));
+        }
+        List<BulletRecord> matched = new ArrayList<>(size);
+        for (BulletRecord record : records) {
+            if (record != null) {
+                matched.add(record);
+            }
+        }
+        return matched;
     }
 
     /**
      * Converts an object to a BulletRecord using the given record. The default implementation assumes a valid schema.
+     * The values are extracted using the {@link ExtractionPlan} compiled from the schema and set in schema order.
      *
      * @param object The object to be converted.
      * @param record The record to insert fields into.
-     * @return The record with additional fields from object.
+     * @return The record with additional fields from object or null if the object does not match the filter predicates.
      * @throws BulletDSLException if there is an error converting the object to a BulletRecord.
      */
-    @SuppressWarnings("unchecked")
     public BulletRecord convert(Object object, BulletRecord record) throws BulletDSLException {
-        for (BulletRecordField field : schema.getFields()) {
+        return convertFields(object, record, projection);
+    }
+
+    /**
+     * Converts an object to a BulletRecord using the given record and the given fields of the schema. By default, this
+     * delegates to {@link #convert(Object, BulletRecord)}, so converters that only override that keep working. The
+     * converters of this library override this instead, so that a batch is converted with a single {@link Projection}.
+     *
+     * @param object The object to be converted.
+     * @param record The record to insert fields into.
+     * @param current The {@link Projection} taken when the conversion started.
+     * @return The record with additional fields from object or null if the object does not match the filter predicates.
+     * @throws BulletDSLException if there is an error converting the object to a BulletRecord.
+     */
+    BulletRecord convert(Object object, BulletRecord record, Projection current) throws BulletDSLException {
+        return convert(object, record);
+    }
+
+    /**
+     * Converts an object with a schema using the {@link ExtractionPlan} of the given {@link Projection}.
+     */
+    BulletRecord convertFields(Object object, BulletRecord record, Projection current) throws BulletDSLException {
+        ExtractionPlan plan = current.plan;
+        return setFields(plan, plan.extract(this, object), record, current.required);
+    }
+
+    /**
+     * Sets the names of the fields that conversions must set, e.g. the fields referenced by the queries that are
+     * running. Fields of the schema with other names are not extracted anymore and neither are the entries with other
+     * names of record fields or, without a schema, the fields with other names of the objects. Metadata fields are
+     * dropped the same way.
+     * <br><br>
+     * The fields can be changed while other threads are converting. Each conversion of the converters of this library
+     * uses either the previous or the new fields but never a mix of both.
+     *
+     * @param names The names of the required fields or null to set every field.
+     */
+    public synchronized void setRequiredFields(Set<String> names) {
+        requiredFields = names != null ? Collections.unmodifiableSet(new HashSet<>(names)) : null;
+        project();
+    }
+
+    /**
+     * Gets whether a field with the given name must be set. See {@link #setRequiredFields(Set)}. This checks the fields
+     * that are currently required, so they may change between two calls of the same conversion.
+     *
+     * @param name The name of the field.
+     * @return True if no required fields are set or if the name is one of them.
+     */
+    protected boolean isRequired(String name) {
+        return isRequired(requiredFields, name);
+    }
+
+    static boolean isRequired(Set<String> required, String name) {
+        return required == null || required.contains(name);
+    }
+
+    /**
+     * Gets the {@link ExtractionPlan} of the fields of the schema that are currently required. A conversion should get
+     * it once and use it throughout since it changes when the required fields do.
+     *
+     * @return The current plan or null if there is no schema.
+     */
+    protected ExtractionPlan getPlan() {
+        return projection.plan;
+    }
+
+    /**
+     * Gets the {@link Projection} of the fields that are currently required.
+     *
+     * @return The current projection.
+     */
+    Projection getProjection() {
+        return projection;
+    }
+
+    /**
+     * Checks whether an object matches the filter predicates when there is no schema. The default implementation
+     * extracts the references of the predicates from the object with {@link #get(Object, ExtractionPlan.Node)}.
+     *
+     * @param object The object to be converted.
+     * @return True if the object matches the filter predicates.
+     * @throws BulletDSLException if the object cannot be checked.
+     */
+    protected boolean accepts(Object object) throws BulletDSLException {
+        return filter.test(this, object);
+    }
+
+    /**
+     * Gets the object that the fields of a {@link LazyBulletRecord} are read from when converting the given object
+     * lazily. The default implementation returns the object itself.
+     *
+     * @param object The object to be converted.
+     * @return The object to read fields from with {@link #get(Object, ExtractionPlan.Node)} or null to convert the
+     *         object eagerly.
+     * @throws BulletDSLException if the object cannot be converted.
+     */
+    protected Object getLazySource(Object object) throws BulletDSLException {
+        return object;
+    }
+
+    /**
+     * Gives a record back to be reused by later conversions if a record pool is configured. The record is emptied and
+     * must not be used by the caller afterwards. Records are dropped if the pool is full or disabled, or if their
+     * fields cannot be removed.
+     *
+     * @param record The record to give back.
+     */
+    public void release(BulletRecord record) {
+        if (poolSize == 0 || record == null || record instanceof LazyBulletRecord) {
+            return;
+        }
+        if (reset(record)) {
+            getRecordPool().offer(record);
+        }
+    }
+
+    /**
+     * Gives a batch of records back to be reused by later conversions. See {@link #release(BulletRecord)}.
+     *
+     * @param records The records to give back.
+     */
+    public void releaseAll(List<BulletRecord> records) {
+        if (poolSize > 0) {
+            records.forEach(this::release);
+        }
+    }
+
+    /**
+     * Returns a record from the given spare records if there is one, then from the pool. Otherwise, creates a new one.
+     */
+    private BulletRecord newRecord(List<BulletRecord> spare) {
+        if (spare != null && !spare.isEmpty()) {
+            return spare.remove(spare.size() - 1);
+        }
+        BulletRecord record = poolSize > 0 ? getRecordPool().poll() : null;
+        return record != null ? record : provider.getInstance();
+    }
+
+    /**
+     * Takes up to the given number of records from the pool at once. Returns null if there is no pool.
+     */
+    private List<BulletRecord> takeRecords(int count) {
+        if (poolSize == 0) {
+            return null;
+        }
+        List<BulletRecord> spare = new ArrayList<>(Math.min(count, poolSize));
+        getRecordPool().drainTo(spare, count);
+        return spare;
+    }
+
+    /**
+     * Returns the spare records that were not used back to the pool.
+     */
+    private void giveBack(List<BulletRecord> spare) {
+        if (spare != null && !spare.isEmpty()) {
+            BlockingQueue<BulletRecord> queue = getRecordPool();
+            spare.forEach(queue::offer);
+        }
+    }
+
+    /**
+     * Removes all the fields of the record, keeping its storage. Returns false if the record does not support removing
+     * its fields.
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean reset(BulletRecord record) {
+        int count = record.fieldCount();
+        if (count == 0) {
+            return true;
+        }
+        // Not all records can remove while iterating, e.g. the Avro ones
+        String[] names = new String[count];
+        int i = 0;
+        for (Object entry : (Iterable<Object>) record) {
+            names[i++] = ((Map.Entry<String, ?>) entry).getKey();
+        }
+        try {
+            for (String name : names) {
+                record.remove(name);
+            }
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Converts an object that may be a {@link ConnectorRecord}. Its value is converted and its metadata referenced by
+     * the schema is set. If lazy records are enabled, the value is wrapped in a {@link LazyBulletRecord} instead.
+     * Returns null if the value does not match the filter predicates. The record is taken from the spare records if any.
+     */
+    private BulletRecord convertRecord(Object object, Projection current, List<BulletRecord> spare) throws BulletDSLException {
+        ConnectorRecord connectorRecord = object instanceof ConnectorRecord ? (ConnectorRecord) object : null;
+        Object value = connectorRecord != null ? connectorRecord.getValue() : object;
+        if (lazy) {
+            Object source = getLazySource(value);
+            if (source != null) {
+                if (filter != null && !filter.test(this, source)) {
+                    return null;
+                }
+                return new LazyBulletRecord(this, current, source, connectorRecord);
+            }
+        }
+        if (filter != null && current.plan == null && !accepts(value)) {
+            return null;
+        }
+        BulletRecord empty = newRecord(spare);
+        BulletRecord record;
+        try {
+            record = convert(value, empty, current);
+            if (record != null && connectorRecord != null) {
+                setMetadata(current, connectorRecord, record);
+            }
+        } catch (Exception e) {
+            recycle(empty, spare);
+            throw e;
+        }
+        if (record == null) {
+            recycle(empty, spare);
+        }
+        return record;
+    }
+
+    /**
+     * Returns a record that was not handed out to the spare records if any, or to the pool otherwise.
+     */
+    private void recycle(BulletRecord record, List<BulletRecord> spare) {
+        if (spare != null && reset(record)) {
+            spare.add(record);
+        } else {
+            release(record);
+        }
+    }
+
+    /**
+     * Converts all the fields of the source of a {@link LazyBulletRecord} into the given record.
+     *
+     * @param projection The {@link Projection} of the fields to convert.
+     * @param source The object returned by {@link #getLazySource(Object)}.
+     * @param connectorRecord The {@link ConnectorRecord} to read metadata from or null if there is none.
+     * @param record The record to insert fields into.
+     * @throws BulletDSLException if there is an error converting a field.
+     */
+    void convertEagerly(Projection projection, Object source, ConnectorRecord connectorRecord, BulletRecord record) throws BulletDSLException {
+        ExtractionPlan plan = projection.plan;
+        setFields(plan, plan.extract(this, source), record, projection.required);
+        if (connectorRecord != null) {
+            setMetadata(projection, connectorRecord, record);
+        }
+    }
+
+    /**
+     * Converts the fields of the schema that can set the field with the given name into the {@link LazyBulletRecord}.
+     * They are set in schema order, so the field ends up with the same value as if the record was converted eagerly.
+     *
+     * @param record The record to convert the field for.
+     * @param name The name of the field.
+     */
+    void resolve(LazyBulletRecord record, String name) {
+        Projection current = record.getProjection();
+        ConnectorRecord connectorRecord = record.getConnectorRecord();
+        boolean required = isRequired(current.required, name);
+        int extracted = current.plan.getFields().size();
+        for (int i : current.getLazyFields(name)) {
+            if (i >= extracted && connectorRecord == null) {
+                return;
+            }
+            BulletRecordField field = current.lazyFields.get(i);
             try {
-                Object value = extract(object, field.getToken());
+                Object value = i < extracted ? extract(current.plan, record.getSource(), field) : getMetadata(connectorRecord, field);
                 if (value == null) {
                     continue;
                 }
-                setField(field, value, record);
+                Type type = field.getType();
+                if (type != null) {
+                    record.typedSet(name, getTypedObject(name, type, (Serializable) value));
+                    continue;
+                }
+                TypedObject entry = required ? getRecordEntry(value, name) : null;
+                if (entry != null) {
+                    record.typedSet(name, entry);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not convert field: " + field, e);
+            }
+        }
+    }
+
+    /**
+     * Gets the typed value of the entry with the given name of a record field, i.e. the value that the field would
+     * set for the name when flattened into a record. By default, record fields are maps and their values are typed like
+     * {@link #flattenMap(Map, BulletRecord)} does.
+     *
+     * @param value The non-null value of the record field.
+     * @param name The name of the entry to get.
+     * @return The {@link TypedObject} of the entry or null if the record does not have it.
+     */
+    @SuppressWarnings("unchecked")
+    protected TypedObject getRecordEntry(Object value, String name) {
+        Serializable entry = ((Map<String, Serializable>) value).get(name);
+        return entry != null ? new TypedObject(entry) : null;
+    }
+
+    private Object extract(ExtractionPlan plan, Object source, BulletRecordField field) {
+        String[] token = field.getToken();
+        ExtractionPlan.Node node = plan.getRoot(token[0]);
+        Object value = get(source, node);
+        for (int i = 1; i < token.length && value != null; i++) {
+            node = node.getChild(token[i]);
+            value = getField(value, node);
+        }
+        return value;
+    }
+
+    private Object getMetadata(ConnectorRecord source, BulletRecordField field) {
+        String[] token = field.getToken();
+        Object value = source.getMetadata(token[0], token[1]);
+        for (int i = 2; i < token.length && value != null; i++) {
+            value = getField(value, token[i]);
+        }
+        return value;
+    }
+
+    private void setMetadata(Projection current, ConnectorRecord source, BulletRecord record) throws BulletDSLException {
+        if (current.metadataFields == null) {
+            return;
+        }
+        for (BulletRecordField field : current.metadataFields) {
+            Object value = getMetadata(source, field);
+            if (value == null) {
+                continue;
+            }
+            try {
+                setField(field, value, record, current.required);
+            } catch (Exception e) {
+                throw new BulletDSLException("Could not convert field: " + field, e);
+            }
+        }
+    }
+
+    /**
+     * Splits the fields of the schema into the extracted and the metadata fields and compiles the required ones.
+     */
+    private void compile(List<BulletRecordField> fields) throws BulletDSLException {
+        List<BulletRecordField> extracted = new ArrayList<>();
+        List<BulletRecordField> metadata = new ArrayList<>();
+        for (BulletRecordField field : fields) {
+            String[] token = field.getToken();
+            if (!token[0].startsWith(ConnectorRecord.METADATA_PREFIX)) {
+                extracted.add(field);
+            } else if (token.length > 1) {
+                metadata.add(field);
+            } else {
+                throw new BulletDSLException("A reference to metadata must have a key: " + field);
+            }
+        }
+        extractedFields = extracted;
+        metadataFields = metadata;
+        project();
+    }
+
+    /**
+     * Compiles the required fields of the schema into a new {@link Projection} and swaps it in.
+     */
+    private void project() {
+        Set<String> required = requiredFields;
+        if (schema == null) {
+            projection = new Projection(required);
+            return;
+        }
+        List<String> references = filter != null ? filter.getReferences() : Collections.emptyList();
+        projection = new Projection(filter(extractedFields, required), filter(metadataFields, required), references, lazy, required);
+    }
+
+    private static List<BulletRecordField> filter(List<BulletRecordField> fields, Set<String> required) {
+        if (required == null) {
+            return fields;
+        }
+        List<BulletRecordField> filtered = new ArrayList<>();
+        for (BulletRecordField field : fields) {
+            // Record fields can set any name, so their entries are filtered when they are set instead
+            if (field.getType() == null || required.contains(field.getName())) {
+                filtered.add(field);
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * Sets the values extracted by the {@link ExtractionPlan} into the given record in schema order if the values of the
+     * references of the plan match the filter predicates. Otherwise, nothing is set. The entries of record fields are
+     * filtered by the fields that are currently required.
+     *
+     * @param plan The {@link ExtractionPlan} the values were extracted with.
+     * @param values The extracted values indexed in the same order as the fields and the references of the plan.
+     * @param record The record to insert fields into.
+     * @return The record with the additional fields or null if the values do not match the filter predicates.
+     * @throws BulletDSLException if a value could not be extracted or set.
+     */
+    protected BulletRecord setFields(ExtractionPlan plan, Object[] values, BulletRecord record) throws BulletDSLException {
+        return setFields(plan, values, record, requiredFields);
+    }
+
+    /**
+     * Like {@link #setFields(ExtractionPlan, Object[], BulletRecord)} but filters the entries of record fields by the
+     * given required fields, e.g. the ones of the {@link Projection} the plan belongs to.
+     */
+    BulletRecord setFields(ExtractionPlan plan, Object[] values, BulletRecord record, Set<String> required) throws BulletDSLException {
+        List<BulletRecordField> fields = plan.getFields();
+        if (filter != null && !filter.test(values, fields.size())) {
+            return null;
+        }
+        for (int i = 0; i < fields.size(); i++) {
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            BulletRecordField field = fields.get(i);
+            if (value instanceof ExtractionPlan.Failure) {
+                throw new BulletDSLException("Could not convert field: " + field, ((ExtractionPlan.Failure) value).getCause());
+            }
+            try {
+                setField(field, value, record, required);
             } catch (Exception e) {
                 throw new BulletDSLException("Could not convert field: " + field, e);
             }
@@ -113,6 +640,19 @@ public abstract class BulletRecordConverter implements Serializable {
         return record;
     }
 
+    /**
+     * Sets the field in a {@link BulletRecord} like {@link #setField(BulletRecordField, Object, BulletRecord)} but
+     * flattens the entries of a record field that are in the given required fields.
+     */
+    @SuppressWarnings("unchecked")
+    void setField(BulletRecordField field, Object value, BulletRecord record, Set<String> required) {
+        if (field.getType() == null) {
+            flattenMap((Map<String, Serializable>) value, record, required);
+        } else {
+            setField(field, value, record);
+        }
+    }
+
     /**
      * Sets the field in a {@link BulletRecord}.
      *
@@ -129,20 +669,89 @@ public abstract class BulletRecordConverter implements Serializable {
             return;
         }
         String name = field.getName();
-        TypedObject object = getTypedObject(name, type, (Serializable) value);
-        record.typedSet(name, object);
+        if (shouldTypeCheck) {
+            record.typedSet(name, getTypedObject(name, type, (Serializable) value));
+        } else {
+            setValue(record, name, type, fixValue(type, (Serializable) value));
+        }
+    }
+
+    /**
+     * Sets a value with the given type in a {@link BulletRecord} without checking the type. If the type is null, it is
+     * inferred from the value.
+     *
+     * @param record The record to set the value in.
+     * @param name The name of the field.
+     * @param type The {@link Type} of the value or null if it is not known.
+     * @param value The non-null value to set.
+     */
+    @SuppressWarnings("unchecked")
+    protected static void setValue(BulletRecord record, String name, Type type, Serializable value) {
+        if (type == null) {
+            record.typedSet(name, new TypedObject(value));
+            return;
+        }
+        if (record instanceof UntypedBulletRecord) {
+            // An UntypedBulletRecord stores the value as is, so any setter that accepts the value avoids the TypedObject
+            if (value instanceof Map) {
+                record.setStringMap(name, (Map<String, String>) value);
+                return;
+            } else if (value instanceof List) {
+                record.setStringList(name, (List<String>) value);
+                return;
+            } else if (value instanceof String) {
+                record.setString(name, (String) value);
+                return;
+            } else if (value instanceof Long) {
+                record.setLong(name, (Long) value);
+                return;
+            } else if (value instanceof Integer) {
+                record.setInteger(name, (Integer) value);
+                return;
+            } else if (value instanceof Double) {
+                record.setDouble(name, (Double) value);
+                return;
+            } else if (value instanceof Boolean) {
+                record.setBoolean(name, (Boolean) value);
+                return;
+            } else if (value instanceof Float) {
+                record.setFloat(name, (Float) value);
+                return;
+            }
+        }
+        record.typedSet(name, new TypedObject(type, value));
     }
 
     /**
-     * Takes the fields of a map and inserts them into a BulletRecord.
+     * Finds the map or list {@link Type} with the given sub-type.
+     *
+     * @param containers The container types to look in, e.g. {@link Type#MAPS}.
+     * @param subType The {@link Type} of the values of the container.
+     * @return The container {@link Type} or null if none has the sub-type.
+     */
+    protected static Type getContainerType(Set<Type> containers, Type subType) {
+        for (Type type : containers) {
+            if (type.getSubType() == subType) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes the fields of a map that are currently required and inserts them into a BulletRecord.
      *
      * @param mapRecord The map to take fields from.
      * @param record The BulletRecord to insert fields into.
      */
     protected void flattenMap(Map<String, Serializable> mapRecord, BulletRecord record) {
+        flattenMap(mapRecord, record, requiredFields);
+    }
+
+    void flattenMap(Map<String, Serializable> mapRecord, BulletRecord record, Set<String> required) {
         mapRecord.forEach(
             (k, v) -> {
-                if (v != null) {
+                if (v != null && isRequired(required, k)) {
                     record.typedSet(k, new TypedObject(v));
                 }
             }
@@ -175,10 +784,43 @@ public abstract class BulletRecordConverter implements Serializable {
         return null;
     }
 
+    /**
+     * Gets the top-level field described by the given {@link ExtractionPlan.Node} from the object. By default, this
+     * delegates to {@link #get(Object, String)}.
+     *
+     * @param object The object to get from.
+     * @param node The compiled node of the top-level field to get.
+     * @return The value of the specified top-level field from the object or null if it does not exist.
+     */
+    protected Object get(Object object, ExtractionPlan.Node node) {
+        return get(object, node.getKey());
+    }
+
+    /**
+     * Gets the inner field described by the given {@link ExtractionPlan.Node} from the object. Lists are indexed with
+     * the index parsed when the plan was built and maps are looked up by key. Other objects are delegated to
+     * {@link #getField(Object, String)}.
+     *
+     * @param object The object to get from.
+     * @param node The compiled node of the inner field to get.
+     * @return The value of the specified inner field from the object or null if it does not exist.
+     */
+    @SuppressWarnings("unchecked")
+    protected Object getField(Object object, ExtractionPlan.Node node) {
+        if (object instanceof List) {
+            // Parsing a key that is not an index throws the same exception as the uncompiled lookup
+            int index = node.isIndex() ? node.getIndex() : Integer.parseInt(node.getKey());
+            return ((List<Object>) object).get(index);
+        } else if (object instanceof Map) {
+            return ((Map<String, Object>) object).get(node.getKey());
+        }
+        return getField(object, node.getKey());
+    }
+
     /**
      * Converts the field value with the given name and expected type into a {@link TypedObject}. If type checking is
-     * enabled, it will check to make sure that the expected type matches the final type in the {@link TypedObject}.
-     * This method is only used for non-record fields.
+     * enabled, it will check to make sure that the value matches the expected type with a {@link TypeValidator}. The
+     * type of the value is only inferred to report a mismatch. This method is only used for non-record fields.
      *
      * @param name The name of the field.
      * @param type The expected type of the field.
@@ -186,33 +828,43 @@ public abstract class BulletRecordConverter implements Serializable {
      * @return A {@link TypedObject} wrapping the value.
      */
     protected TypedObject getTypedObject(String name, Type type, Serializable value) {
+        value = fixValue(type, value);
         if (!shouldTypeCheck) {
             return new TypedObject(type, value);
         }
+        TypeValidator validator = validators.get(type);
+        if (validator != null) {
+            if (!validator.isValid(value)) {
+                throw getTypeMismatch(name, type, Type.getType(value));
+            }
+            return new TypedObject(type, value);
+        }
+        // Types without a validator, e.g. UNKNOWN_MAP, are compared to the inferred type
         TypedObject object = new TypedObject(value);
         Type actual = object.getType();
 
         // If the object came back as an UNKNOWN container and it's empty and we have a schema, there's no need to fail
         actual = fixTypeIfEmpty(type, actual, value);
         if (type != actual) {
-            throw new ClassCastException("Field " + name + " had type " + actual + " instead of the expected " + type);
+            throw getTypeMismatch(name, type, actual);
         }
         return object;
     }
 
+    private static ClassCastException getTypeMismatch(String name, Type expected, Type actual) {
+        return new ClassCastException("Field " + name + " had type " + actual + " instead of the expected " + expected);
+    }
+
     /**
-     * Extracts the specified field from the object. The field can contain map fields and list elements delimited by periods.
+     * Fixes the value of a field with the given expected type before it is set. The default implementation returns the
+     * value as is.
      *
-     * @param object The object to extract from.
-     * @param token The array of strings containing the split identifier of the field to get.
-     * @return The value of the specified field from the object or null if it does not exist.
+     * @param type The expected type of the field.
+     * @param value The {@link Serializable} value of the field.
+     * @return The fixed value.
      */
-    private Object extract(Object object, String[] token) {
-        Object o = get(object, token[0]);
-        for (int i = 1; o != null && i < token.length; i++) {
-            o = getField(o, token[i]);
-        }
-        return o;
+    protected Serializable fixValue(Type type, Serializable value) {
+        return value;
     }
 
     /**
@@ -235,18 +887,152 @@ public abstract class BulletRecordConverter implements Serializable {
         return actual;
     }
 
+    private BlockingQueue<BulletRecord> getRecordPool() {
+        BlockingQueue<BulletRecord> queue = recordPool;
+        if (queue == null) {
+            synchronized (this) {
+                if (recordPool == null) {
+                    recordPool = new ArrayBlockingQueue<>(poolSize);
+                }
+                queue = recordPool;
+            }
+        }
+        return queue;
+    }
+
     /**
-     * Creates a {@link JsonReader} from a file name or path.
-     *
-     * @param file The file name or path to read from.
-     * @return A JsonReader reading from file.
+     * Shuts down the {@link ForkJoinPool} used to convert batches in parallel if it was started. A later batch that
+     * needs it starts a new one.
      */
-    private JsonReader getJsonReader(String file) {
-        try {
-            InputStream is = this.getClass().getResourceAsStream("/" + file);
-            return is != null ? new JsonReader(new InputStreamReader(is)) : new JsonReader(new FileReader(file));
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(file + " file not found.", e);
+    @Override
+    public synchronized void close() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    private synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+    /**
+     * The required fields, and the required fields of the schema and the references of the filter compiled for
+     * conversion if there is a schema. It is replaced as a whole when the required fields change, so a conversion that
+     * holds on to it uses a consistent set of fields.
+     */
+    static final class Projection implements Serializable {
+        private static final long serialVersionUID = 5290816405214474178L;
+
+        // Null if there is no schema
+        @Getter(AccessLevel.PACKAGE)
+        private final ExtractionPlan plan;
+        // Null if every field is required
+        @Getter(AccessLevel.PACKAGE)
+        private final Set<String> required;
+        private final List<BulletRecordField> metadataFields;
+        // The fields of the plan followed by the metadata fields, and the fields that can set each name in schema order
+        private final List<BulletRecordField> lazyFields;
+        private final Map<String, int[]> lazyLookup;
+        private final int[] lazyRecordFields;
+
+        private Projection(Set<String> required) {
+            this.required = required;
+            plan = null;
+            metadataFields = null;
+            lazyFields = null;
+            lazyLookup = null;
+            lazyRecordFields = null;
+        }
+
+        private Projection(List<BulletRecordField> extracted, List<BulletRecordField> metadata, List<String> references,
+                           boolean lazy, Set<String> required) {
+            this.required = required;
+            plan = new ExtractionPlan(extracted, references);
+            metadataFields = metadata.isEmpty() ? null : metadata;
+            if (!lazy) {
+                lazyFields = null;
+                lazyLookup = null;
+                lazyRecordFields = null;
+                return;
+            }
+            // Record fields can set any name, so they are included for every name
+            lazyFields = new ArrayList<>(extracted);
+            lazyFields.addAll(metadata);
+            Map<String, List<Integer>> names = new HashMap<>();
+            List<Integer> records = new ArrayList<>();
+            for (int i = 0; i < lazyFields.size(); i++) {
+                BulletRecordField field = lazyFields.get(i);
+                if (field.getType() == null) {
+                    records.add(i);
+                    for (List<Integer> indices : names.values()) {
+                        indices.add(i);
+                    }
+                } else {
+                    names.computeIfAbsent(field.getName(), k -> new ArrayList<>(records)).add(i);
+                }
+            }
+            lazyLookup = new HashMap<>();
+            names.forEach((name, indices) -> lazyLookup.put(name, toArray(indices)));
+            lazyRecordFields = toArray(records);
+        }
+
+        private int[] getLazyFields(String name) {
+            return lazyLookup.getOrDefault(name, lazyRecordFields);
+        }
+
+        private static int[] toArray(List<Integer> indices) {
+            return indices.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Converts a range of a batch, splitting it in half until it is no larger than the chunk size. The first failure is
+     * kept instead of thrown, so that every chunk is done with its records by the time the batch fails.
+     */
+    private class ConvertTask extends RecursiveAction {
+        private static final long serialVersionUID = -3936454962232480213L;
+
+        private final List<Object> objects;
+        private final BulletRecord[] records;
+        private final Projection current;
+        private final AtomicReference<Exception> failure;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        private ConvertTask(List<Object> objects, BulletRecord[] records, Projection current, AtomicReference<Exception> failure,
+                            int from, int to, int chunkSize) {
+            this.objects = objects;
+            this.records = records;
+            this.current = current;
+            this.failure = failure;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                List<BulletRecord> spare = takeRecords(to - from);
+                try {
+                    for (int i = from; i < to && failure.get() == null; i++) {
+                        records[i] = convertRecord(objects.get(i), current, spare);
+                    }
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    giveBack(spare);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ConvertTask(objects, records, current, failure, from, middle, chunkSize),
+                      new ConvertTask(objects, records, current, failure, middle, to, chunkSize));
         }
     }
 
@@ -0,0 +1,306 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.converter;
+
+import com.yahoo.bullet.dsl.schema.BulletRecordField;
+import com.yahoo.bullet.dsl.schema.BulletRecordSchema;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An ExtractionPlan is a {@link BulletRecordSchema} compiled into a tree of {@link Node}, one per distinct reference
+ * prefix. Fields whose references share a prefix also share the nodes for that prefix, so each prefix is read only once
+ * per object no matter how many fields are under it. List indices in references are parsed once when the plan is built.
+ * <br><br>
+ * A plan can also extract additional references that are not fields, e.g. the references of a {@link RecordFilter}.
+ * Their values follow the values of the fields.
+ */
+public class ExtractionPlan implements Serializable {
+
+    private static final long serialVersionUID = 2204384531856245765L;
+
+    /**
+     * A Node is a single step of a reference, i.e. a top-level field, a map key or a list index.
+     */
+    public static class Node implements Serializable {
+
+        private static final long serialVersionUID = -7021916262233346218L;
+        private static final int NOT_AN_INDEX = -1;
+
+        @Getter
+        private final String key;
+        @Getter
+        private final int index;
+        @Getter(AccessLevel.PACKAGE)
+        private final int[] fields;
+        @Getter(AccessLevel.PACKAGE)
+        private final Node[] children;
+        private final Map<String, Node> lookup;
+
+        // Converter-specific state resolved lazily on first access, e.g. the position of this key in an Avro schema.
+        @Getter(AccessLevel.PACKAGE)
+        @Setter(AccessLevel.PACKAGE)
+        private transient volatile Object state;
+
+        private Node(String key, int[] fields, Node[] children) {
+            this.key = key;
+            this.index = toIndex(key);
+            this.fields = fields;
+            this.children = children;
+            this.lookup = toLookup(children);
+        }
+
+        /**
+         * Gets the child node with the given key.
+         *
+         * @param key The key of the child.
+         * @return The child node or null if no reference continues with this key.
+         */
+        public Node getChild(String key) {
+            return lookup.get(key);
+        }
+
+        /**
+         * Gets the child node with the given list index.
+         *
+         * @param index The list index of the child.
+         * @return The child node or null if no reference continues with this index.
+         */
+        public Node getChild(int index) {
+            for (Node child : children) {
+                if (child.index == index) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Gets whether any fields end at this node, i.e. whether the whole value at this node is needed.
+         *
+         * @return True if at least one field ends at this node.
+         */
+        public boolean hasFields() {
+            return fields.length > 0;
+        }
+
+        /**
+         * Gets whether the key of this node is a valid list index.
+         *
+         * @return True if the key is a non-negative integer.
+         */
+        public boolean isIndex() {
+            return index != NOT_AN_INDEX;
+        }
+
+        /**
+         * Marks the fields that end at or under this node as failed with the given cause.
+         *
+         * @param cause The reason the value of this node could not be extracted.
+         * @param values The array of extracted values to fill.
+         */
+        void fail(Exception cause, Object[] values) {
+            fail(new Failure(cause), values);
+        }
+
+        /**
+         * Marks the fields under children of this node that do not index into a list of the given size as failed, with the
+         * same exceptions as looking them up in a {@link List} of that size.
+         *
+         * @param size The size of the list at this node.
+         * @param values The array of extracted values to fill.
+         */
+        void failMissingIndices(int size, Object[] values) {
+            for (Node child : children) {
+                if (!child.isIndex()) {
+                    child.fail(new NumberFormatException("For input string: \"" + child.key + "\""), values);
+                } else if (child.index >= size) {
+                    child.fail(new IndexOutOfBoundsException("Index: " + child.index + ", Size: " + size), values);
+                }
+            }
+        }
+
+        private void fail(Failure failure, Object[] values) {
+            for (int i : fields) {
+                values[i] = failure;
+            }
+            for (Node child : children) {
+                child.fail(failure, values);
+            }
+        }
+
+        private static int toIndex(String key) {
+            try {
+                int index = Integer.parseInt(key);
+                return index < 0 ? NOT_AN_INDEX : index;
+            } catch (NumberFormatException e) {
+                return NOT_AN_INDEX;
+            }
+        }
+    }
+
+    /**
+     * Marks a field whose value could not be extracted.
+     */
+    static class Failure {
+        @Getter
+        private final Exception cause;
+
+        private Failure(Exception cause) {
+            this.cause = cause;
+        }
+    }
+
+    @Getter
+    private final List<BulletRecordField> fields;
+    @Getter
+    private final List<String> references;
+    private final String[][] tokens;
+    private final Node[] roots;
+    private final Map<String, Node> lookup;
+
+    /**
+     * Compiles the given initialized schema into an ExtractionPlan.
+     *
+     * @param schema The {@link BulletRecordSchema} to compile.
+     */
+    public ExtractionPlan(BulletRecordSchema schema) {
+        this(schema.getFields());
+    }
+
+    /**
+     * Compiles the given fields of an initialized schema into an ExtractionPlan.
+     *
+     * @param fields The list of {@link BulletRecordField} to compile.
+     */
+    public ExtractionPlan(List<BulletRecordField> fields) {
+        this(fields, Collections.emptyList());
+    }
+
+    /**
+     * Compiles the given fields of an initialized schema and the given additional references into an ExtractionPlan.
+     * The references use the same syntax as the references of the fields.
+     *
+     * @param fields The list of {@link BulletRecordField} to compile.
+     * @param references The list of additional references to compile.
+     */
+    public ExtractionPlan(List<BulletRecordField> fields, List<String> references) {
+        this.fields = new ArrayList<>(fields);
+        this.references = new ArrayList<>(references);
+        tokens = new String[fields.size() + references.size()][];
+        List<Integer> all = new ArrayList<>();
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = i < fields.size() ? fields.get(i).getToken() : BulletRecordField.toToken(references.get(i - fields.size()));
+            all.add(i);
+        }
+        roots = compile(all, 0);
+        lookup = toLookup(roots);
+    }
+
+    /**
+     * Gets the top-level node with the given key.
+     *
+     * @param key The key of the top-level field.
+     * @return The node or null if no reference starts with this key.
+     */
+    public Node getRoot(String key) {
+        return lookup.get(key);
+    }
+
+    /**
+     * Gets the number of values extracted, i.e. the number of fields followed by the number of additional references.
+     *
+     * @return The size of the arrays of extracted values.
+     */
+    public int getValueCount() {
+        return tokens.length;
+    }
+
+    /**
+     * Extracts the values of all fields and references from the object. The returned array is indexed in the same order
+     * as {@link #getFields()} followed by {@link #getReferences()}. A value is null if the field does not exist in the
+     * object and is a {@link Failure} if an exception was thrown while extracting it or one of its prefixes.
+     *
+     * @param converter The {@link BulletRecordConverter} used to access the object.
+     * @param object The object to extract from.
+     * @return The array of extracted values.
+     */
+    Object[] extract(BulletRecordConverter converter, Object object) {
+        Object[] values = new Object[tokens.length];
+        for (Node root : roots) {
+            extract(converter, root, object, true, values);
+        }
+        return values;
+    }
+
+    /**
+     * Sets the already resolved value of a node into the values for its fields and extracts the values of its children
+     * from it.
+     *
+     * @param converter The {@link BulletRecordConverter} used to access the value.
+     * @param node The node that was resolved.
+     * @param value The value of the node.
+     * @param values The array of extracted values to fill.
+     */
+    static void fill(BulletRecordConverter converter, Node node, Object value, Object[] values) {
+        if (value == null) {
+            return;
+        }
+        for (int i : node.fields) {
+            values[i] = value;
+        }
+        for (Node child : node.children) {
+            extract(converter, child, value, false, values);
+        }
+    }
+
+    private static void extract(BulletRecordConverter converter, Node node, Object parent, boolean isRoot, Object[] values) {
+        Object value;
+        try {
+            value = isRoot ? converter.get(parent, node) : converter.getField(parent, node);
+        } catch (Exception e) {
+            node.fail(new Failure(e), values);
+            return;
+        }
+        fill(converter, node, value, values);
+    }
+
+    private static Map<String, Node> toLookup(Node[] nodes) {
+        Map<String, Node> lookup = new HashMap<>();
+        for (Node node : nodes) {
+            lookup.put(node.key, node);
+        }
+        return lookup;
+    }
+
+    private Node[] compile(List<Integer> indices, int depth) {
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (Integer i : indices) {
+            groups.computeIfAbsent(tokens[i][depth], k -> new ArrayList<>()).add(i);
+        }
+        Node[] nodes = new Node[groups.size()];
+        int n = 0;
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            List<Integer> terminal = new ArrayList<>();
+            List<Integer> nested = new ArrayList<>();
+            for (Integer i : group.getValue()) {
+                (tokens[i].length == depth + 1 ? terminal : nested).add(i);
+            }
+            int[] terminalFields = terminal.stream().mapToInt(Integer::intValue).toArray();
+            nodes[n++] = new Node(group.getKey(), terminalFields, compile(nested, depth + 1));
+        }
+        return nodes;
+    }
+}
@@ -8,13 +8,19 @@ package com.yahoo.bullet.dsl.converter;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.dsl.BulletDSLConfig;
 import com.yahoo.bullet.dsl.BulletDSLException;
+import com.yahoo.bullet.dsl.schema.BulletRecordField;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.typesystem.Type;
-import com.yahoo.bullet.typesystem.TypedObject;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.UnaryOperator;
@@ -25,11 +31,19 @@ import java.util.function.UnaryOperator;
  * <br><br>
  * If a schema is not specified, numeric types will default to {@link Double}. If a schema is provided, the appropriate
  * specified types will be used.
+ * <br><br>
+ * If a schema is provided and streaming is enabled, the JSON is read token by token instead of being parsed into a map
+ * first. Subtrees that are not referenced by the schema are skipped and numbers are parsed directly into the types
+ * specified in the schema. Streaming already skips the fields that are not referenced, so lazy records are not used
+ * with streaming.
  */
 public class JSONBulletRecordConverter extends MapBulletRecordConverter {
 
     private static final long serialVersionUID = -9133702879277054842L;
     private static final Gson GSON = new GsonBuilder().create();
+    private static final java.lang.reflect.Type MAP_TYPE = new TypeToken<Map<String, Object>>() { }.getType();
+
+    protected boolean streaming;
 
     /**
      * Constructs a JSONBulletRecordConverter without a schema.
@@ -61,19 +75,195 @@ public class JSONBulletRecordConverter extends MapBulletRecordConverter {
     }
 
     @Override
-    public BulletRecord convert(Object object, BulletRecord record) throws BulletDSLException {
+    protected BulletRecordConverter build() throws BulletDSLException {
+        super.build();
+        streaming = schema != null && config.getAs(BulletDSLConfig.RECORD_CONVERTER_JSON_STREAMING_ENABLE, Boolean.class);
+        return this;
+    }
+
+    @Override
+    BulletRecord convert(Object object, BulletRecord record, Projection current) throws BulletDSLException {
         String json = (String) object;
-        Map<String, Object> data = GSON.fromJson(json, new TypeToken<Map<String, Object>>() { }.getType());
-        return super.convert(data, record);
+        if (streaming) {
+            ExtractionPlan plan = current.getPlan();
+            return setFields(plan, stream(plan, json), record, current.getRequired());
+        }
+        Map<String, Object> data = GSON.fromJson(json, MAP_TYPE);
+        return super.convert(data, record, current);
+    }
+
+    @Override
+    protected boolean accepts(Object object) throws BulletDSLException {
+        // Reads only the references of the filter from the token stream
+        return getFilter().test(stream(getFilter().getPlan(), (String) object), 0);
+    }
+
+    @Override
+    protected Object getLazySource(Object object) {
+        return streaming ? null : GSON.fromJson((String) object, MAP_TYPE);
     }
 
     @Override
-    protected TypedObject getTypedObject(String name, Type type, Serializable value) {
-        return super.getTypedObject(name, type, fixNumberType(type, value));
+    protected Serializable fixValue(Type type, Serializable value) {
+        return fixNumberType(type, value);
+    }
+
+    private Object[] stream(ExtractionPlan plan, String json) throws BulletDSLException {
+        Object[] values = new Object[plan.getValueCount()];
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.setLenient(true);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                ExtractionPlan.Node node = plan.getRoot(reader.nextName());
+                if (node == null) {
+                    reader.skipValue();
+                } else {
+                    read(plan, reader, node, values);
+                }
+            }
+            reader.endObject();
+        } catch (IOException | RuntimeException e) {
+            throw new BulletDSLException("Could not parse JSON.", e);
+        }
+        return values;
+    }
+
+    private void read(ExtractionPlan plan, JsonReader reader, ExtractionPlan.Node node, Object[] values) throws IOException {
+        if (node.hasFields()) {
+            ExtractionPlan.fill(this, node, readValue(reader, getNumberType(plan, node)), values);
+            return;
+        }
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    ExtractionPlan.Node child = node.getChild(reader.nextName());
+                    if (child == null) {
+                        reader.skipValue();
+                    } else {
+                        read(plan, reader, child, values);
+                    }
+                }
+                reader.endObject();
+                return;
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                int size = 0;
+                while (reader.hasNext()) {
+                    ExtractionPlan.Node child = node.getChild(size++);
+                    if (child == null) {
+                        reader.skipValue();
+                    } else {
+                        read(plan, reader, child, values);
+                    }
+                }
+                reader.endArray();
+                // Keeps the failures of the map-based path for references that do not index into the list
+                node.failMissingIndices(size, values);
+                return;
+            default:
+                reader.skipValue();
+        }
+    }
+
+    private static Object readValue(JsonReader reader, Type numberType) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                Map<String, Object> map = new HashMap<>();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    map.put(reader.nextName(), readValue(reader, numberType));
+                }
+                reader.endObject();
+                return map;
+            case BEGIN_ARRAY:
+                List<Object> list = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    list.add(readValue(reader, numberType));
+                }
+                reader.endArray();
+                return list;
+            case STRING:
+                return reader.nextString();
+            case NUMBER:
+                return readNumber(reader, numberType);
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NULL:
+                reader.nextNull();
+                return null;
+            default:
+                throw new IllegalStateException("Unexpected JSON token: " + reader.peek());
+        }
+    }
+
+    private static Object readNumber(JsonReader reader, Type numberType) throws IOException {
+        // Integral types fall back to truncating the double like Number#intValue and Number#longValue do
+        switch (numberType) {
+            case INTEGER:
+                try {
+                    return reader.nextInt();
+                } catch (NumberFormatException e) {
+                    return (int) reader.nextDouble();
+                }
+            case LONG:
+                try {
+                    return reader.nextLong();
+                } catch (NumberFormatException e) {
+                    return (long) reader.nextDouble();
+                }
+            case FLOAT:
+                return (float) reader.nextDouble();
+        }
+        return reader.nextDouble();
+    }
+
+    /**
+     * Gets the numeric type to parse numbers at the given node as. This is the innermost type of the fields ending at the
+     * node if they all agree and {@link Type#DOUBLE} otherwise, e.g. for records.
+     *
+     * @param plan The plan of the node.
+     * @param node The node to parse at.
+     * @return The numeric type to use.
+     */
+    private Type getNumberType(ExtractionPlan plan, ExtractionPlan.Node node) {
+        Object state = node.getState();
+        if (state != null) {
+            return (Type) state;
+        }
+        Type numberType = null;
+        List<BulletRecordField> fields = plan.getFields();
+        for (int i : node.getFields()) {
+            // The references of the filter are parsed as whatever the fields at the same node are
+            if (i >= fields.size()) {
+                continue;
+            }
+            BulletRecordField field = fields.get(i);
+            Type innermost = getInnermostType(field.getType());
+            if (numberType != null && numberType != innermost) {
+                numberType = Type.DOUBLE;
+                break;
+            }
+            numberType = innermost;
+        }
+        numberType = numberType == null || !Type.isNumeric(numberType) ? Type.DOUBLE : numberType;
+        node.setState(numberType);
+        return numberType;
+    }
+
+    private static Type getInnermostType(Type type) {
+        if (type == null) {
+            return Type.DOUBLE;
+        }
+        while (type.getSubType() != null) {
+            type = type.getSubType();
+        }
+        return type;
     }
 
     private static Serializable fixNumberType(Type expected, Serializable object) {
-        // Cannot get nulls as it is already checked before getTypedObject is called in BulletRecordConverter#convert
+        // Cannot get nulls as it is already checked before fixValue is called in BulletRecordConverter#convert
         switch (expected) {
             case INTEGER:
                 return toInt(object);
@@ -110,15 +300,15 @@ public class JSONBulletRecordConverter extends MapBulletRecordConverter {
     }
 
     private static Serializable toInt(Serializable primitive) {
-        return primitive == null ? null : ((Number) primitive).intValue();
+        return primitive == null || primitive instanceof Integer ? primitive : ((Number) primitive).intValue();
     }
 
     private static Serializable toLong(Serializable primitive) {
-        return primitive == null ? null : ((Number) primitive).longValue();
+        return primitive == null || primitive instanceof Long ? primitive : ((Number) primitive).longValue();
     }
 
     private static Serializable toFloat(Serializable primitive) {
-        return primitive == null ? null : ((Number) primitive).floatValue();
+        return primitive == null || primitive instanceof Float ? primitive : ((Number) primitive).floatValue();
     }
 
     @SuppressWarnings("unchecked")
@@ -0,0 +1,198 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.converter;
+
+import com.yahoo.bullet.dsl.BulletDSLException;
+import com.yahoo.bullet.dsl.connector.ConnectorRecord;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.record.TypedBulletRecord;
+import com.yahoo.bullet.record.simple.TypedSimpleBulletRecord;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A LazyBulletRecord is a {@link TypedBulletRecord} returned by a {@link BulletRecordConverter} with lazy records
+ * enabled. It wraps the object that was converted and extracts and types a field from it only when the field is first
+ * read. The field is then kept, so it is only converted once. Fields that are never read are never converted.
+ * <br><br>
+ * Operations that need every field, such as {@link #iterator()}, {@link #fieldCount()}, {@link #copy()} or serializing
+ * the record, convert all the fields that have not been read yet and drop the wrapped object. Fields that were set or
+ * removed before are kept as they are.
+ * <br><br>
+ * Since a field is converted when it is read, an error converting it is thrown by the read as an
+ * {@link IllegalStateException} instead of by the converter.
+ */
+public class LazyBulletRecord extends TypedBulletRecord {
+
+    private static final long serialVersionUID = 6113569316093584427L;
+
+    private Map<String, TypedObject> data;
+    // The names of the fields that must not be converted again, i.e. that were read, set or removed
+    private transient Set<String> resolved;
+    private transient BulletRecordConverter converter;
+    @Getter(AccessLevel.PACKAGE)
+    private transient BulletRecordConverter.Projection projection;
+    @Getter(AccessLevel.PACKAGE)
+    private transient Object source;
+    @Getter(AccessLevel.PACKAGE)
+    private transient ConnectorRecord connectorRecord;
+
+    /**
+     * Constructor that takes the converter and the object to convert fields from.
+     *
+     * @param converter The {@link BulletRecordConverter} that converts the fields.
+     * @param projection The fields of the schema that were required when the object was converted.
+     * @param source The object to convert fields from.
+     * @param connectorRecord The {@link ConnectorRecord} to read metadata from or null if there is none.
+     */
+    LazyBulletRecord(BulletRecordConverter converter, BulletRecordConverter.Projection projection, Object source,
+                     ConnectorRecord connectorRecord) {
+        this.data = new HashMap<>();
+        this.resolved = new HashSet<>();
+        this.converter = converter;
+        this.projection = projection;
+        this.source = source;
+        this.connectorRecord = connectorRecord;
+    }
+
+    private LazyBulletRecord(Map<String, TypedObject> data) {
+        this.data = data;
+    }
+
+    /**
+     * Gets whether all the fields of this record have been converted.
+     *
+     * @return True if the record no longer wraps the converted object.
+     */
+    public boolean isMaterialized() {
+        return converter == null;
+    }
+
+    @Override
+    protected LazyBulletRecord rawSet(String field, TypedObject object) {
+        Objects.requireNonNull(object);
+        if (converter != null) {
+            resolved.add(field);
+        }
+        data.put(field, object);
+        return this;
+    }
+
+    @Override
+    public TypedObject get(String field) {
+        TypedObject value = resolve(field);
+        return value == null ? TypedObject.NULL : value;
+    }
+
+    @Override
+    public boolean hasField(String field) {
+        return resolve(field) != null;
+    }
+
+    @Override
+    public int fieldCount() {
+        materialize();
+        return data.size();
+    }
+
+    @Override
+    public TypedObject getAndRemove(String field) {
+        resolve(field);
+        return data.remove(field);
+    }
+
+    @Override
+    public LazyBulletRecord remove(String field) {
+        if (converter != null) {
+            resolved.add(field);
+        }
+        data.remove(field);
+        return this;
+    }
+
+    @Override
+    public TypedObject typedGet(String field, Type hint) {
+        return get(field);
+    }
+
+    @Override
+    public LazyBulletRecord copy() {
+        materialize();
+        return new LazyBulletRecord(new HashMap<>(data));
+    }
+
+    @Override
+    public Iterator<Map.Entry<String, TypedObject>> iterator() {
+        materialize();
+        return data.entrySet().iterator();
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (!(object instanceof LazyBulletRecord)) {
+            return false;
+        }
+        LazyBulletRecord other = (LazyBulletRecord) object;
+        materialize();
+        other.materialize();
+        return data.equals(other.data);
+    }
+
+    @Override
+    public int hashCode() {
+        materialize();
+        return data.hashCode();
+    }
+
+    private TypedObject resolve(String field) {
+        TypedObject value = data.get(field);
+        if (value != null || converter == null || resolved.contains(field)) {
+            return value;
+        }
+        // Only marked once converted so that a field that failed to convert is converted again instead of being missing
+        converter.resolve(this, field);
+        resolved.add(field);
+        return data.get(field);
+    }
+
+    private void materialize() {
+        if (converter == null) {
+            return;
+        }
+        BulletRecord<TypedObject> all = new TypedSimpleBulletRecord();
+        try {
+            converter.convertEagerly(projection, source, connectorRecord, all);
+        } catch (BulletDSLException e) {
+            throw new IllegalStateException(e.getMessage(), e.getCause());
+        }
+        for (Map.Entry<String, TypedObject> entry : all) {
+            if (resolved.add(entry.getKey())) {
+                data.put(entry.getKey(), entry.getValue());
+            }
+        }
+        converter = null;
+        projection = null;
+        source = null;
+        connectorRecord = null;
+        resolved = null;
+    }
+
+    private void writeObject(ObjectOutputStream stream) throws IOException {
+        materialize();
+        stream.defaultWriteObject();
+    }
+}
@@ -14,6 +14,7 @@ import com.yahoo.bullet.typesystem.TypedObject;
 import java.io.Serializable;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * MapBulletRecordConverter is used to convert {@code Map<String, Object>} to {@link BulletRecord}.
@@ -60,20 +61,30 @@ public class MapBulletRecordConverter extends BulletRecordConverter {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public BulletRecord convert(Object object, BulletRecord record) throws BulletDSLException {
+        return convert(object, record, getProjection());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    BulletRecord convert(Object object, BulletRecord record, Projection current) throws BulletDSLException {
         if (schema != null) {
-            return super.convert(object, record);
+            return convertFields(object, record, current);
         }
         // no bullet dsl schema
         Map<String, Serializable> map = (Map<String, Serializable>) object;
-        map.forEach(
-            (key, value) -> {
+        Set<String> required = current.getRequired();
+        if (required != null && required.size() < map.size()) {
+            // Looks up the few required fields instead of going through the whole map
+            for (String key : required) {
+                Serializable value = map.get(key);
                 if (value != null) {
                     record.typedSet(key, new TypedObject(value));
                 }
             }
-        );
+            return record;
+        }
+        flattenMap(map, record, required);
         return record;
     }
 
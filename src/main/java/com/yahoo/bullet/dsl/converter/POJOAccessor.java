@@ -0,0 +1,77 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.converter;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * A POJOAccessor reads a single member or getter of a POJO. Accessors are generated once when a
+ * {@link POJOBulletRecordConverter} is built. Getters that are accessible from this package are linked through
+ * {@link LambdaMetafactory} into a direct call. Everything else is read through an exactly typed {@link MethodHandle}
+ * that was unreflected after access checks were suppressed.
+ */
+@FunctionalInterface
+interface POJOAccessor {
+
+    MethodType ACCESSOR_TYPE = MethodType.methodType(POJOAccessor.class);
+    MethodType GET_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * Reads the value from the given POJO.
+     *
+     * @param pojo The POJO to read from.
+     * @return The value read.
+     * @throws Throwable if the underlying getter throws.
+     */
+    Object get(Object pojo) throws Throwable;
+
+    /**
+     * Creates a POJOAccessor for a getter. The method must already be accessible.
+     *
+     * @param method The no-argument getter.
+     * @return A POJOAccessor that calls the getter.
+     * @throws IllegalAccessException if the method is not accessible.
+     */
+    static POJOAccessor of(Method method) throws IllegalAccessException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle handle = lookup.unreflect(method);
+        try {
+            CallSite site = LambdaMetafactory.metafactory(lookup, "get", ACCESSOR_TYPE, GET_TYPE, handle, handle.type().wrap());
+            return (POJOAccessor) site.getTarget().invokeExact();
+        } catch (Throwable ignored) {
+            // Private or otherwise inaccessible getters cannot be linked directly
+        }
+        return of(handle);
+    }
+
+    /**
+     * Creates a POJOAccessor for a member. The field must already be accessible.
+     *
+     * @param field The member.
+     * @return A POJOAccessor that reads the member.
+     * @throws IllegalAccessException if the field is not accessible.
+     */
+    static POJOAccessor of(Field field) throws IllegalAccessException {
+        return of(MethodHandles.lookup().unreflectGetter(field));
+    }
+
+    /**
+     * Creates a POJOAccessor from a handle that takes the POJO and returns the value.
+     *
+     * @param handle The {@link MethodHandle} to adapt.
+     * @return A POJOAccessor that invokes the handle.
+     */
+    static POJOAccessor of(MethodHandle handle) {
+        MethodHandle exact = handle.asType(GET_TYPE);
+        return pojo -> exact.invokeExact(pojo);
+    }
+}
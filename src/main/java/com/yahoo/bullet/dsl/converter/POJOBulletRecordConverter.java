@@ -10,7 +10,6 @@ import com.yahoo.bullet.dsl.BulletDSLConfig;
 import com.yahoo.bullet.dsl.BulletDSLException;
 import com.yahoo.bullet.dsl.schema.BulletRecordField;
 import com.yahoo.bullet.record.BulletRecord;
-import com.yahoo.bullet.typesystem.TypedObject;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -26,17 +25,19 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * POJOBulletRecordConverter is used to convert POJOs to {@link BulletRecord}.
  * <br><br>
  * If a schema is not specified, the POJOBulletRecordConverter constructed will convert all valid fields (with valid types)
- * and log a warning for each invalid field.
+ * and log a warning for each invalid field. The types of the values are then known from the declared types of the fields.
  * If a schema is specified, method names in addition to member names can be used in references.
  * <br><br>
- * Note, POJOBulletRecordConverter uses reflections and is relatively slow; specifying getters in the schema will
- * lead to slightly better performance. Furthermore, the converter only finds declared fields and methods and does not
- * look into superclasses or interfaces.
+ * Note, POJOBulletRecordConverter uses reflection to find fields and methods when it is built and generates a
+ * {@link POJOAccessor} for each of them, so no reflective calls are made while converting. Getters accessible from this
+ * package are called directly. Furthermore, the converter only finds declared fields and methods and does not look into
+ * superclasses or interfaces.
  */
 @Slf4j
 public class POJOBulletRecordConverter extends BulletRecordConverter {
@@ -47,6 +48,10 @@ public class POJOBulletRecordConverter extends BulletRecordConverter {
     // Exposed for testing
     @Getter(AccessLevel.PACKAGE)
     private Map<String, Pair<Method, Field>> accessors = new HashMap<>();
+    private transient Map<String, POJOAccessor> getters = new HashMap<>();
+    private transient String[] names;
+    private transient POJOAccessor[] values;
+    private transient com.yahoo.bullet.typesystem.Type[] types;
     private Class<?> pojoType;
 
     /**
@@ -101,14 +106,41 @@ public class POJOBulletRecordConverter extends BulletRecordConverter {
         } else {
             initWithoutSchema();
         }
+        initGetters();
         return this;
     }
 
+    /**
+     * Helper function that generates a {@link POJOAccessor} for each field/getter accessor found.
+     */
+    private void initGetters() throws BulletDSLException {
+        names = new String[accessors.size()];
+        values = new POJOAccessor[accessors.size()];
+        types = new com.yahoo.bullet.typesystem.Type[accessors.size()];
+        int i = 0;
+        for (Map.Entry<String, Pair<Method, Field>> entry : accessors.entrySet()) {
+            Pair<Method, Field> accessor = entry.getValue();
+            try {
+                POJOAccessor getter = accessor.getKey() != null ? POJOAccessor.of(accessor.getKey()) : POJOAccessor.of(accessor.getValue());
+                getters.put(entry.getKey(), getter);
+                names[i] = entry.getKey();
+                values[i] = getter;
+                // Only used without a schema, where all the accessors are fields with valid types
+                if (schema == null) {
+                    types[i] = toType(accessor.getValue().getGenericType());
+                }
+                i++;
+            } catch (IllegalAccessException e) {
+                throw new BulletDSLException("Could not generate accessor for: " + entry.getKey(), e);
+            }
+        }
+    }
+
     /**
      * Helper function that sets the field/getter accessors for the POJO of this converter with a schema.
      */
     private void initWithSchema() throws BulletDSLException {
-        for (BulletRecordField field : schema.getFields()) {
+        for (BulletRecordField field : getPlan().getFields()) {
             String[] token = field.getToken();
             if (!setMethodAccessor(token, field) && !setFieldAccessor(token, field)) {
                 throw new BulletDSLException("Accessor for field not found: " + field);
@@ -169,36 +201,59 @@ public class POJOBulletRecordConverter extends BulletRecordConverter {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public BulletRecord convert(Object object, BulletRecord record) throws BulletDSLException {
+        return convert(object, record, getProjection());
+    }
+
+    @Override
+    BulletRecord convert(Object object, BulletRecord record, Projection current) throws BulletDSLException {
         if (!pojoType.isInstance(object)) {
             throw new BulletDSLException("Object is not of type: " + pojoType);
         }
         if (schema != null) {
-            return super.convert(object, record);
+            return convertFields(object, record, current);
         }
         // no bullet dsl schema
-        accessors.forEach(
-            (name, accessor) -> {
-                try {
-                    Serializable value = (Serializable) accessor.getValue().get(object);
-                    if (value != null) {
-                        record.typedSet(name, new TypedObject(value));
-                    }
-                } catch (IllegalAccessException ignored) {
-                }
+        Set<String> required = current.getRequired();
+        for (int i = 0; i < names.length; i++) {
+            if (!isRequired(required, names[i])) {
+                continue;
             }
-        );
+            Serializable value = (Serializable) read(values[i], object);
+            if (value != null) {
+                setValue(record, names[i], types[i], value);
+            }
+        }
         return record;
     }
 
+    @Override
+    protected Object getLazySource(Object object) throws BulletDSLException {
+        if (!pojoType.isInstance(object)) {
+            throw new BulletDSLException("Object is not of type: " + pojoType);
+        }
+        return object;
+    }
+
     @Override
     protected Object get(Object object, String base) {
+        return read(getters.get(base), object);
+    }
+
+    @Override
+    protected Object get(Object object, ExtractionPlan.Node node) {
+        POJOAccessor getter = (POJOAccessor) node.getState();
+        if (getter == null) {
+            getter = getters.get(node.getKey());
+            node.setState(getter);
+        }
+        return read(getter, object);
+    }
+
+    private static Object read(POJOAccessor getter, Object object) {
         try {
-            Pair<Method, Field> accessor = accessors.get(base);
-            Method m = accessor.getKey();
-            return m != null ? m.invoke(object) : accessor.getValue().get(object);
-        } catch (Exception e) {
+            return getter.get(object);
+        } catch (Throwable t) {
             return null;
         }
     }
@@ -293,6 +348,29 @@ public class POJOBulletRecordConverter extends BulletRecordConverter {
         return false;
     }
 
+    /**
+     * Helper function that gets the {@link com.yahoo.bullet.typesystem.Type} of the values of a field with a valid type.
+     *
+     * @param type The generic type of the field.
+     * @return The {@link com.yahoo.bullet.typesystem.Type} of its values.
+     */
+    private static com.yahoo.bullet.typesystem.Type toType(Type type) {
+        if (type instanceof Class) {
+            for (com.yahoo.bullet.typesystem.Type primitive : com.yahoo.bullet.typesystem.Type.PRIMITIVES) {
+                if (primitive.getUnderlyingClass() == type) {
+                    return primitive;
+                }
+            }
+            return null;
+        }
+        ParameterizedType pt = (ParameterizedType) type;
+        Type[] arguments = pt.getActualTypeArguments();
+        if (Map.class.isAssignableFrom((Class) pt.getRawType())) {
+            return getContainerType(com.yahoo.bullet.typesystem.Type.MAPS, toType(arguments[1]));
+        }
+        return getContainerType(com.yahoo.bullet.typesystem.Type.LISTS, toType(arguments[0]));
+    }
+
     /**
      * Helper function that checks if type is a valid inner type.
      *
@@ -0,0 +1,308 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.converter;
+
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.dsl.BulletDSLException;
+import com.yahoo.bullet.dsl.connector.ConnectorRecord;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A RecordFilter decides whether an object is converted at all from the values of a few references in the object,
+ * before a record is built for it. It is configured with a list of predicates and an object is only converted if all
+ * of them match. A predicate is a map with a <code>reference</code>, in the same syntax as the references of a
+ * {@link com.yahoo.bullet.dsl.schema.BulletRecordSchema}, and one of:
+ * <ul>
+ *     <li><code>equals</code>: The value must be equal to the given value.</li>
+ *     <li><code>in</code>: The value must be equal to one of the given values.</li>
+ *     <li><code>min</code> and/or <code>max</code>: The value must be between the given inclusive bounds.</li>
+ *     <li><code>exists</code>: The value must exist if true and must not exist if false.</li>
+ * </ul>
+ * Numbers are compared by value whatever their types. Strings are compared to any {@link CharSequence}, e.g. the Avro
+ * Utf8, and to the names of enum symbols. Except for <code>exists</code>, a predicate does not match a missing value.
+ */
+public class RecordFilter implements Serializable {
+
+    private static final long serialVersionUID = -2735913608316044658L;
+
+    public static final String REFERENCE = "reference";
+    public static final String EQUALS = "equals";
+    public static final String IN = "in";
+    public static final String MIN = "min";
+    public static final String MAX = "max";
+    public static final String EXISTS = "exists";
+
+    private static final String DELIMITER = ".";
+    private static final String AVRO_ENUM_SYMBOL = "org.apache.avro.generic.GenericEnumSymbol";
+
+    /**
+     * A condition on the value of a single reference.
+     */
+    private abstract static class Predicate implements Serializable {
+        private static final long serialVersionUID = 8208574930718843206L;
+
+        /**
+         * Checks the normalized value of the reference.
+         *
+         * @param value The normalized value or null if the reference does not exist.
+         * @return True if the value matches.
+         */
+        abstract boolean test(Object value);
+    }
+
+    private static class Equality extends Predicate {
+        private static final long serialVersionUID = -6209880431569047113L;
+
+        private final Set<Object> values;
+
+        private Equality(Set<Object> values) {
+            this.values = values;
+        }
+
+        @Override
+        boolean test(Object value) {
+            return value != null && values.contains(value);
+        }
+    }
+
+    private static class Range extends Predicate {
+        private static final long serialVersionUID = 4520436924004916287L;
+
+        private final Object min;
+        private final Object max;
+
+        private Range(Object min, Object max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        boolean test(Object value) {
+            if (value == null) {
+                return false;
+            }
+            return (min == null || isComparable(value, min) && compare(value, min) >= 0) &&
+                   (max == null || isComparable(value, max) && compare(value, max) <= 0);
+        }
+    }
+
+    private static class Existence extends Predicate {
+        private static final long serialVersionUID = 2918632745811093461L;
+
+        private final boolean exists;
+
+        private Existence(boolean exists) {
+            this.exists = exists;
+        }
+
+        @Override
+        boolean test(Object value) {
+            return (value != null) == exists;
+        }
+    }
+
+    @Getter
+    private final List<String> references;
+    @Getter(AccessLevel.PACKAGE)
+    private final ExtractionPlan plan;
+    private final Predicate[] predicates;
+
+    /**
+     * Constructor that takes the configured predicates.
+     *
+     * @param predicates The list of predicates. Each one is a {@link Map} as described in {@link RecordFilter}.
+     * @throws BulletDSLException if a predicate is not valid.
+     */
+    public RecordFilter(List<?> predicates) throws BulletDSLException {
+        references = new ArrayList<>();
+        this.predicates = new Predicate[predicates.size()];
+        for (int i = 0; i < this.predicates.length; i++) {
+            Object predicate = predicates.get(i);
+            if (!(predicate instanceof Map)) {
+                throw new BulletDSLException("A filter predicate must be a map: " + predicate);
+            }
+            Map<?, ?> map = (Map<?, ?>) predicate;
+            references.add(getReference(map));
+            this.predicates[i] = toPredicate(map);
+        }
+        plan = new ExtractionPlan(Collections.emptyList(), references);
+    }
+
+    /**
+     * Creates the RecordFilter configured in the given configuration if there is one.
+     *
+     * @param config The configuration that has the filter predicates.
+     * @return The configured RecordFilter or null if no predicates are configured.
+     * @throws BulletDSLException if a predicate is not valid.
+     */
+    public static RecordFilter from(BulletDSLConfig config) throws BulletDSLException {
+        List<?> predicates = config.getAs(BulletDSLConfig.FILTER_PREDICATES, List.class);
+        return predicates == null || predicates.isEmpty() ? null : new RecordFilter(predicates);
+    }
+
+    /**
+     * Checks if an object passes the filter by extracting the values of the references from it.
+     *
+     * @param converter The {@link BulletRecordConverter} used to access the object.
+     * @param object The object to check.
+     * @return True if all the predicates match.
+     */
+    public boolean test(BulletRecordConverter converter, Object object) {
+        return test(plan.extract(converter, object), 0);
+    }
+
+    /**
+     * Checks if already extracted values pass the filter, e.g. the values extracted by an {@link ExtractionPlan} with the
+     * references of this filter. Values that could not be extracted are considered missing.
+     *
+     * @param values The extracted values.
+     * @param offset The index of the value of the first reference of this filter.
+     * @return True if all the predicates match.
+     */
+    public boolean test(Object[] values, int offset) {
+        for (int i = 0; i < predicates.length; i++) {
+            if (!predicates[i].test(normalize(values[offset + i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getReference(Map<?, ?> predicate) throws BulletDSLException {
+        Object reference = predicate.get(REFERENCE);
+        if (!(reference instanceof String) || ((String) reference).isEmpty()) {
+            throw new BulletDSLException("A filter predicate must have a reference: " + predicate);
+        }
+        String asString = (String) reference;
+        if (asString.startsWith(DELIMITER) || asString.endsWith(DELIMITER)) {
+            throw new BulletDSLException("The reference of a filter predicate cannot have trailing delimiters: " + predicate);
+        }
+        if (asString.startsWith(ConnectorRecord.METADATA_PREFIX)) {
+            throw new BulletDSLException("The reference of a filter predicate cannot be metadata: " + predicate);
+        }
+        return asString;
+    }
+
+    private static Predicate toPredicate(Map<?, ?> predicate) throws BulletDSLException {
+        boolean hasEquals = predicate.containsKey(EQUALS);
+        boolean hasIn = predicate.containsKey(IN);
+        boolean hasRange = predicate.containsKey(MIN) || predicate.containsKey(MAX);
+        boolean hasExists = predicate.containsKey(EXISTS);
+        if ((hasEquals ? 1 : 0) + (hasIn ? 1 : 0) + (hasRange ? 1 : 0) + (hasExists ? 1 : 0) != 1) {
+            throw new BulletDSLException("A filter predicate must have exactly one of equals, in, min and max, or exists: " + predicate);
+        }
+        if (hasEquals) {
+            return new Equality(Collections.singleton(toConstant(predicate.get(EQUALS), predicate)));
+        }
+        if (hasIn) {
+            Object values = predicate.get(IN);
+            if (!(values instanceof List) || ((List<?>) values).isEmpty()) {
+                throw new BulletDSLException("The values of a filter predicate must be a non-empty list: " + predicate);
+            }
+            Set<Object> constants = new HashSet<>();
+            for (Object value : (List<?>) values) {
+                constants.add(toConstant(value, predicate));
+            }
+            return new Equality(constants);
+        }
+        if (hasRange) {
+            Object min = toBound(predicate.get(MIN), predicate);
+            Object max = toBound(predicate.get(MAX), predicate);
+            if (min != null && max != null && !isComparable(min, max)) {
+                throw new BulletDSLException("The bounds of a filter predicate must both be numbers or strings: " + predicate);
+            }
+            return new Range(min, max);
+        }
+        Object exists = predicate.get(EXISTS);
+        if (!(exists instanceof Boolean)) {
+            throw new BulletDSLException("The exists of a filter predicate must be a boolean: " + predicate);
+        }
+        return new Existence((Boolean) exists);
+    }
+
+    private static Object toConstant(Object value, Map<?, ?> predicate) throws BulletDSLException {
+        if (!(value instanceof String || value instanceof Number || value instanceof Boolean)) {
+            throw new BulletDSLException("The values of a filter predicate must be strings, numbers or booleans: " + predicate);
+        }
+        return normalize(value);
+    }
+
+    private static Object toBound(Object value, Map<?, ?> predicate) throws BulletDSLException {
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof String || value instanceof Number)) {
+            throw new BulletDSLException("The bounds of a filter predicate must be strings or numbers: " + predicate);
+        }
+        return normalize(value);
+    }
+
+    /**
+     * Normalizes a value so that equal values are equal objects: integral numbers become a {@link Long}, other numbers
+     * a {@link Double} unless they are integral, and character sequences and enum symbols a {@link String}. Values that
+     * could not be extracted become null.
+     */
+    private static Object normalize(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean) {
+            return value;
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double asDouble = ((Number) value).doubleValue();
+            long asLong = (long) asDouble;
+            return asLong == asDouble ? (Object) asLong : (Object) asDouble;
+        }
+        if (value instanceof CharSequence) {
+            return value.toString();
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        if (value instanceof ExtractionPlan.Failure) {
+            return null;
+        }
+        return isEnumSymbol(value.getClass()) ? value.toString() : value;
+    }
+
+    /**
+     * Checks the names of the interfaces, so that Avro, which is a provided dependency, does not need to be present.
+     */
+    private static boolean isEnumSymbol(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Class<?> implemented : current.getInterfaces()) {
+                if (AVRO_ENUM_SYMBOL.equals(implemented.getName()) || isEnumSymbol(implemented)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isComparable(Object value, Object bound) {
+        return value instanceof String ? bound instanceof String : value instanceof Number && bound instanceof Number;
+    }
+
+    private static int compare(Object value, Object bound) {
+        if (value instanceof String) {
+            return ((String) value).compareTo((String) bound);
+        }
+        if (value instanceof Long && bound instanceof Long) {
+            return Long.compare((Long) value, (Long) bound);
+        }
+        return Double.compare(((Number) value).doubleValue(), ((Number) bound).doubleValue());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.converter;
+
+import com.yahoo.bullet.typesystem.Type;
+
+import java.io.Serializable;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TypeValidator checks that a value has the shape of a {@link Type}, i.e. that it is an instance of the underlying class
+ * of a primitive type or a {@link Map} with {@link String} keys or a {@link List} whose entries are of the sub-type.
+ * Unlike inferring the type of the value with a {@link com.yahoo.bullet.typesystem.TypedObject}, it does not allocate
+ * and stops at the first entry that does not match.
+ * <br><br>
+ * Null entries are skipped. If a sample size is given, only up to that many entries of each list or map are checked.
+ */
+public class TypeValidator implements Serializable {
+
+    private static final long serialVersionUID = 3329107618416387290L;
+
+    private final Class<?> primitive;
+    private final boolean isMap;
+    private final boolean isList;
+    private final boolean isNested;
+    private final int sampleSize;
+
+    /**
+     * Constructor that takes the {@link Type} to check for and the number of entries to check in each container.
+     *
+     * @param type The {@link Type} to check for. Must be a primitive type or a map or list of them.
+     * @param sampleSize The maximum number of entries of each list or map to check. 0 checks every entry.
+     */
+    public TypeValidator(Type type, int sampleSize) {
+        primitive = getPrimitiveType(type).getUnderlyingClass();
+        isMap = Type.isMap(type);
+        isList = Type.isList(type);
+        isNested = Type.isComplexMap(type) || Type.isComplexList(type);
+        this.sampleSize = sampleSize > 0 ? sampleSize : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Creates a TypeValidator for each primitive {@link Type} and each map and list of them. Types such as
+     * {@link Type#UNKNOWN_MAP} do not have a TypeValidator.
+     *
+     * @param sampleSize The maximum number of entries of each list or map to check. 0 checks every entry.
+     * @return A {@link Map} of each {@link Type} to its TypeValidator.
+     */
+    public static Map<Type, TypeValidator> forAllTypes(int sampleSize) {
+        Map<Type, TypeValidator> validators = new EnumMap<>(Type.class);
+        for (Type type : Type.ACTUAL_TYPES) {
+            if (Type.isPrimitive(getPrimitiveType(type))) {
+                validators.put(type, new TypeValidator(type, sampleSize));
+            }
+        }
+        return validators;
+    }
+
+    /**
+     * Checks if the given value has the shape of the type of this validator.
+     *
+     * @param value The non-null value to check.
+     * @return True if the value matches the type.
+     */
+    public boolean isValid(Object value) {
+        if (isMap) {
+            return value instanceof Map && isValidMap((Map<?, ?>) value, isNested);
+        }
+        if (isList) {
+            return value instanceof List && isValidList((List<?>) value);
+        }
+        return primitive.isInstance(value);
+    }
+
+    private static Type getPrimitiveType(Type type) {
+        Type primitive = type;
+        while (primitive.getSubType() != null) {
+            primitive = primitive.getSubType();
+        }
+        return primitive;
+    }
+
+    private boolean isValidList(List<?> list) {
+        int remaining = sampleSize;
+        for (Iterator<?> iterator = list.iterator(); iterator.hasNext() && remaining > 0; remaining--) {
+            if (!isValidEntry(iterator.next(), isNested)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isValidMap(Map<?, ?> map, boolean nested) {
+        int remaining = sampleSize;
+        for (Iterator<? extends Map.Entry<?, ?>> iterator = map.entrySet().iterator(); iterator.hasNext() && remaining > 0; remaining--) {
+            Map.Entry<?, ?> entry = iterator.next();
+            if (!(entry.getKey() instanceof String) || !isValidEntry(entry.getValue(), nested)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isValidEntry(Object entry, boolean nested) {
+        if (entry == null) {
+            return true;
+        }
+        if (nested) {
+            return entry instanceof Map && isValidMap((Map<?, ?>) entry, false);
+        }
+        return primitive.isInstance(entry);
+    }
+}
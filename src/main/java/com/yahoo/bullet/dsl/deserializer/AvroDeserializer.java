@@ -8,23 +8,38 @@ package com.yahoo.bullet.dsl.deserializer;
 import com.yahoo.bullet.common.BulletConfig;
 import com.yahoo.bullet.dsl.BulletDSLConfig;
 import com.yahoo.bullet.dsl.BulletDSLException;
+import com.yahoo.bullet.dsl.connector.ConnectorRecord;
+import com.yahoo.bullet.dsl.converter.RecordFilter;
+import com.yahoo.bullet.dsl.schema.BulletRecordField;
+import com.yahoo.bullet.dsl.schema.BulletRecordSchema;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.util.ByteBufferInputStream;
 
-import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 
 /**
- * A {@link BulletDeserializer} that uses Avro deserialization.
+ * A {@link BulletDeserializer} that uses Avro deserialization. It accepts either a byte[] or a {@link ByteBuffer}. Both
+ * are decoded in place without copying the message.
+ * <br><br>
+ * If projection is enabled, the records are decoded with a reader schema that only has the fields referenced by the
+ * {@link BulletRecordSchema} of the converter. The other fields are skipped by the decoder instead of being materialized.
+ * Records, and unions of them, are pruned to the referenced fields; any other referenced field is decoded whole.
  */
 public class AvroDeserializer extends BulletDeserializer {
 
     private static final long serialVersionUID = 4832970047084142383L;
     private DatumReader<GenericRecord> reader;
     private BinaryDecoder decoder;
+    private boolean project;
 
     /**
      * Constructs an AvroDeserializer from a given configuration.
@@ -33,13 +48,111 @@ public class AvroDeserializer extends BulletDeserializer {
      */
     public AvroDeserializer(BulletConfig bulletConfig) {
         super(bulletConfig);
+        project = config.getAs(BulletDSLConfig.DESERIALIZER_AVRO_PROJECTION_ENABLE, Boolean.class);
+    }
+
+    /**
+     * The referenced paths below a field, keyed by the name of the next field in the path. An empty path means the whole
+     * field is referenced.
+     */
+    private static class Path extends HashMap<String, Path> {
+        private static final long serialVersionUID = -3307781392216014433L;
     }
 
     private void initialize() throws BulletDSLException {
         String schemaFile = config.getAs(BulletDSLConfig.DESERIALIZER_AVRO_SCHEMA_FILE, String.class);
         String className = config.getAs(BulletDSLConfig.DESERIALIZER_AVRO_CLASS_NAME, String.class);
         Schema schema = schemaFile != null ? new Schema.Parser().parse(schemaFile) : getSchemaFromClassName(className);
-        reader = new GenericDatumReader<>(schema);
+        if (project) {
+            String bulletSchemaFile = config.getAs(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, String.class);
+            RecordFilter filter = RecordFilter.from(config);
+            List<String> references = filter != null ? filter.getReferences() : Collections.emptyList();
+            reader = new GenericDatumReader<>(schema, project(schema, BulletRecordSchema.from(bulletSchemaFile).getFields(), references));
+        } else {
+            reader = new GenericDatumReader<>(schema);
+        }
+    }
+
+    /**
+     * Creates a reader schema that only has the fields of the given writer schema referenced by the given fields.
+     * References to metadata and to fields that do not exist are ignored.
+     *
+     * @param schema The writer {@link Schema} of the records.
+     * @param fields The {@link BulletRecordField} referencing the fields to keep.
+     * @return The reader {@link Schema} to decode the records with.
+     */
+    static Schema project(Schema schema, List<BulletRecordField> fields) {
+        return project(schema, fields, Collections.emptyList());
+    }
+
+    /**
+     * Creates a reader schema that only has the fields of the given writer schema referenced by the given fields or by
+     * the given additional references, e.g. the references of the filter of the converter.
+     *
+     * @param schema The writer {@link Schema} of the records.
+     * @param fields The {@link BulletRecordField} referencing the fields to keep.
+     * @param references The additional references to the fields to keep.
+     * @return The reader {@link Schema} to decode the records with.
+     */
+    static Schema project(Schema schema, List<BulletRecordField> fields, List<String> references) {
+        Path root = new Path();
+        for (BulletRecordField field : fields) {
+            String[] token = field.getToken();
+            if (!token[0].startsWith(ConnectorRecord.METADATA_PREFIX)) {
+                addPath(root, token);
+            }
+        }
+        for (String reference : references) {
+            addPath(root, BulletRecordField.toToken(reference));
+        }
+        return project(schema, root);
+    }
+
+    private static void addPath(Path root, String[] token) {
+        Path path = root;
+        int last = token.length - 1;
+        for (int i = 0; i < last; i++) {
+            Path child = path.get(token[i]);
+            if (child == null) {
+                child = new Path();
+                path.put(token[i], child);
+            } else if (child.isEmpty()) {
+                // The whole field is already referenced
+                return;
+            }
+            path = child;
+        }
+        path.put(token[last], new Path());
+    }
+
+    private static Schema project(Schema schema, Path path) {
+        if (path.isEmpty()) {
+            return schema;
+        }
+        switch (schema.getType()) {
+            case RECORD:
+                return projectRecord(schema, path);
+            case UNION:
+                List<Schema> types = new ArrayList<>();
+                for (Schema type : schema.getTypes()) {
+                    types.add(project(type, path));
+                }
+                return Schema.createUnion(types);
+        }
+        return schema;
+    }
+
+    private static Schema projectRecord(Schema schema, Path path) {
+        List<Schema.Field> fields = new ArrayList<>();
+        for (Schema.Field field : schema.getFields()) {
+            Path child = path.get(field.name());
+            if (child != null) {
+                fields.add(new Schema.Field(field, project(field.schema(), child)));
+            }
+        }
+        Schema projected = Schema.createRecord(schema.getName(), schema.getDoc(), schema.getNamespace(), schema.isError(), fields);
+        schema.getAliases().forEach(projected::addAlias);
+        return projected;
     }
 
     @Override
@@ -47,12 +160,28 @@ public class AvroDeserializer extends BulletDeserializer {
         if (reader == null) {
             initialize();
         }
-        return deserialize((byte[]) object);
+        if (object instanceof ByteBuffer) {
+            return deserialize((ByteBuffer) object);
+        }
+        if (object instanceof ConnectorRecord) {
+            return deserializeValue((ConnectorRecord) object);
+        }
+        byte[] bytes = (byte[]) object;
+        decoder = DecoderFactory.get().binaryDecoder(bytes, 0, bytes.length, decoder);
+        return read();
+    }
+
+    private GenericRecord deserialize(ByteBuffer buffer) throws BulletDSLException {
+        if (buffer.hasArray()) {
+            decoder = DecoderFactory.get().binaryDecoder(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), decoder);
+        } else {
+            ByteBufferInputStream inputStream = new ByteBufferInputStream(Collections.singletonList(buffer.duplicate()));
+            decoder = DecoderFactory.get().binaryDecoder(inputStream, decoder);
+        }
+        return read();
     }
 
-    private GenericRecord deserialize(byte[] bytes) throws BulletDSLException {
-        ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
-        decoder = DecoderFactory.get().binaryDecoder(inputStream, decoder);
+    private GenericRecord read() throws BulletDSLException {
         try {
             return reader.read(null, decoder);
         } catch (Exception e) {
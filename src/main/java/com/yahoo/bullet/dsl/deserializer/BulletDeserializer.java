@@ -8,12 +8,16 @@ package com.yahoo.bullet.dsl.deserializer;
 import com.yahoo.bullet.common.BulletConfig;
 import com.yahoo.bullet.dsl.BulletDSLConfig;
 import com.yahoo.bullet.dsl.BulletDSLException;
+import com.yahoo.bullet.dsl.connector.ConnectorRecord;
 
 import java.io.Serializable;
 
 /**
  * A BulletDeserializer is used to deserialize or transform output from a BulletConnector into input for a BulletRecordConverter, e.g.
  * from byte arrays to maps. Deserializers should extend this class and expect configuration though {@link BulletDSLConfig}.
+ * <br><br>
+ * If the connector keeps the metadata of its messages, the objects are {@link ConnectorRecord} instances. Deserializers
+ * should then deserialize the value in place with {@link #deserializeValue(ConnectorRecord)} so the metadata is kept.
  */
 public abstract class BulletDeserializer implements Serializable {
 
@@ -38,6 +42,18 @@ public abstract class BulletDeserializer implements Serializable {
      */
     public abstract Object deserialize(Object object) throws BulletDSLException;
 
+    /**
+     * Deserializes the value of a {@link ConnectorRecord} and replaces it in the record.
+     *
+     * @param record The record whose value to deserialize.
+     * @return The same record with the deserialized value.
+     * @throws BulletDSLException if there is a deserialization error.
+     */
+    protected ConnectorRecord deserializeValue(ConnectorRecord record) throws BulletDSLException {
+        record.setValue(deserialize(record.getValue()));
+        return record;
+    }
+
     /**
      * Creates a BulletDeserializer instance using the specified class.
      *
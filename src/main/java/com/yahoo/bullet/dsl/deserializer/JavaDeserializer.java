@@ -7,9 +7,17 @@ package com.yahoo.bullet.dsl.deserializer;
 
 import com.yahoo.bullet.common.BulletConfig;
 import com.yahoo.bullet.common.SerializerDeserializer;
+import com.yahoo.bullet.dsl.BulletDSLException;
+import com.yahoo.bullet.dsl.connector.ConnectorRecord;
+
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
 
 /**
- * A {@link BulletDeserializer} that uses Java deserialization.
+ * A {@link BulletDeserializer} that uses Java deserialization. It accepts either a byte[] or a {@link ByteBuffer}. A
+ * ByteBuffer is read through a stream over the buffer without copying it, e.g. the values of a Kafka consumer with a
+ * ByteBufferDeserializer.
  */
 public class JavaDeserializer extends BulletDeserializer {
 
@@ -25,7 +33,56 @@ public class JavaDeserializer extends BulletDeserializer {
     }
 
     @Override
-    public Object deserialize(Object object) {
+    public Object deserialize(Object object) throws BulletDSLException {
+        if (object instanceof ConnectorRecord) {
+            return deserializeValue((ConnectorRecord) object);
+        }
+        if (object instanceof ByteBuffer) {
+            return deserialize((ByteBuffer) object);
+        }
         return SerializerDeserializer.fromBytes((byte[]) object);
     }
+
+    private Object deserialize(ByteBuffer buffer) throws BulletDSLException {
+        // Reads a duplicate to leave the position of the buffer alone. The stream holds no resources so it is not closed
+        try {
+            return new ObjectInputStream(new BufferInputStream(buffer.duplicate())).readObject();
+        } catch (Exception e) {
+            throw new BulletDSLException("Could not deserialize the buffer.", e);
+        }
+    }
+
+    /**
+     * An {@link InputStream} that reads the remaining bytes of a {@link ByteBuffer}.
+     */
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.sampler;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An AdaptiveSampler keeps each object independently with the probability needed to keep the configured number of
+ * objects per second. The rate objects are read at is measured over windows of the configured duration and the rate
+ * objects are kept at is updated at the end of each window from the rate they were read at during it. All the objects
+ * are kept while they are read slower than the target, including during the first window.
+ */
+public class AdaptiveSampler extends BulletSampler {
+
+    private static final long serialVersionUID = -1873209914735406428L;
+
+    private final double target;
+    private final long window;
+
+    private boolean started = false;
+    private long windowStart;
+    private long windowCount;
+    private double currentRate = 1.0;
+
+    /**
+     * Constructs an AdaptiveSampler from the given configuration.
+     *
+     * @param bulletConfig The configuration that specifies the settings for this sampler.
+     */
+    public AdaptiveSampler(BulletConfig bulletConfig) {
+        super(bulletConfig);
+        target = config.getAs(BulletDSLConfig.SAMPLER_ADAPTIVE_RECORDS_PER_SECOND, Number.class).doubleValue();
+        long windowMs = config.getAs(BulletDSLConfig.SAMPLER_ADAPTIVE_WINDOW_MS, Number.class).longValue();
+        window = TimeUnit.MILLISECONDS.toNanos(windowMs);
+    }
+
+    @Override
+    protected double nextRate(int size) {
+        long now = now();
+        if (!started) {
+            started = true;
+            windowStart = now;
+        }
+        long elapsed = now - windowStart;
+        if (elapsed >= window) {
+            double observed = windowCount * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+            currentRate = observed <= target ? 1.0 : target / observed;
+            windowStart = now;
+            windowCount = 0;
+        }
+        windowCount += size;
+        return currentRate;
+    }
+
+    @Override
+    protected boolean keep(Object object, double rate) {
+        return ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    /**
+     * Gets the current time. Exposed for testing.
+     *
+     * @return The current time in nanoseconds.
+     */
+    long now() {
+        return System.nanoTime();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.sampler;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.record.BulletRecord;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A BulletSampler drops part of the objects read by a BulletConnector before they are deserialized and converted, so
+ * that the objects that are dropped cost nothing more than being read. Samplers should extend this class and expect
+ * configuration though {@link BulletDSLConfig}.
+ * <br><br>
+ * Each batch is sampled at a single rate, i.e. the expected fraction of its objects that are kept. The rate can be set
+ * as a field on the records converted from the batch with {@link #annotate(List, double)}, so queries can scale counts
+ * and sums by its inverse.
+ * <br><br>
+ * A BulletSampler is not thread-safe. It is meant to be called by the thread reading from the connector.
+ */
+public abstract class BulletSampler implements Serializable {
+
+    private static final long serialVersionUID = 5190627340135274216L;
+
+    protected BulletDSLConfig config;
+
+    /**
+     * The name of the field set to the sampling rate.
+     */
+    @Getter
+    private final String rateField;
+
+    /**
+     * The rate that the last batch was sampled at.
+     */
+    @Getter
+    private double rate = 1.0;
+
+    /**
+     * Constructor that takes a configuration containing the settings relevant for this sampler.
+     *
+     * @param bulletConfig The {@link BulletConfig} to use.
+     */
+    public BulletSampler(BulletConfig bulletConfig) {
+        this.config = new BulletDSLConfig(bulletConfig);
+        this.rateField = config.getAs(BulletDSLConfig.SAMPLER_RATE_FIELD, String.class);
+    }
+
+    /**
+     * Samples a batch of objects. The rate it was sampled at is then returned by getRate().
+     *
+     * @param objects The batch of objects read by a connector.
+     * @return The objects that are kept. This is the given list itself if all of them are kept.
+     */
+    public List<Object> sample(List<Object> objects) {
+        rate = nextRate(objects.size());
+        if (rate >= 1.0) {
+            return objects;
+        }
+        List<Object> sampled = new ArrayList<>((int) (objects.size() * rate) + 1);
+        for (Object object : objects) {
+            if (keep(object, rate)) {
+                sampled.add(object);
+            }
+        }
+        return sampled;
+    }
+
+    /**
+     * Sets the field for the sampling rate on the given records.
+     *
+     * @param records The records converted from a sampled batch.
+     * @param rate The rate the batch was sampled at.
+     * @return The given records.
+     */
+    public List<BulletRecord> annotate(List<BulletRecord> records, double rate) {
+        for (BulletRecord record : records) {
+            record.setDouble(rateField, rate);
+        }
+        return records;
+    }
+
+    /**
+     * Gets the rate to sample the next batch at.
+     *
+     * @param size The number of objects in the next batch.
+     * @return The rate in (0, 1].
+     */
+    protected abstract double nextRate(int size);
+
+    /**
+     * Decides whether to keep an object of a batch.
+     *
+     * @param object The object, which may be a {@link com.yahoo.bullet.dsl.connector.ConnectorRecord}.
+     * @param rate The rate the batch is sampled at.
+     * @return True if the object is kept.
+     */
+    protected abstract boolean keep(Object object, double rate);
+
+    /**
+     * Creates a BulletSampler instance using the specified class.
+     *
+     * @param config The configuration containing the BulletSampler class name and other relevant settings.
+     * @return A new instance of the specified BulletSampler class.
+     */
+    public static BulletSampler from(BulletDSLConfig config) {
+        return config.loadConfiguredClass(BulletDSLConfig.SAMPLER_CLASS_NAME);
+    }
+}
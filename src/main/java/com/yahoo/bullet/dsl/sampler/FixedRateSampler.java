@@ -0,0 +1,41 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.sampler;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A FixedRateSampler keeps each object independently with the configured probability.
+ */
+public class FixedRateSampler extends BulletSampler {
+
+    private static final long serialVersionUID = -3361920846112350587L;
+
+    private final double fixedRate;
+
+    /**
+     * Constructs a FixedRateSampler from the given configuration.
+     *
+     * @param bulletConfig The configuration that specifies the settings for this sampler.
+     */
+    public FixedRateSampler(BulletConfig bulletConfig) {
+        super(bulletConfig);
+        fixedRate = config.getAs(BulletDSLConfig.SAMPLER_RATE, Number.class).doubleValue();
+    }
+
+    @Override
+    protected double nextRate(int size) {
+        return fixedRate;
+    }
+
+    @Override
+    protected boolean keep(Object object, double rate) {
+        return ThreadLocalRandom.current().nextDouble() < rate;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.sampler;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.dsl.connector.ConnectorRecord;
+
+import java.util.Arrays;
+
+/**
+ * A KeyHashSampler keeps the objects whose key hashes below the configured rate. The key is the configured metadata of
+ * the {@link ConnectorRecord}, e.g. <code>$kafka.key</code>, or the value of the object if no metadata is configured.
+ * <br><br>
+ * Since the hash only depends on the key, all the objects with the same key are either kept or dropped, on every
+ * instance reading from the data source. This keeps sessions or users whole, e.g. for counting distinct values. Keys
+ * should be strings, byte arrays or numbers, whose hashes do not change across processes.
+ */
+public class KeyHashSampler extends BulletSampler {
+
+    private static final long serialVersionUID = 8746217750431826129L;
+    private static final double UNIT = 1.0 / (1L << 53);
+
+    private final double fixedRate;
+    private final String namespace;
+    private final String key;
+
+    /**
+     * Constructs a KeyHashSampler from the given configuration.
+     *
+     * @param bulletConfig The configuration that specifies the settings for this sampler.
+     */
+    public KeyHashSampler(BulletConfig bulletConfig) {
+        super(bulletConfig);
+        fixedRate = config.getAs(BulletDSLConfig.SAMPLER_RATE, Number.class).doubleValue();
+        String reference = config.getAs(BulletDSLConfig.SAMPLER_KEY_REFERENCE, String.class);
+        if (reference == null) {
+            namespace = null;
+            key = null;
+        } else {
+            int delimiter = reference.indexOf('.');
+            namespace = reference.substring(0, delimiter);
+            key = reference.substring(delimiter + 1);
+        }
+    }
+
+    @Override
+    protected double nextRate(int size) {
+        return fixedRate;
+    }
+
+    @Override
+    protected boolean keep(Object object, double rate) {
+        return toUnit(hash(getKey(object))) < rate;
+    }
+
+    private Object getKey(Object object) {
+        if (!(object instanceof ConnectorRecord)) {
+            return object;
+        }
+        ConnectorRecord record = (ConnectorRecord) object;
+        return namespace == null ? record.getValue() : record.getMetadata(namespace, key);
+    }
+
+    private static int hash(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        if (key instanceof byte[]) {
+            return Arrays.hashCode((byte[]) key);
+        }
+        if (key instanceof CharSequence) {
+            return key.toString().hashCode();
+        }
+        return key.hashCode();
+    }
+
+    /**
+     * Spreads a hash code uniformly over [0, 1) with the finalizer of MurmurHash3, so that similar keys, e.g. consecutive
+     * numbers, are not all kept or all dropped together.
+     */
+    private static double toUnit(int hash) {
+        long mixed = hash;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xff51afd7ed558ccdL;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xc4ceb9fe1a85ec53L;
+        mixed ^= mixed >>> 33;
+        return (mixed >>> 11) * UNIT;
+    }
+}
@@ -100,11 +100,21 @@ public class BulletRecordField implements Initializable, Serializable {
      */
     public String[] getToken() {
         if (token == null) {
-            token = reference.split(REGEX_DELIMITER);
+            token = toToken(reference);
         }
         return token;
     }
 
+    /**
+     * Delimits a reference as an array of tokens.
+     *
+     * @param reference The reference to delimit.
+     * @return The reference delimited as an array of tokens.
+     */
+    public static String[] toToken(String reference) {
+        return reference.split(REGEX_DELIMITER);
+    }
+
     @Override
     public String toString() {
         return "{name: " + name + ", reference: " + reference + ", type: " + type + "}";
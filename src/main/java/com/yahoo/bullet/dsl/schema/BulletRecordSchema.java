@@ -5,12 +5,19 @@
  */
 package com.yahoo.bullet.dsl.schema;
 
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
 import com.yahoo.bullet.common.BulletError;
 import com.yahoo.bullet.common.Initializable;
+import com.yahoo.bullet.dsl.BulletDSLException;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -39,6 +46,27 @@ public class BulletRecordSchema implements Initializable, Serializable {
         fields = null;
     }
 
+    /**
+     * Reads a BulletRecordSchema from a json file and initializes it. The file is looked up as a resource first.
+     *
+     * @param file The path to the schema file.
+     * @return The initialized BulletRecordSchema.
+     * @throws BulletDSLException if the file could not be read or the schema is not valid.
+     */
+    public static BulletRecordSchema from(String file) throws BulletDSLException {
+        BulletRecordSchema schema;
+        try (JsonReader reader = getJsonReader(file)) {
+            schema = new Gson().fromJson(reader, BulletRecordSchema.class);
+        } catch (Exception e) {
+            throw new BulletDSLException("Could not read or parse the schema file: " + file, e);
+        }
+        Optional<List<BulletError>> errors = schema.initialize();
+        if (errors.isPresent()) {
+            throw new BulletDSLException(errors.get().toString());
+        }
+        return schema;
+    }
+
     @Override
     public Optional<List<BulletError>> initialize() {
         if (fields == null || fields.isEmpty()) {
@@ -53,4 +81,19 @@ public class BulletRecordSchema implements Initializable, Serializable {
         fields.forEach(f -> f.initialize().ifPresent(errors::addAll));
         return errors.isEmpty() ? Optional.empty() : Optional.of(errors);
     }
+
+    /**
+     * Creates a {@link JsonReader} from a file name or path.
+     *
+     * @param file The file name or path to read from.
+     * @return A JsonReader reading from file.
+     */
+    private static JsonReader getJsonReader(String file) {
+        try {
+            InputStream is = BulletRecordSchema.class.getResourceAsStream("/" + file);
+            return is != null ? new JsonReader(new InputStreamReader(is)) : new JsonReader(new FileReader(file));
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException(file + " file not found.", e);
+        }
+    }
 }
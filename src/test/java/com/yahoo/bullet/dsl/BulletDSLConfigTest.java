@@ -45,6 +45,56 @@ public class BulletDSLConfigTest {
         config.validate();
     }
 
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testAvroBinaryConverterFieldsNotPresent() {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, BulletDSLConfig.AVRO_BINARY_CONVERTER_CLASS_NAME);
+        config.validate();
+    }
+
+    @Test
+    public void testAvroBinaryConverterClassNamePresent() {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, BulletDSLConfig.AVRO_BINARY_CONVERTER_CLASS_NAME);
+        config.set(BulletDSLConfig.RECORD_CONVERTER_AVRO_CLASS_NAME, DummyAvro.class.getName());
+        config.validate();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testPulsarCumulativeAckWithSharedSubscription() {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_ACK_CUMULATIVE_ENABLE, true);
+        config.validate();
+    }
+
+    @Test
+    public void testPulsarCumulativeAckWithFailoverSubscription() {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_ACK_CUMULATIVE_ENABLE, true);
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_CONSUMER_SUBSCRIPTION_TYPE, "Failover");
+        config.validate();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testKafkaParallelismWithManualCommit() {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_PARALLELISM, 4);
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_COMMIT_MANUAL_ENABLE, true);
+        config.validate();
+    }
+
+    @Test
+    public void testTypeCheckSampleSize() {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_SAMPLE_SIZE, -1);
+        config.validate();
+        Assert.assertEquals(config.get(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_SAMPLE_SIZE), BulletDSLConfig.DEFAULT_CONVERTER_TYPE_CHECK_SAMPLE_SIZE);
+
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_SAMPLE_SIZE, 16);
+        config.validate();
+        Assert.assertEquals(config.get(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_SAMPLE_SIZE), 16);
+    }
+
     @Test
     public void testReadFileAsResource() {
         BulletDSLConfig config = new BulletDSLConfig();
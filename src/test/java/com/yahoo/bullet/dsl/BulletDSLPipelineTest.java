@@ -0,0 +1,204 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl;
+
+import com.yahoo.bullet.dsl.connector.BulletConnector;
+import com.yahoo.bullet.dsl.connector.KafkaConnector;
+import com.yahoo.bullet.dsl.converter.AvroBulletRecordConverter;
+import com.yahoo.bullet.dsl.converter.BulletRecordConverter;
+import com.yahoo.bullet.dsl.converter.MapBulletRecordConverter;
+import com.yahoo.bullet.dsl.converter.RecordFilter;
+import com.yahoo.bullet.dsl.deserializer.BulletDeserializer;
+import com.yahoo.bullet.dsl.deserializer.JavaDeserializer;
+import com.yahoo.bullet.dsl.sampler.KeyHashSampler;
+import com.yahoo.bullet.record.BulletRecord;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.singletonMap;
+
+public class BulletDSLPipelineTest {
+
+    private static List<Object> batch(int from, int to) {
+        List<Object> batch = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            batch.add(singletonMap("id", i));
+        }
+        return batch;
+    }
+
+    @SafeVarargs
+    private static BulletConnector makeConnector(List<Object>... batches) throws Exception {
+        BulletConnector connector = Mockito.mock(BulletConnector.class);
+        List<Object>[] rest = Arrays.copyOfRange(batches, 1, batches.length + 1);
+        rest[rest.length - 1] = Collections.emptyList();
+        Mockito.when(connector.read()).thenReturn(batches[0], rest);
+        return connector;
+    }
+
+    private static List<BulletRecord> readAll(BulletDSLPipeline pipeline, int count) throws Exception {
+        List<BulletRecord> records = new ArrayList<>();
+        long end = System.currentTimeMillis() + 10000L;
+        while (records.size() < count && System.currentTimeMillis() < end) {
+            records.addAll(pipeline.read());
+        }
+        return records;
+    }
+
+    private static void assertIds(List<BulletRecord> records, int count) {
+        Assert.assertEquals(records.size(), count);
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(records.get(i).typedGet("id").getValue(), i);
+        }
+    }
+
+    @Test
+    public void testFromConfig() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        BulletDSLPipeline pipeline = new BulletDSLPipeline(config);
+        Assert.assertTrue(pipeline.getConnector() instanceof KafkaConnector);
+        Assert.assertTrue(pipeline.getDeserializer() instanceof JavaDeserializer);
+        Assert.assertTrue(pipeline.getConverter() instanceof AvroBulletRecordConverter);
+
+        Assert.assertNull(pipeline.getSampler());
+
+        config.set(BulletDSLConfig.DESERIALIZER_CLASS_NAME, null);
+        Assert.assertNull(new BulletDSLPipeline(config).getDeserializer());
+    }
+
+    @Test
+    public void testPipelineSamplesBeforeDeserializing() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.SAMPLER_CLASS_NAME, KeyHashSampler.class.getName());
+        config.set(BulletDSLConfig.SAMPLER_RATE, 0.5);
+        config.validate();
+
+        BulletDeserializer deserializer = Mockito.mock(BulletDeserializer.class);
+        Mockito.when(deserializer.deserialize(Mockito.any())).thenAnswer(invocation -> singletonMap("id", invocation.getArguments()[0]));
+        List<Object> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(i);
+        }
+        List<Object> kept = new KeyHashSampler(config).sample(batch);
+        BulletDSLPipeline pipeline = new BulletDSLPipeline(config, makeConnector(batch), deserializer, new MapBulletRecordConverter());
+        Assert.assertTrue(pipeline.getSampler() instanceof KeyHashSampler);
+        pipeline.start();
+
+        List<BulletRecord> records = readAll(pipeline, kept.size());
+        pipeline.close();
+
+        Assert.assertEquals(records.size(), kept.size());
+        for (int i = 0; i < kept.size(); i++) {
+            Assert.assertEquals(records.get(i).typedGet("id").getValue(), kept.get(i));
+            Assert.assertEquals(records.get(i).typedGet(BulletDSLConfig.DEFAULT_SAMPLER_RATE_FIELD).getValue(), 0.5);
+        }
+        Mockito.verify(deserializer, Mockito.times(kept.size())).deserialize(Mockito.any());
+    }
+
+    @Test
+    public void testPipelineWithoutDeserializer() throws Exception {
+        BulletConnector connector = makeConnector(batch(0, 10), batch(10, 100));
+        BulletDSLPipeline pipeline = new BulletDSLPipeline(new BulletDSLConfig(), connector, null, new MapBulletRecordConverter());
+        pipeline.start();
+
+        assertIds(readAll(pipeline, 100), 100);
+        Assert.assertTrue(pipeline.read().isEmpty());
+
+        pipeline.close();
+        Mockito.verify(connector).initialize();
+        Mockito.verify(connector).close();
+    }
+
+    @Test
+    public void testPipelineDropsFilteredBatches() throws Exception {
+        Map<String, Object> predicate = new HashMap<>();
+        predicate.put(RecordFilter.REFERENCE, "id");
+        predicate.put(RecordFilter.MIN, 10);
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.FILTER_PREDICATES, Collections.singletonList(predicate));
+        config.set(BulletDSLConfig.PIPELINE_READ_TIMEOUT_MS, 10000);
+        config.validate();
+        BulletConnector connector = makeConnector(batch(0, 10), batch(0, 20));
+        BulletDSLPipeline pipeline = new BulletDSLPipeline(config, connector, null, new MapBulletRecordConverter(config));
+        pipeline.start();
+
+        // The batch that the filter emptied is not returned as if the read timed out
+        List<BulletRecord> records = pipeline.read();
+        Assert.assertEquals(records.size(), 10);
+        Assert.assertEquals(records.get(0).typedGet("id").getValue(), 10);
+
+        pipeline.close();
+    }
+
+    @Test
+    public void testPipelineWithDeserializer() throws Exception {
+        BulletDeserializer deserializer = Mockito.mock(BulletDeserializer.class);
+        Mockito.when(deserializer.deserialize(Mockito.any())).thenAnswer(invocation -> singletonMap("id", invocation.getArguments()[0]));
+        BulletConnector connector = makeConnector(Arrays.asList(0, 1, 2), Arrays.asList(3, 4));
+        BulletDSLPipeline pipeline = new BulletDSLPipeline(new BulletDSLConfig(), connector, deserializer, new MapBulletRecordConverter());
+        pipeline.start();
+
+        assertIds(readAll(pipeline, 5), 5);
+
+        pipeline.close();
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "bad")
+    public void testPipelineFailsOnConverterFailure() throws Exception {
+        BulletRecordConverter converter = Mockito.mock(BulletRecordConverter.class);
+        Mockito.when(converter.convertAll(Mockito.anyList())).thenThrow(new BulletDSLException("bad"));
+        BulletDSLPipeline pipeline = new BulletDSLPipeline(new BulletDSLConfig(), makeConnector(batch(0, 1)), null, converter);
+        pipeline.start();
+        try {
+            readAll(pipeline, 1);
+        } finally {
+            pipeline.close();
+            Mockito.verify(converter).close();
+        }
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "The pipeline failed\\.")
+    public void testPipelineFailsOnConnectorFailure() throws Exception {
+        BulletConnector connector = Mockito.mock(BulletConnector.class);
+        Mockito.when(connector.read()).thenThrow(new IllegalStateException());
+        BulletDSLPipeline pipeline = new BulletDSLPipeline(new BulletDSLConfig(), connector, null, new MapBulletRecordConverter());
+        pipeline.start();
+        try {
+            readAll(pipeline, 1);
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    public void testPipelineBlocksWhenFull() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.PIPELINE_QUEUE_CAPACITY, 1);
+        config.validate();
+
+        BulletConnector connector = Mockito.mock(BulletConnector.class);
+        Mockito.when(connector.read()).thenReturn(batch(0, 1));
+        BulletDSLPipeline pipeline = new BulletDSLPipeline(config, connector, null, new MapBulletRecordConverter());
+        pipeline.start();
+
+        // One batch in each queue and one held by each stage. Nothing is taken out of the pipeline, so no more are read
+        Mockito.verify(connector, Mockito.timeout(5000L).times(4)).read();
+        Mockito.verify(connector, Mockito.times(4)).read();
+
+        Assert.assertEquals(readAll(pipeline, 4).size(), 4);
+        // Reading resumes once there is room
+        Mockito.verify(connector, Mockito.timeout(5000L).atLeast(5)).read();
+        pipeline.close();
+    }
+}
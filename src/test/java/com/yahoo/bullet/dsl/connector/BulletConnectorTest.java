@@ -6,10 +6,17 @@
 package com.yahoo.bullet.dsl.connector;
 
 import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.dsl.BulletDSLException;
+import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
 public class BulletConnectorTest {
 
     private BulletDSLConfig config;
@@ -35,8 +42,101 @@ public class BulletConnectorTest {
         Assert.assertTrue(connector instanceof PulsarConnector);
     }
 
+    @Test
+    public void testFromParallelKafkaConnector() {
+        config.set(BulletDSLConfig.CONNECTOR_CLASS_NAME, "com.yahoo.bullet.dsl.connector.KafkaConnector");
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_PARALLELISM, 3);
+
+        BulletConnector connector = BulletConnector.from(config);
+        Assert.assertTrue(connector instanceof ParallelKafkaConnector);
+        Assert.assertEquals(((ParallelKafkaConnector) connector).getConnectors().size(), 3);
+        Assert.assertTrue(((ParallelKafkaConnector) connector).getConnectors().get(0) instanceof KafkaConnector);
+    }
+
+    @Test
+    public void testFromPrefetchingConnector() {
+        config.set(BulletDSLConfig.CONNECTOR_CLASS_NAME, "com.yahoo.bullet.dsl.connector.PulsarConnector");
+        config.set(BulletDSLConfig.CONNECTOR_PREFETCH_ENABLE, true);
+
+        BulletConnector connector = BulletConnector.from(config);
+        Assert.assertTrue(connector instanceof PrefetchingConnector);
+        Assert.assertTrue(((PrefetchingConnector) connector).getConnector() instanceof PulsarConnector);
+    }
+
     @Test(expectedExceptions = RuntimeException.class)
     public void testThrow() {
         BulletConnector.from(config);
     }
+
+    @Test
+    public void testReadAsyncReadsOnReadThread() throws Exception {
+        BulletConnector connector = Mockito.mock(BulletConnector.class, Mockito.CALLS_REAL_METHODS);
+        Mockito.doAnswer(invocation -> Collections.singletonList(Thread.currentThread().getName())).when(connector).read();
+
+        List<Object> first = connector.readAsync().get();
+        List<Object> second = connector.readAsync().get();
+        Assert.assertTrue(first.get(0).toString().startsWith("bullet-dsl-read-"));
+        Assert.assertEquals(second, first);
+
+        connector.shutdownReadExecutor();
+        connector.shutdownReadExecutor();
+    }
+
+    @Test
+    public void testReadAsyncFails() throws Exception {
+        BulletConnector connector = Mockito.mock(BulletConnector.class, Mockito.CALLS_REAL_METHODS);
+        BulletDSLException exception = new BulletDSLException("mock exception");
+        Mockito.doThrow(exception).when(connector).read();
+
+        try {
+            connector.readAsync().get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertSame(e.getCause(), exception);
+        }
+        connector.shutdownReadExecutor();
+    }
+
+    @Test
+    public void testRunOnReadThread() throws Exception {
+        BulletConnector connector = Mockito.mock(BulletConnector.class, Mockito.CALLS_REAL_METHODS);
+        Mockito.doReturn(Collections.emptyList()).when(connector).read();
+        List<String> threads = new ArrayList<>();
+
+        // Runs on the calling thread until reading asynchronously
+        connector.runOnReadThread(() -> threads.add(Thread.currentThread().getName()));
+        connector.readAsync().get();
+        connector.runOnReadThread(() -> threads.add(Thread.currentThread().getName()));
+        connector.shutdownReadExecutor();
+
+        Assert.assertEquals(threads.get(0), Thread.currentThread().getName());
+        Assert.assertTrue(threads.get(1).startsWith("bullet-dsl-read-"));
+    }
+
+    @Test
+    public void testRunOnReadThreadFails() throws Exception {
+        BulletConnector connector = Mockito.mock(BulletConnector.class, Mockito.CALLS_REAL_METHODS);
+        Mockito.doReturn(Collections.emptyList()).when(connector).read();
+        connector.readAsync().get();
+
+        BulletDSLException exception = new BulletDSLException("mock exception");
+        try {
+            connector.runOnReadThread(() -> {
+                throw exception;
+            });
+            Assert.fail();
+        } catch (BulletDSLException e) {
+            Assert.assertSame(e, exception);
+        }
+        try {
+            connector.runOnReadThread(() -> {
+                throw new IllegalStateException();
+            });
+            Assert.fail();
+        } catch (BulletDSLException e) {
+            Assert.assertEquals(e.getMessage(), "Could not run on the read thread.");
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        connector.shutdownReadExecutor();
+    }
 }
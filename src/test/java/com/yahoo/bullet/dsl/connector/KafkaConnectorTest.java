@@ -10,8 +10,10 @@ import com.yahoo.bullet.dsl.BulletDSLException;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.record.TimestampType;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.testng.Assert;
@@ -19,15 +21,30 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 public class KafkaConnectorTest {
 
     private BulletDSLConfig config;
 
+    private static ConsumerRecords<Object, Object> makeRecords(String topic, int partition, long... offsets) {
+        List<ConsumerRecord<Object, Object>> records = new ArrayList<>();
+        for (long offset : offsets) {
+            records.add(new ConsumerRecord<>(topic, partition, offset, null, offset));
+        }
+        return new ConsumerRecords<>(Collections.singletonMap(new TopicPartition(topic, partition), records));
+    }
+
+    private static Map<TopicPartition, OffsetAndMetadata> makeOffsets(String topic, int partition, long offset) {
+        return Collections.singletonMap(new TopicPartition(topic, partition), new OffsetAndMetadata(offset));
+    }
+
     @BeforeMethod
     public void init() {
         config = new BulletDSLConfig("test_connector_config.yaml");
@@ -60,6 +77,38 @@ public class KafkaConnectorTest {
         connector.close();
     }
 
+    @Test
+    public void testReadMetadata() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_METADATA_ENABLE, true);
+        config.validate();
+
+        KafkaConnector connector = new KafkaConnector(config);
+        connector.initialize();
+
+        KafkaConsumer<Object, Object> consumer = Mockito.mock(KafkaConsumer.class);
+        ConsumerRecord<Object, Object> consumerRecord = new ConsumerRecord<>("mytopic", 2, 7, 1234L, TimestampType.CREATE_TIME,
+                                                                              0L, 0, 0, "mykey", "hello world");
+        Mockito.doReturn(new ConsumerRecords<>(Collections.singletonMap(new TopicPartition("mytopic", 2), Collections.singletonList(consumerRecord))))
+               .when(consumer).poll(Mockito.any());
+
+        connector.setConsumer(consumer);
+
+        List<Object> objects = connector.read();
+        Assert.assertEquals(objects.size(), 1);
+        ConnectorRecord record = (ConnectorRecord) objects.get(0);
+        Assert.assertEquals(record.getValue(), "hello world");
+        Assert.assertEquals(record.getMetadata(KafkaConnector.METADATA_NAMESPACE, "topic"), "mytopic");
+        Assert.assertEquals(record.getMetadata(KafkaConnector.METADATA_NAMESPACE, "partition"), 2);
+        Assert.assertEquals(record.getMetadata(KafkaConnector.METADATA_NAMESPACE, "offset"), 7L);
+        Assert.assertEquals(record.getMetadata(KafkaConnector.METADATA_NAMESPACE, "timestamp"), 1234L);
+        Assert.assertEquals(record.getMetadata(KafkaConnector.METADATA_NAMESPACE, "timestampType"), "CreateTime");
+        Assert.assertEquals(record.getMetadata(KafkaConnector.METADATA_NAMESPACE, "key"), "mykey");
+        Assert.assertNull(record.getMetadata(KafkaConnector.METADATA_NAMESPACE, "dne"));
+        Assert.assertNull(record.getMetadata(PulsarConnector.METADATA_NAMESPACE, "topic"));
+
+        connector.close();
+    }
+
     @Test
     public void testReadStartAtEndAndCommitSync() throws Exception {
         config.set(BulletDSLConfig.CONNECTOR_KAFKA_START_AT_END_ENABLE, true);
@@ -128,4 +177,317 @@ public class KafkaConnectorTest {
         connector.setConsumer(consumer);
         connector.read();
     }
+
+    @Test
+    public void testCommitAfterEveryRead() throws Exception {
+        KafkaConnector connector = new KafkaConnector(config);
+        KafkaConsumer<Object, Object> consumer = Mockito.mock(KafkaConsumer.class);
+        Mockito.when(consumer.poll(Mockito.any())).thenReturn(makeRecords("mytopic", 0, 0, 1, 2))
+                                                  .thenReturn(ConsumerRecords.empty())
+                                                  .thenReturn(makeRecords("mytopic", 1, 7));
+        connector.setConsumer(consumer);
+
+        Assert.assertEquals(connector.read(), Arrays.asList(0L, 1L, 2L));
+        Mockito.verify(consumer).commitAsync(Mockito.eq(makeOffsets("mytopic", 0, 3)), Mockito.any());
+
+        // Nothing new to commit
+        Assert.assertTrue(connector.read().isEmpty());
+        Mockito.verify(consumer, Mockito.times(1)).commitAsync(Mockito.anyMap(), Mockito.any());
+
+        // Only the partitions read since the last commit are committed
+        Assert.assertEquals(connector.read(), Collections.singletonList(7L));
+        Mockito.verify(consumer).commitAsync(Mockito.eq(makeOffsets("mytopic", 1, 8)), Mockito.any());
+        Mockito.verify(consumer, Mockito.never()).commitAsync();
+    }
+
+    @Test
+    public void testCommitAfterRecords() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_ASYNC_COMMIT_ENABLE, false);
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_COMMIT_RECORDS, 5);
+
+        KafkaConnector connector = new KafkaConnector(config);
+        KafkaConsumer<Object, Object> consumer = Mockito.mock(KafkaConsumer.class);
+        Mockito.when(consumer.poll(Mockito.any())).thenReturn(makeRecords("mytopic", 0, 0, 1, 2))
+                                                  .thenReturn(makeRecords("mytopic", 0, 3, 4, 5));
+        connector.setConsumer(consumer);
+
+        connector.read();
+        Mockito.verify(consumer, Mockito.never()).commitSync(Mockito.anyMap());
+
+        connector.read();
+        Mockito.verify(consumer).commitSync(makeOffsets("mytopic", 0, 6));
+    }
+
+    @Test
+    public void testCommitAfterInterval() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_ASYNC_COMMIT_ENABLE, false);
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_COMMIT_INTERVAL_MS, 50);
+        Assert.assertTrue(new KafkaConnector(config).now() > 0L);
+
+        long[] clock = {1000L};
+        KafkaConnector connector = new KafkaConnector(config) {
+            @Override
+            long now() {
+                return clock[0];
+            }
+        };
+        KafkaConsumer<Object, Object> consumer = Mockito.mock(KafkaConsumer.class);
+        Mockito.when(consumer.poll(Mockito.any())).thenReturn(makeRecords("mytopic", 0, 0))
+                                                  .thenReturn(makeRecords("mytopic", 0, 1))
+                                                  .thenReturn(makeRecords("mytopic", 0, 2));
+        connector.setConsumer(consumer);
+
+        // The first commit is due right away since nothing was committed before
+        connector.read();
+        Mockito.verify(consumer).commitSync(makeOffsets("mytopic", 0, 1));
+
+        clock[0] += 49L;
+        connector.read();
+        Mockito.verify(consumer, Mockito.times(1)).commitSync(Mockito.anyMap());
+
+        clock[0] += 1L;
+        connector.read();
+        Mockito.verify(consumer).commitSync(makeOffsets("mytopic", 0, 3));
+    }
+
+    @Test
+    public void testManualCommit() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_ASYNC_COMMIT_ENABLE, false);
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_COMMIT_MANUAL_ENABLE, true);
+
+        KafkaConnector connector = new KafkaConnector(config);
+        KafkaConsumer<Object, Object> consumer = Mockito.mock(KafkaConsumer.class);
+        Mockito.when(consumer.poll(Mockito.any())).thenReturn(makeRecords("mytopic", 0, 0, 1))
+                                                  .thenReturn(makeRecords("mytopic", 0, 2));
+        connector.setConsumer(consumer);
+
+        connector.read();
+        connector.read();
+        Mockito.verify(consumer, Mockito.never()).commitSync(Mockito.anyMap());
+
+        connector.commit();
+        Mockito.verify(consumer).commitSync(makeOffsets("mytopic", 0, 3));
+
+        // Nothing new to commit
+        connector.commit();
+        Mockito.verify(consumer, Mockito.times(1)).commitSync(Mockito.anyMap());
+
+        // Uncommitted records are not committed on close
+        connector.close();
+        Mockito.verify(consumer, Mockito.times(1)).commitSync(Mockito.anyMap());
+    }
+
+    @Test
+    public void testCommitWithAutoCommit() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_ENABLE_AUTO_COMMIT, true);
+
+        KafkaConnector connector = new KafkaConnector(config);
+        KafkaConsumer<Object, Object> consumer = Mockito.mock(KafkaConsumer.class);
+        Mockito.when(consumer.poll(Mockito.any())).thenReturn(makeRecords("mytopic", 0, 0));
+        connector.setConsumer(consumer);
+
+        connector.read();
+        connector.commit();
+        Mockito.verify(consumer, Mockito.never()).commitAsync(Mockito.anyMap(), Mockito.any());
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not commit offsets\\.")
+    public void testCommitSyncThrows() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_ASYNC_COMMIT_ENABLE, false);
+
+        KafkaConnector connector = new KafkaConnector(config);
+        KafkaConsumer<Object, Object> consumer = Mockito.mock(KafkaConsumer.class);
+        Mockito.when(consumer.poll(Mockito.any())).thenReturn(makeRecords("mytopic", 0, 0));
+        Mockito.doThrow(new KafkaException("mock exception")).when(consumer).commitSync(Mockito.anyMap());
+        connector.setConsumer(consumer);
+
+        connector.read();
+    }
+
+    @Test
+    public void testCommitOnClose() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_ASYNC_COMMIT_ENABLE, false);
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_COMMIT_RECORDS, 5);
+
+        KafkaConnector connector = new KafkaConnector(config);
+        KafkaConsumer<Object, Object> consumer = Mockito.mock(KafkaConsumer.class);
+        Mockito.when(consumer.poll(Mockito.any())).thenReturn(makeRecords("mytopic", 0, 0));
+        connector.setConsumer(consumer);
+
+        connector.read();
+        connector.close();
+        Mockito.verify(consumer).commitSync(makeOffsets("mytopic", 0, 1));
+        Mockito.verify(consumer).close();
+    }
+
+    @Test
+    public void testRevokeCommitsRevokedPartitions() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_COMMIT_RECORDS, 5);
+
+        KafkaConnector connector = new KafkaConnector(config);
+        KafkaConsumer<Object, Object> consumer = Mockito.mock(KafkaConsumer.class);
+        Mockito.when(consumer.poll(Mockito.any())).thenReturn(makeRecords("mytopic", 0, 0))
+                                                  .thenReturn(makeRecords("mytopic", 1, 4));
+        connector.setConsumer(consumer);
+
+        connector.read();
+        connector.read();
+        connector.revoke(Arrays.asList(new TopicPartition("mytopic", 0), new TopicPartition("mytopic", 2)));
+        Mockito.verify(consumer).commitSync(makeOffsets("mytopic", 0, 1));
+
+        // The revoked partition is no longer tracked
+        connector.commit();
+        Mockito.verify(consumer).commitAsync(Mockito.eq(makeOffsets("mytopic", 1, 5)), Mockito.any());
+    }
+
+    @Test
+    public void testRevokeDiscountsRevokedRecords() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_COMMIT_RECORDS, 5);
+
+        KafkaConnector connector = new KafkaConnector(config);
+        KafkaConsumer<Object, Object> consumer = Mockito.mock(KafkaConsumer.class);
+        Mockito.when(consumer.poll(Mockito.any())).thenReturn(makeRecords("mytopic", 0, 0, 1, 2))
+                                                  .thenReturn(makeRecords("mytopic", 1, 0))
+                                                  .thenReturn(makeRecords("mytopic", 1, 1, 2, 3))
+                                                  .thenReturn(makeRecords("mytopic", 1, 4));
+        connector.setConsumer(consumer);
+
+        connector.read();
+        connector.read();
+        connector.revoke(Collections.singletonList(new TopicPartition("mytopic", 0)));
+        Mockito.verify(consumer).commitSync(makeOffsets("mytopic", 0, 3));
+
+        // Only the 4 records of the partition still owned count towards the 5 records
+        connector.read();
+        Mockito.verify(consumer, Mockito.never()).commitAsync(Mockito.anyMap(), Mockito.any());
+        connector.read();
+        Mockito.verify(consumer).commitAsync(Mockito.eq(makeOffsets("mytopic", 1, 5)), Mockito.any());
+    }
+
+    @Test
+    public void testRevokeWithManualCommit() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_COMMIT_MANUAL_ENABLE, true);
+
+        KafkaConnector connector = new KafkaConnector(config);
+        KafkaConsumer<Object, Object> consumer = Mockito.mock(KafkaConsumer.class);
+        Mockito.when(consumer.poll(Mockito.any())).thenReturn(makeRecords("mytopic", 0, 0));
+        connector.setConsumer(consumer);
+
+        connector.read();
+        connector.revoke(Collections.singletonList(new TopicPartition("mytopic", 0)));
+        connector.commit();
+        Mockito.verify(consumer, Mockito.never()).commitSync(Mockito.anyMap());
+        Mockito.verify(consumer, Mockito.never()).commitAsync(Mockito.anyMap(), Mockito.any());
+    }
+
+    @Test
+    public void testDeferredCommits() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_ASYNC_COMMIT_ENABLE, false);
+
+        KafkaConnector connector = new KafkaConnector(config);
+        KafkaConsumer<Object, Object> consumer = Mockito.mock(KafkaConsumer.class);
+        Mockito.when(consumer.poll(Mockito.any())).thenReturn(makeRecords("mytopic", 0, 0, 1))
+                                                  .thenReturn(ConsumerRecords.empty())
+                                                  .thenReturn(makeRecords("mytopic", 0, 2))
+                                                  .thenReturn(makeRecords("mytopic", 1, 7))
+                                                  .thenReturn(ConsumerRecords.empty());
+        connector.setConsumer(consumer);
+        Assert.assertTrue(connector.deferCommits());
+
+        // Nothing is committed until it is delivered
+        connector.read();
+        connector.read();
+        Mockito.verify(consumer, Mockito.never()).commitSync(Mockito.anyMap());
+
+        // Only the delivered reads are committed by the next read
+        connector.read();
+        connector.delivered();
+        connector.read();
+        Mockito.verify(consumer).commitSync(makeOffsets("mytopic", 0, 2));
+
+        // Records of revoked partitions that were not delivered are read again by the new owner instead
+        connector.delivered();
+        connector.revoke(Collections.singletonList(new TopicPartition("mytopic", 1)));
+        connector.delivered();
+        connector.read();
+        Mockito.verify(consumer).commitSync(makeOffsets("mytopic", 0, 3));
+
+        // Records that were never delivered are not committed on close
+        connector.close();
+        Mockito.verify(consumer, Mockito.times(2)).commitSync(Mockito.anyMap());
+        Mockito.verify(consumer).close();
+    }
+
+    @Test
+    public void testDeferredCommitsCommitDeliveredOnClose() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_ASYNC_COMMIT_ENABLE, false);
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_COMMIT_RECORDS, 5);
+
+        KafkaConnector connector = new KafkaConnector(config);
+        KafkaConsumer<Object, Object> consumer = Mockito.mock(KafkaConsumer.class);
+        Mockito.when(consumer.poll(Mockito.any())).thenReturn(makeRecords("mytopic", 0, 0))
+                                                  .thenReturn(makeRecords("mytopic", 0, 1));
+        connector.setConsumer(consumer);
+        Assert.assertTrue(connector.deferCommits());
+
+        connector.read();
+        connector.read();
+        connector.delivered();
+        connector.close();
+        Mockito.verify(consumer).commitSync(makeOffsets("mytopic", 0, 1));
+        Mockito.verify(consumer, Mockito.times(1)).commitSync(Mockito.anyMap());
+    }
+
+    @Test
+    public void testDeferredCommitsNotSupported() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_COMMIT_MANUAL_ENABLE, true);
+        Assert.assertFalse(new KafkaConnector(config).deferCommits());
+
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_COMMIT_MANUAL_ENABLE, false);
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_ENABLE_AUTO_COMMIT, true);
+        Assert.assertFalse(new KafkaConnector(config).deferCommits());
+    }
+
+    @Test
+    public void testReadAsyncCommitsOnReadThread() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_ASYNC_COMMIT_ENABLE, false);
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_COMMIT_MANUAL_ENABLE, true);
+
+        KafkaConnector connector = new KafkaConnector(config);
+        KafkaConsumer<Object, Object> consumer = Mockito.mock(KafkaConsumer.class);
+        List<String> threads = new ArrayList<>();
+        Mockito.when(consumer.poll(Mockito.any())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return makeRecords("mytopic", 0, 0, 1);
+        });
+        Mockito.doAnswer(invocation -> threads.add(Thread.currentThread().getName())).when(consumer).commitSync(Mockito.anyMap());
+        connector.setConsumer(consumer);
+
+        Assert.assertEquals(connector.readAsync().get(), Arrays.asList(0L, 1L));
+        connector.commit();
+        Mockito.verify(consumer).commitSync(makeOffsets("mytopic", 0, 2));
+
+        connector.close();
+        Mockito.verify(consumer).close();
+        Assert.assertEquals(threads.size(), 2);
+        Assert.assertEquals(threads.get(0), "bullet-dsl-read-KafkaConnector");
+        Assert.assertEquals(threads.get(1), "bullet-dsl-read-KafkaConnector");
+    }
+
+    @Test
+    public void testReadAsyncFails() throws Exception {
+        KafkaConnector connector = new KafkaConnector(config);
+        KafkaConsumer<Object, Object> consumer = Mockito.mock(KafkaConsumer.class);
+        Mockito.doThrow(new KafkaException("mock exception")).when(consumer).poll(Mockito.any());
+        connector.setConsumer(consumer);
+
+        try {
+            connector.readAsync().get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof BulletDSLException);
+            Assert.assertEquals(e.getCause().getMessage(), "Could not read from consumer.");
+        }
+        connector.close();
+    }
 }
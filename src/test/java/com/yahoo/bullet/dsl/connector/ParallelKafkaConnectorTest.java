@@ -0,0 +1,224 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.connector;
+
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.dsl.BulletDSLException;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelKafkaConnectorTest {
+
+    private BulletDSLConfig config;
+    private BulletConnector first;
+    private BulletConnector second;
+
+    @BeforeMethod
+    public void init() {
+        config = new BulletDSLConfig("test_connector_config.yaml");
+        first = Mockito.mock(BulletConnector.class);
+        second = Mockito.mock(BulletConnector.class);
+    }
+
+    @Test
+    public void testReadMergesConsumers() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_READ_TIMEOUT_MS, 1000);
+        config.validate();
+
+        CountDownLatch read = new CountDownLatch(2);
+        Mockito.when(first.read()).thenAnswer(invocation -> {
+            read.countDown();
+            return Arrays.asList(1, 2);
+        }).thenReturn(Collections.emptyList());
+        Mockito.when(second.read()).thenAnswer(invocation -> {
+            read.countDown();
+            return Collections.singletonList(3);
+        }).thenReturn(null);
+
+        ParallelKafkaConnector connector = new ParallelKafkaConnector(config, Arrays.asList(first, second));
+        connector.initialize();
+        Mockito.verify(first).initialize();
+        Mockito.verify(second).initialize();
+
+        Assert.assertTrue(read.await(1, TimeUnit.SECONDS));
+        List<Object> objects = new ArrayList<>();
+        while (objects.size() < 3) {
+            objects.addAll(connector.read());
+        }
+        objects.sort(null);
+        Assert.assertEquals(objects, Arrays.asList(1, 2, 3));
+
+        connector.close();
+        Mockito.verify(first).close();
+        Mockito.verify(second).close();
+    }
+
+    @Test
+    public void testReadsOnOneThreadPerConsumer() throws Exception {
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch read = new CountDownLatch(2);
+        Mockito.when(first.read()).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            read.countDown();
+            return Collections.emptyList();
+        }).thenReturn(Collections.emptyList());
+        Mockito.when(second.read()).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            read.countDown();
+            return Collections.emptyList();
+        }).thenReturn(Collections.emptyList());
+
+        ParallelKafkaConnector connector = new ParallelKafkaConnector(config, Arrays.asList(first, second));
+        connector.initialize();
+
+        Assert.assertTrue(read.await(1, TimeUnit.SECONDS));
+        connector.close();
+
+        threads.sort(null);
+        Assert.assertEquals(threads, Arrays.asList("bullet-dsl-kafka-0", "bullet-dsl-kafka-1"));
+    }
+
+    @Test
+    public void testReadThrowsAfterBufferedBatches() throws Exception {
+        BulletDSLException exception = new BulletDSLException("mock exception");
+        Mockito.when(first.read()).thenReturn(Collections.singletonList(1)).thenThrow(exception);
+        Mockito.when(second.read()).thenReturn(Collections.emptyList());
+
+        ParallelKafkaConnector connector = new ParallelKafkaConnector(config, Arrays.asList(first, second));
+        connector.initialize();
+
+        List<Object> objects;
+        do {
+            objects = connector.read();
+        } while (objects.isEmpty());
+        Assert.assertEquals(objects, Collections.singletonList(1));
+        try {
+            while (true) {
+                connector.read();
+            }
+        } catch (BulletDSLException e) {
+            Assert.assertSame(e, exception);
+        }
+        connector.close();
+    }
+
+    @Test
+    public void testReadWrapsOtherFailures() throws Exception {
+        Mockito.when(first.read()).thenThrow(new IllegalStateException());
+        Mockito.when(second.read()).thenReturn(Collections.emptyList());
+
+        ParallelKafkaConnector connector = new ParallelKafkaConnector(config, Arrays.asList(first, second));
+        connector.initialize();
+
+        try {
+            while (true) {
+                connector.read();
+            }
+        } catch (BulletDSLException e) {
+            Assert.assertEquals(e.getMessage(), "Could not read from connector.");
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        connector.close();
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_PREFETCH_BUFFER_SIZE, 1);
+        config.set(BulletDSLConfig.CONNECTOR_READ_TIMEOUT_MS, 1000);
+        config.validate();
+
+        AtomicInteger reads = new AtomicInteger();
+        CountDownLatch full = new CountDownLatch(2);
+        Mockito.when(first.read()).thenAnswer(invocation -> {
+            full.countDown();
+            return Collections.singletonList(reads.incrementAndGet());
+        });
+
+        ParallelKafkaConnector connector = new ParallelKafkaConnector(config, Collections.singletonList(first));
+        connector.initialize();
+
+        // One batch is buffered and the second waits for room, so nothing else is read
+        Assert.assertTrue(full.await(5, TimeUnit.SECONDS));
+        Mockito.verify(first, Mockito.times(2)).read();
+        // The waiting batch may be buffered in time to be merged
+        Assert.assertEquals(connector.read().get(0), 1);
+
+        connector.close();
+    }
+
+    @Test
+    public void testDeliversReadBatches() throws Exception {
+        Mockito.when(first.deferCommits()).thenReturn(true);
+        Mockito.when(first.read()).thenReturn(Collections.singletonList(1)).thenReturn(Collections.emptyList());
+        Mockito.when(second.read()).thenReturn(Collections.singletonList(2)).thenReturn(Collections.emptyList());
+
+        ParallelKafkaConnector connector = new ParallelKafkaConnector(config, Arrays.asList(first, second));
+        connector.initialize();
+
+        List<Object> objects = new ArrayList<>();
+        while (objects.size() < 2) {
+            objects.addAll(connector.read());
+        }
+        // Only the consumer that defers its commits is told
+        Mockito.verify(first).delivered();
+        Mockito.verify(second, Mockito.never()).delivered();
+
+        connector.close();
+    }
+
+    @Test
+    public void testDeferredCommits() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_PREFETCH_BUFFER_SIZE, 1);
+        config.set(BulletDSLConfig.CONNECTOR_READ_TIMEOUT_MS, 1000);
+        config.validate();
+
+        AtomicInteger reads = new AtomicInteger();
+        CountDownLatch full = new CountDownLatch(2);
+        Mockito.when(first.deferCommits()).thenReturn(true);
+        Mockito.when(first.read()).thenAnswer(invocation -> {
+            full.countDown();
+            return Collections.singletonList(reads.incrementAndGet());
+        });
+
+        ParallelKafkaConnector connector = new ParallelKafkaConnector(config, Collections.singletonList(first));
+        Assert.assertTrue(connector.deferCommits());
+        connector.initialize();
+
+        Assert.assertTrue(full.await(5, TimeUnit.SECONDS));
+        // The waiting batch may be buffered in time to be merged
+        List<Object> objects = connector.read();
+        Assert.assertEquals(objects.get(0), 1);
+        Mockito.verify(first, Mockito.never()).delivered();
+
+        // The batches read are only delivered once this connector delivered them
+        connector.delivered();
+        Mockito.verify(first, Mockito.times(objects.size())).delivered();
+
+        // The buffered batches are dropped without being delivered
+        connector.close();
+        Mockito.verify(first, Mockito.times(objects.size())).delivered();
+        Mockito.verify(first).close();
+    }
+
+    @Test
+    public void testCloseWithoutInitialize() throws Exception {
+        ParallelKafkaConnector connector = new ParallelKafkaConnector(config, Arrays.asList(first, second));
+        connector.close();
+
+        Mockito.verify(first).close();
+        Mockito.verify(second).close();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.connector;
+
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.dsl.BulletDSLException;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PrefetchingConnectorTest {
+
+    private BulletDSLConfig config;
+    private BulletConnector connector;
+
+    @BeforeMethod
+    public void init() {
+        config = new BulletDSLConfig("test_connector_config.yaml");
+        connector = Mockito.mock(BulletConnector.class);
+    }
+
+    private static List<Object> readUntilNotEmpty(BulletConnector connector) throws BulletDSLException {
+        List<Object> batch;
+        do {
+            batch = connector.read();
+        } while (batch.isEmpty());
+        return batch;
+    }
+
+    @Test
+    public void testReadBufferedBatches() throws Exception {
+        Mockito.when(connector.read()).thenReturn(Arrays.asList(1, 2))
+                                      .thenReturn(Collections.emptyList())
+                                      .thenReturn(null)
+                                      .thenReturn(Collections.singletonList(3))
+                                      .thenReturn(Collections.emptyList());
+
+        PrefetchingConnector prefetchingConnector = new PrefetchingConnector(config, connector);
+        prefetchingConnector.initialize();
+        Mockito.verify(connector).initialize();
+
+        // Empty batches are not buffered
+        Assert.assertEquals(readUntilNotEmpty(prefetchingConnector), Arrays.asList(1, 2));
+        Assert.assertEquals(readUntilNotEmpty(prefetchingConnector), Collections.singletonList(3));
+        Assert.assertEquals(prefetchingConnector.read(), Collections.emptyList());
+
+        prefetchingConnector.close();
+        Mockito.verify(connector).close();
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_PREFETCH_BUFFER_SIZE, 2);
+        config.set(BulletDSLConfig.CONNECTOR_READ_TIMEOUT_MS, 1000);
+
+        AtomicInteger reads = new AtomicInteger();
+        CountDownLatch full = new CountDownLatch(3);
+        Mockito.when(connector.read()).thenAnswer(invocation -> {
+            full.countDown();
+            return Collections.singletonList(reads.incrementAndGet());
+        });
+
+        PrefetchingConnector prefetchingConnector = new PrefetchingConnector(config, connector);
+        prefetchingConnector.initialize();
+
+        // Two batches are buffered and the third waits for room, so nothing else is read
+        Assert.assertTrue(full.await(5, TimeUnit.SECONDS));
+        Mockito.verify(connector, Mockito.times(3)).read();
+
+        Assert.assertEquals(prefetchingConnector.read(), Collections.singletonList(1));
+        Assert.assertEquals(prefetchingConnector.read(), Collections.singletonList(2));
+        Assert.assertEquals(prefetchingConnector.read(), Collections.singletonList(3));
+
+        prefetchingConnector.close();
+    }
+
+    @Test
+    public void testCommitsOnlyDeliveredBatches() throws Exception {
+        Mockito.when(connector.deferCommits()).thenReturn(true);
+        Mockito.when(connector.read()).thenReturn(Collections.singletonList(1))
+                                      .thenReturn(Collections.singletonList(2))
+                                      .thenReturn(Collections.singletonList(3))
+                                      .thenReturn(Collections.emptyList());
+
+        PrefetchingConnector prefetchingConnector = new PrefetchingConnector(config, connector);
+        prefetchingConnector.initialize();
+        Mockito.verify(connector, Mockito.timeout(5000L).atLeast(4)).read();
+        Mockito.verify(connector, Mockito.never()).delivered();
+
+        Assert.assertEquals(prefetchingConnector.read(), Collections.singletonList(1));
+        Assert.assertEquals(prefetchingConnector.read(), Collections.singletonList(2));
+        Mockito.verify(connector, Mockito.times(2)).delivered();
+
+        // The buffered batch is dropped without being delivered
+        prefetchingConnector.close();
+        Mockito.verify(connector, Mockito.times(2)).delivered();
+        Mockito.verify(connector).close();
+    }
+
+    @Test
+    public void testReadThrowsAfterBufferedBatches() throws Exception {
+        BulletDSLException exception = new BulletDSLException("mock exception");
+        Mockito.when(connector.read()).thenReturn(Collections.singletonList(1)).thenThrow(exception);
+
+        PrefetchingConnector prefetchingConnector = new PrefetchingConnector(config, connector);
+        prefetchingConnector.initialize();
+
+        Assert.assertEquals(readUntilNotEmpty(prefetchingConnector), Collections.singletonList(1));
+        try {
+            readUntilNotEmpty(prefetchingConnector);
+            Assert.fail();
+        } catch (BulletDSLException e) {
+            Assert.assertSame(e, exception);
+        }
+        prefetchingConnector.close();
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not read from connector\\.")
+    public void testReadWrapsRuntimeException() throws Exception {
+        Mockito.when(connector.read()).thenThrow(new RuntimeException("mock exception"));
+
+        PrefetchingConnector prefetchingConnector = new PrefetchingConnector(config, connector);
+        prefetchingConnector.initialize();
+        readUntilNotEmpty(prefetchingConnector);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testManualCommitNotAllowed() {
+        config.set(BulletDSLConfig.CONNECTOR_PREFETCH_ENABLE, true);
+        config.set(BulletDSLConfig.CONNECTOR_KAFKA_COMMIT_MANUAL_ENABLE, true);
+        config.validate();
+    }
+}
@@ -18,6 +18,7 @@ import org.apache.pulsar.client.api.Message;
 import org.apache.pulsar.client.api.PulsarClient;
 import org.apache.pulsar.client.api.PulsarClientException;
 import org.apache.pulsar.client.api.Schema;
+import org.apache.pulsar.client.impl.MessageIdImpl;
 import org.apache.pulsar.client.impl.MessageImpl;
 import org.apache.pulsar.client.impl.PulsarClientImpl;
 import org.apache.pulsar.client.impl.auth.AuthenticationDisabled;
@@ -34,9 +35,14 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 public class PulsarConnectorTest {
 
@@ -338,6 +344,47 @@ public class PulsarConnectorTest {
         Assert.assertEquals(objects.get(3), 12345);
     }
 
+    @Test
+    public void testReadMetadata() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_METADATA_ENABLE, true);
+        config.validate();
+
+        PulsarConnector connector = new PulsarConnector(config);
+        Consumer<Serializable> consumer = Mockito.mock(Consumer.class);
+        Message<Serializable> message = Mockito.mock(Message.class);
+        Mockito.when(message.getValue()).thenReturn("hello world");
+        Mockito.when(message.getTopicName()).thenReturn("mytopic");
+        Mockito.when(message.getProperties()).thenReturn(Collections.singletonMap("source", "mysource"));
+        Mockito.when(message.getMessageId()).thenReturn(new MessageIdImpl(1L, 2L, 3));
+        Mockito.when(message.getPublishTime()).thenReturn(1234L);
+        Mockito.when(message.getSequenceId()).thenReturn(5L);
+
+        Mockito.when(consumer.receive(Mockito.eq(100), Mockito.any())).thenReturn(message).thenReturn(null);
+
+        // skip initialize
+        connector.setConsumer((Consumer) consumer);
+
+        List<Object> objects = connector.read();
+        Assert.assertEquals(objects.size(), 1);
+        ConnectorRecord record = (ConnectorRecord) objects.get(0);
+        Assert.assertEquals(record.getValue(), "hello world");
+        Assert.assertEquals(record.getMetadata(PulsarConnector.METADATA_NAMESPACE, "topic"), "mytopic");
+        Assert.assertEquals(record.getMetadata(PulsarConnector.METADATA_NAMESPACE, "properties"), Collections.singletonMap("source", "mysource"));
+        Assert.assertEquals(record.getMetadata(PulsarConnector.METADATA_NAMESPACE, "messageId"), "1:2:3");
+        Assert.assertEquals(record.getMetadata(PulsarConnector.METADATA_NAMESPACE, "publishTime"), 1234L);
+        Assert.assertEquals(record.getMetadata(PulsarConnector.METADATA_NAMESPACE, "sequenceId"), 5L);
+        Assert.assertNull(record.getMetadata(PulsarConnector.METADATA_NAMESPACE, "key"));
+        Assert.assertNull(record.getMetadata(PulsarConnector.METADATA_NAMESPACE, "eventTime"));
+        Assert.assertNull(record.getMetadata(PulsarConnector.METADATA_NAMESPACE, "dne"));
+        Assert.assertNull(record.getMetadata(KafkaConnector.METADATA_NAMESPACE, "topic"));
+
+        Mockito.when(message.hasKey()).thenReturn(true);
+        Mockito.when(message.getKey()).thenReturn("mykey");
+        Mockito.when(message.getEventTime()).thenReturn(5678L);
+        Assert.assertEquals(record.getMetadata(PulsarConnector.METADATA_NAMESPACE, "key"), "mykey");
+        Assert.assertEquals(record.getMetadata(PulsarConnector.METADATA_NAMESPACE, "eventTime"), 5678L);
+    }
+
     @Test
     public void testReadAckSync() throws Exception {
         config.set(BulletDSLConfig.CONNECTOR_ASYNC_COMMIT_ENABLE, false);
@@ -381,6 +428,218 @@ public class PulsarConnectorTest {
         connector.read();
     }
 
+    @Test
+    public void testReadMaxMessages() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_BATCH_MAX_MESSAGES, 3);
+
+        PulsarConnector connector = new PulsarConnector(config);
+        Consumer<Serializable> consumer = Mockito.mock(Consumer.class);
+        Schema<Serializable> schema = new JavaSchema();
+
+        Mockito.when(consumer.receive(Mockito.eq(100), Mockito.any()))
+               .thenReturn(new MessageImpl<>("mytopic", "1:1", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(1)), schema))
+               .thenReturn(new MessageImpl<>("mytopic", "2:2", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(2)), schema))
+               .thenReturn(new MessageImpl<>("mytopic", "3:3", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(3)), schema))
+               .thenReturn(new MessageImpl<>("mytopic", "4:4", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(4)), schema))
+               .thenReturn(null);
+
+        // skip initialize
+        connector.setConsumer((Consumer) consumer);
+
+        Assert.assertEquals(connector.read(), Arrays.asList(1, 2, 3));
+        Assert.assertEquals(connector.read(), Collections.singletonList(4));
+        Mockito.verify(consumer, Mockito.times(4)).acknowledgeAsync(Mockito.any(Message.class));
+    }
+
+    @Test
+    public void testReadMaxBytes() throws Exception {
+        Schema<Serializable> schema = new JavaSchema();
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_BATCH_MAX_BYTES, schema.encode("hello world").length + 1);
+
+        PulsarConnector connector = new PulsarConnector(config);
+        Consumer<Serializable> consumer = Mockito.mock(Consumer.class);
+
+        Mockito.when(consumer.receive(Mockito.eq(100), Mockito.any()))
+               .thenReturn(new MessageImpl<>("mytopic", "1:1", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode("hello world")), schema))
+               .thenReturn(new MessageImpl<>("mytopic", "2:2", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode("hello world!")), schema))
+               .thenReturn(new MessageImpl<>("mytopic", "3:3", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode("hello")), schema))
+               .thenReturn(null);
+
+        // skip initialize
+        connector.setConsumer((Consumer) consumer);
+
+        // The read stops after the message that reaches the limit
+        Assert.assertEquals(connector.read(), Arrays.asList("hello world", "hello world!"));
+        Assert.assertEquals(connector.read(), Collections.singletonList("hello"));
+    }
+
+    @Test
+    public void testReadBatchTimeout() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_BATCH_TIMEOUT_MS, 50);
+        Assert.assertTrue(new PulsarConnector(config).now() > 0L);
+
+        long[] clock = {0L};
+        PulsarConnector connector = new PulsarConnector(config) {
+            @Override
+            long now() {
+                return clock[0];
+            }
+        };
+        Consumer<Serializable> consumer = Mockito.mock(Consumer.class);
+        Schema<Serializable> schema = new JavaSchema();
+
+        // Each message arrives 20ms after it is waited for
+        Mockito.when(consumer.receive(Mockito.anyInt(), Mockito.any())).thenAnswer(invocation -> {
+            clock[0] += 20L;
+            return new MessageImpl<>("mytopic", "1:1", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(1)), schema);
+        });
+
+        // skip initialize
+        connector.setConsumer((Consumer) consumer);
+
+        List<Object> objects = connector.read();
+        Assert.assertEquals(objects.size(), 3);
+        // The remaining time bounds the wait for a message
+        Mockito.verify(consumer).receive(Mockito.eq(50), Mockito.any());
+        Mockito.verify(consumer).receive(Mockito.eq(30), Mockito.any());
+        Mockito.verify(consumer).receive(Mockito.eq(10), Mockito.any());
+        Mockito.verify(consumer, Mockito.times(3)).receive(Mockito.anyInt(), Mockito.any());
+    }
+
+    @Test
+    public void testReadCumulativeAckSync() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_ASYNC_COMMIT_ENABLE, false);
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_ACK_CUMULATIVE_ENABLE, true);
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_CONSUMER_SUBSCRIPTION_TYPE, "Failover");
+
+        PulsarConnector connector = new PulsarConnector(config);
+        Consumer<Serializable> consumer = Mockito.mock(Consumer.class);
+        Schema<Serializable> schema = new JavaSchema();
+
+        Message<Serializable> lastA = new MessageImpl<>("topicA", "3:3", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(3)), schema);
+        Message<Serializable> lastB = new MessageImpl<>("topicB", "2:2", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(2)), schema);
+        Mockito.when(consumer.receive(Mockito.eq(100), Mockito.any()))
+               .thenReturn(new MessageImpl<>("topicA", "1:1", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(1)), schema))
+               .thenReturn(lastB)
+               .thenReturn(lastA)
+               .thenReturn(null);
+
+        // skip initialize
+        connector.setConsumer((Consumer) consumer);
+
+        Assert.assertEquals(connector.read(), Arrays.asList(1, 2, 3));
+        Mockito.verify(consumer).acknowledgeCumulative(lastA);
+        Mockito.verify(consumer).acknowledgeCumulative(lastB);
+        Mockito.verify(consumer, Mockito.never()).acknowledge(Mockito.any(Message.class));
+        Mockito.verify(consumer, Mockito.never()).acknowledgeAsync(Mockito.any(Message.class));
+    }
+
+    @Test
+    public void testDeferredAcknowledgement() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_ASYNC_COMMIT_ENABLE, false);
+
+        PulsarConnector connector = new PulsarConnector(config);
+        Consumer<Serializable> consumer = Mockito.mock(Consumer.class);
+        Schema<Serializable> schema = new JavaSchema();
+
+        Message<Serializable> first = new MessageImpl<>("topicA", "1:1", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(1)), schema);
+        Message<Serializable> second = new MessageImpl<>("topicA", "2:2", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(2)), schema);
+        Message<Serializable> third = new MessageImpl<>("topicA", "3:3", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(3)), schema);
+        Mockito.when(consumer.receive(Mockito.eq(100), Mockito.any())).thenReturn(first, second, null, null, third, null);
+
+        // skip initialize
+        connector.setConsumer((Consumer) consumer);
+        Assert.assertTrue(connector.deferCommits());
+
+        Assert.assertEquals(connector.read(), Arrays.asList(1, 2));
+        Assert.assertTrue(connector.read().isEmpty());
+        Assert.assertEquals(connector.read(), Collections.singletonList(3));
+        Mockito.verify(consumer, Mockito.never()).acknowledge(Mockito.any(Message.class));
+
+        // Empty reads are not delivered
+        connector.delivered();
+        Mockito.verify(consumer).acknowledge(first);
+        Mockito.verify(consumer).acknowledge(second);
+        Mockito.verify(consumer, Mockito.never()).acknowledge(third);
+    }
+
+    @Test
+    public void testDeferredCumulativeAcknowledgement() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_ACK_CUMULATIVE_ENABLE, true);
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_CONSUMER_SUBSCRIPTION_TYPE, "Exclusive");
+
+        PulsarConnector connector = new PulsarConnector(config);
+        Consumer<Serializable> consumer = Mockito.mock(Consumer.class);
+        Schema<Serializable> schema = new JavaSchema();
+
+        Message<Serializable> lastA = new MessageImpl<>("topicA", "3:3", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(3)), schema);
+        Message<Serializable> lastB = new MessageImpl<>("topicB", "2:2", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(2)), schema);
+        Mockito.when(consumer.receive(Mockito.eq(100), Mockito.any()))
+               .thenReturn(new MessageImpl<>("topicA", "1:1", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(1)), schema))
+               .thenReturn(lastB)
+               .thenReturn(lastA)
+               .thenReturn(null);
+
+        // skip initialize
+        connector.setConsumer((Consumer) consumer);
+        Assert.assertTrue(connector.deferCommits());
+
+        Assert.assertEquals(connector.read(), Arrays.asList(1, 2, 3));
+        Mockito.verify(consumer, Mockito.never()).acknowledgeCumulativeAsync(Mockito.any(Message.class));
+
+        connector.delivered();
+        Mockito.verify(consumer).acknowledgeCumulativeAsync(lastA);
+        Mockito.verify(consumer).acknowledgeCumulativeAsync(lastB);
+        Mockito.verify(consumer, Mockito.times(2)).acknowledgeCumulativeAsync(Mockito.any(Message.class));
+    }
+
+    @Test
+    public void testReadCumulativeAckAsync() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_ACK_CUMULATIVE_ENABLE, true);
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_CONSUMER_SUBSCRIPTION_TYPE, "Exclusive");
+
+        PulsarConnector connector = new PulsarConnector(config);
+        Consumer<Serializable> consumer = Mockito.mock(Consumer.class);
+        Schema<Serializable> schema = new JavaSchema();
+
+        Message<Serializable> last = new MessageImpl<>("mytopic", "2:2", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(2)), schema);
+        Mockito.when(consumer.receive(Mockito.eq(100), Mockito.any()))
+               .thenReturn(new MessageImpl<>("mytopic", "1:1", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(1)), schema))
+               .thenReturn(last)
+               .thenReturn(null);
+
+        // skip initialize
+        connector.setConsumer((Consumer) consumer);
+
+        Assert.assertEquals(connector.read(), Arrays.asList(1, 2));
+        Mockito.verify(consumer).acknowledgeCumulativeAsync(last);
+        Mockito.verify(consumer, Mockito.times(1)).acknowledgeCumulativeAsync(Mockito.any(Message.class));
+
+        // Nothing to acknowledge
+        Assert.assertTrue(connector.read().isEmpty());
+        Mockito.verify(consumer, Mockito.times(1)).acknowledgeCumulativeAsync(Mockito.any(Message.class));
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not acknowledge message\\.")
+    public void testReadCumulativeAckSyncThrows() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_ASYNC_COMMIT_ENABLE, false);
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_ACK_CUMULATIVE_ENABLE, true);
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_CONSUMER_SUBSCRIPTION_TYPE, "Exclusive");
+
+        PulsarConnector connector = new PulsarConnector(config);
+        Consumer<Serializable> consumer = Mockito.mock(Consumer.class);
+        Schema<Serializable> schema = new JavaSchema();
+
+        Mockito.when(consumer.receive(Mockito.eq(100), Mockito.any()))
+               .thenReturn(new MessageImpl<>("mytopic", "1:1", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode("hello world")), schema))
+               .thenReturn(null);
+        Mockito.doThrow(new PulsarClientException("mock exception")).when(consumer).acknowledgeCumulative(Mockito.any(Message.class));
+
+        // skip initialize
+        connector.setConsumer((Consumer) consumer);
+        connector.read();
+    }
+
     @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not read from consumer\\.")
     public void testReadConsumerThrows() throws Exception {
         PulsarConnector connector = new PulsarConnector(config);
@@ -393,4 +652,197 @@ public class PulsarConnectorTest {
         connector.read();
     }
 
+
+    @Test
+    public void testReadAsync() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_BATCH_MAX_MESSAGES, 3);
+
+        PulsarConnector connector = new PulsarConnector(config);
+        Consumer<Serializable> consumer = Mockito.mock(Consumer.class);
+        Schema<Serializable> schema = new JavaSchema();
+
+        CompletableFuture<Message<Serializable>> received = new CompletableFuture<>();
+        Mockito.when(consumer.receiveAsync()).thenReturn(received);
+        Mockito.when(consumer.receive(Mockito.eq(0), Mockito.any()))
+               .thenReturn(new MessageImpl<>("mytopic", "2:2", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(2)), schema))
+               .thenReturn(new MessageImpl<>("mytopic", "3:3", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(3)), schema))
+               .thenReturn(new MessageImpl<>("mytopic", "4:4", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(4)), schema));
+
+        // skip initialize
+        connector.setConsumer((Consumer) consumer);
+        connector.setExecutor(Runnable::run);
+
+        CompletableFuture<List<Object>> result = connector.readAsync();
+        Assert.assertFalse(result.isDone());
+        received.complete(new MessageImpl<>("mytopic", "1:1", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(1)), schema));
+
+        // Only takes what fits in the batch
+        Assert.assertEquals(result.get(), Arrays.asList(1, 2, 3));
+        Mockito.verify(consumer, Mockito.times(3)).acknowledgeAsync(Mockito.any(Message.class));
+        Mockito.verify(consumer, Mockito.never()).receive(Mockito.eq(100), Mockito.any());
+    }
+
+    @Test
+    public void testReadAsyncMaxBytes() throws Exception {
+        Schema<Serializable> schema = new JavaSchema();
+        byte[] data = schema.encode(2);
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_BATCH_MAX_BYTES, 2 * data.length);
+
+        PulsarConnector connector = new PulsarConnector(config);
+        Consumer<Serializable> consumer = Mockito.mock(Consumer.class);
+
+        Mockito.when(consumer.receiveAsync()).thenReturn(CompletableFuture.completedFuture(new MessageImpl<>("mytopic", "1:1", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(1)), schema)));
+        Mockito.when(consumer.receive(Mockito.eq(0), Mockito.any()))
+               .thenReturn(new MessageImpl<>("mytopic", "2:2", Collections.emptyMap(), Unpooled.wrappedBuffer(data), schema))
+               .thenReturn(new MessageImpl<>("mytopic", "3:3", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(3)), schema));
+
+        // skip initialize
+        connector.setConsumer((Consumer) consumer);
+        connector.setExecutor(Runnable::run);
+
+        // Stops once the messages reach the size limit
+        Assert.assertEquals(connector.readAsync().get(), Arrays.asList(1, 2));
+        Mockito.verify(consumer, Mockito.times(2)).acknowledgeAsync(Mockito.any(Message.class));
+    }
+
+    @Test
+    public void testReadAsyncCumulativeAck() throws Exception {
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_ACK_CUMULATIVE_ENABLE, true);
+        config.set(BulletDSLConfig.CONNECTOR_PULSAR_CONSUMER_SUBSCRIPTION_TYPE, "Exclusive");
+
+        PulsarConnector connector = new PulsarConnector(config);
+        Consumer<Serializable> consumer = Mockito.mock(Consumer.class);
+        Schema<Serializable> schema = new JavaSchema();
+
+        Message<Serializable> last = new MessageImpl<>("mytopic", "2:2", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(2)), schema);
+        Mockito.when(consumer.receiveAsync()).thenReturn(CompletableFuture.completedFuture(
+                new MessageImpl<>("mytopic", "1:1", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(1)), schema)));
+        Mockito.when(consumer.receive(Mockito.eq(0), Mockito.any())).thenReturn(last).thenReturn(null);
+
+        // skip initialize
+        connector.setConsumer((Consumer) consumer);
+        connector.setExecutor(Runnable::run);
+
+        Assert.assertEquals(connector.readAsync().get(), Arrays.asList(1, 2));
+        Mockito.verify(consumer).acknowledgeCumulativeAsync(last);
+        Mockito.verify(consumer, Mockito.times(1)).acknowledgeCumulativeAsync(Mockito.any(Message.class));
+    }
+
+    @Test
+    public void testReadAsyncCancelledKeepsMessages() throws Exception {
+        PulsarConnector connector = new PulsarConnector(config);
+        Consumer<Serializable> consumer = Mockito.mock(Consumer.class);
+        Schema<Serializable> schema = new JavaSchema();
+
+        CompletableFuture<Message<Serializable>> received = new CompletableFuture<>();
+        Mockito.when(consumer.receiveAsync()).thenReturn(received);
+
+        // skip initialize
+        connector.setConsumer((Consumer) consumer);
+        connector.setExecutor(Runnable::run);
+
+        connector.readAsync().cancel(false);
+        received.complete(new MessageImpl<>("mytopic", "1:1", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(1)), schema));
+        Mockito.verify(consumer, Mockito.never()).acknowledgeAsync(Mockito.any(Message.class));
+        Mockito.verify(consumer, Mockito.never()).receive(Mockito.anyInt(), Mockito.any());
+
+        // The message that was not handed over is returned by the next read instead of being redelivered
+        Assert.assertEquals(connector.readAsync().get(), Collections.singletonList(1));
+        Mockito.verify(consumer, Mockito.times(1)).receiveAsync();
+        Mockito.verify(consumer).acknowledgeAsync(Mockito.any(Message.class));
+        Mockito.verify(consumer, Mockito.never()).redeliverUnacknowledgedMessages();
+    }
+
+    @Test
+    public void testReadAsyncDrainFailsKeepsMessages() throws Exception {
+        PulsarConnector connector = new PulsarConnector(config);
+        Consumer<Serializable> consumer = Mockito.mock(Consumer.class);
+        Schema<Serializable> schema = new JavaSchema();
+
+        Mockito.when(consumer.receiveAsync()).thenReturn(CompletableFuture.completedFuture(
+                new MessageImpl<>("mytopic", "1:1", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(1)), schema)));
+        Mockito.when(consumer.receive(0, TimeUnit.MILLISECONDS)).thenThrow(new PulsarClientException("mock exception"))
+               .thenReturn(new MessageImpl<>("mytopic", "2:2", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(2)), schema))
+               .thenReturn(null);
+
+        // skip initialize
+        connector.setConsumer((Consumer) consumer);
+        connector.setExecutor(Runnable::run);
+
+        try {
+            connector.readAsync().get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertEquals(e.getCause().getMessage(), "Could not read from consumer.");
+        }
+        Mockito.verify(consumer, Mockito.never()).acknowledgeAsync(Mockito.any(Message.class));
+
+        Assert.assertEquals(connector.readAsync().get(), Arrays.asList(1, 2));
+        Mockito.verify(consumer, Mockito.times(1)).receiveAsync();
+        Mockito.verify(consumer, Mockito.times(2)).acknowledgeAsync(Mockito.any(Message.class));
+        Mockito.verify(consumer, Mockito.never()).redeliverUnacknowledgedMessages();
+    }
+
+    @Test
+    public void testReadAsyncDrainsOffClientThread() throws Exception {
+        PulsarConnector connector = new PulsarConnector(config);
+        Consumer<Serializable> consumer = Mockito.mock(Consumer.class);
+        Schema<Serializable> schema = new JavaSchema();
+
+        CompletableFuture<Message<Serializable>> received = new CompletableFuture<>();
+        Mockito.when(consumer.receiveAsync()).thenReturn(received);
+        List<Thread> threads = new ArrayList<>();
+        Mockito.when(consumer.receive(0, TimeUnit.MILLISECONDS)).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread());
+            return null;
+        });
+
+        // skip initialize
+        connector.setConsumer((Consumer) consumer);
+
+        CompletableFuture<List<Object>> result = connector.readAsync();
+        received.complete(new MessageImpl<>("mytopic", "1:1", Collections.emptyMap(), Unpooled.wrappedBuffer(schema.encode(1)), schema));
+        Assert.assertEquals(result.get(), Collections.singletonList(1));
+        Assert.assertEquals(threads.size(), 1);
+        Assert.assertNotEquals(threads.get(0), Thread.currentThread());
+    }
+
+    @Test
+    public void testReadAsyncWithDeferredCommits() throws Exception {
+        PulsarConnector connector = new PulsarConnector(config);
+        Consumer<Object> consumer = Mockito.mock(Consumer.class);
+
+        // skip initialize
+        connector.setConsumer(consumer);
+        connector.deferCommits();
+
+        try {
+            connector.readAsync().get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof BulletDSLException);
+            Assert.assertEquals(e.getCause().getMessage(), "Cannot read asynchronously if commits are deferred.");
+        }
+        Mockito.verify(consumer, Mockito.never()).receiveAsync();
+    }
+
+    @Test
+    public void testReadAsyncFails() throws Exception {
+        PulsarConnector connector = new PulsarConnector(config);
+        Consumer<Object> consumer = Mockito.mock(Consumer.class);
+        CompletableFuture<Message<Object>> received = new CompletableFuture<>();
+        received.completeExceptionally(new PulsarClientException("mock exception"));
+        Mockito.when(consumer.receiveAsync()).thenReturn(received);
+
+        // skip initialize
+        connector.setConsumer(consumer);
+
+        try {
+            connector.readAsync().get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof BulletDSLException);
+            Assert.assertEquals(e.getCause().getMessage(), "Could not read from consumer.");
+        }
+    }
 }
@@ -0,0 +1,421 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.converter;
+
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.dsl.BulletDSLException;
+import com.yahoo.bullet.dsl.DummyAvro;
+import com.yahoo.bullet.record.BulletRecord;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.generic.GenericRecordBuilder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+
+public class AvroBinaryBulletRecordConverterTest {
+    private static final Schema SCHEMA = SchemaBuilder.record("Test").namespace("foo")
+                                                      .fields()
+                                                          .name("enumeration").type().enumeration("enumeration").symbols("one", "two").noDefault()
+                                                          .name("mapOfRecord").type().map().values()
+                                                              .record("inner").fields()
+                                                                  .name("first").type().stringType().noDefault()
+                                                                  .name("second").type().nullable().intType().noDefault()
+                                                              .endRecord().noDefault()
+                                                          .name("string").type().stringType().noDefault()
+                                                      .endRecord();
+
+    private static byte[] encode(Schema schema, GenericRecord record) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+        new GenericDatumWriter<GenericRecord>(schema).write(record, encoder);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] encode(DummyAvro dummyAvro) throws IOException {
+        return encode(DummyAvro.getClassSchema(), dummyAvro);
+    }
+
+    private static byte[] encode(Map<String, Object> innerFields) throws IOException {
+        Schema inner = SCHEMA.getField("mapOfRecord").schema().getValueType();
+        GenericRecordBuilder innerBuilder = new GenericRecordBuilder(inner);
+        innerFields.forEach(innerBuilder::set);
+        GenericRecord record = new GenericRecordBuilder(SCHEMA).set("enumeration", new GenericData.EnumSymbol(SCHEMA.getField("enumeration").schema(), "two"))
+                                                                .set("mapOfRecord", singletonMap("a", innerBuilder.build()))
+                                                                .set("string", "foo")
+                                                                .build();
+        return encode(SCHEMA, record);
+    }
+
+    private static AvroBinaryBulletRecordConverter makeConverter(String schemaFile) throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_AVRO_CLASS_NAME, DummyAvro.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, schemaFile);
+        config.validate();
+        return new AvroBinaryBulletRecordConverter(config);
+    }
+
+    private static AvroBinaryBulletRecordConverter makeTestSchemaConverter(String schemaFile) throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_AVRO_SCHEMA_FILE, SCHEMA.toString());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, schemaFile);
+        config.validate();
+        return new AvroBinaryBulletRecordConverter(config);
+    }
+
+    private static DummyAvro makeDummyAvro() {
+        DummyAvro dummyAvro = new DummyAvro();
+        dummyAvro.setMyBool(true);
+        dummyAvro.setMyDouble(0.12);
+        dummyAvro.setMyFloat(3.45f);
+        dummyAvro.setMyInt(678);
+        dummyAvro.setMyIntList(Arrays.asList(0, 1, 2, 3));
+        dummyAvro.setMyLong(1112L);
+        dummyAvro.setMyString("1314");
+        dummyAvro.setMyStringMap(singletonMap("aaa", "hello"));
+        return dummyAvro;
+    }
+
+    @Test
+    public void testConvertWithoutSchema() throws Exception {
+        DummyAvro dummyAvro = makeDummyAvro();
+
+        BulletRecord record = makeConverter(null).convert(encode(dummyAvro));
+
+        Assert.assertEquals(record.fieldCount(), 8);
+        Assert.assertEquals(record.typedGet("myBool").getValue(), dummyAvro.getMyBool());
+        Assert.assertEquals(record.typedGet("myDouble").getValue(), dummyAvro.getMyDouble());
+        Assert.assertEquals(record.typedGet("myFloat").getValue(), dummyAvro.getMyFloat());
+        Assert.assertEquals(record.typedGet("myInt").getValue(), dummyAvro.getMyInt());
+        Assert.assertEquals(record.typedGet("myIntList").getValue(), dummyAvro.getMyIntList());
+        Assert.assertEquals(record.typedGet("myLong").getValue(), dummyAvro.getMyLong());
+        Assert.assertEquals(record.typedGet("myString").getValue(), dummyAvro.getMyString());
+        Assert.assertEquals(record.typedGet("myStringMap").getValue(), dummyAvro.getMyStringMap());
+    }
+
+    @Test
+    public void testConvertWithAvroSchemaFile() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_AVRO_SCHEMA_FILE, BulletDSLConfig.FILE_PREFIX + "src/test/avro/DummyAvro.avsc");
+        config.validate();
+
+        BulletRecord record = new AvroBinaryBulletRecordConverter(config).convert(encode(makeDummyAvro()));
+
+        Assert.assertEquals(record.typedGet("myString").getValue(), "1314");
+    }
+
+    @Test
+    public void testSchema() throws Exception {
+        DummyAvro another = makeDummyAvro();
+        another.setMyInt(100);
+        DummyAvro dummyAvro = makeDummyAvro();
+        dummyAvro.setMyDummyAvro(another);
+
+        BulletRecord record = makeConverter("schemas/dummy.json").convert(encode(dummyAvro));
+
+        Assert.assertEquals(record.fieldCount(), 9);
+        Assert.assertEquals(record.typedGet("myBool").getValue(), true);
+        Assert.assertEquals(record.typedGet("myLong").getValue(), 1112L);
+        Assert.assertEquals(record.typedGet("myFloat").getValue(), 3.45f);
+        Assert.assertEquals(record.typedGet("myDouble").getValue(), 0.12);
+        Assert.assertEquals(record.typedGet("myIntList").getValue(), dummyAvro.getMyIntList());
+        Assert.assertEquals(record.typedGet("myStringMap").getValue(), dummyAvro.getMyStringMap());
+        Assert.assertEquals(record.typedGet("myDummyInt").getValue(), 100);
+        Assert.assertEquals(record.typedGet("aaa").getValue(), "hello");
+        Assert.assertEquals(record.typedGet("bbb").getValue(), 2);
+    }
+
+    @Test
+    public void testLazyIsIgnored() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_AVRO_CLASS_NAME, DummyAvro.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/dummy.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_LAZY_ENABLE, true);
+        config.validate();
+
+        BulletRecord record = new AvroBinaryBulletRecordConverter(config).convert(encode(makeDummyAvro()));
+
+        Assert.assertFalse(record instanceof LazyBulletRecord);
+        Assert.assertEquals(record.typedGet("bbb").getValue(), 2);
+    }
+
+    @Test
+    public void testSchemaFromByteBuffers() throws Exception {
+        AvroBinaryBulletRecordConverter converter = makeConverter("schemas/dummy.json");
+        byte[] bytes = encode(makeDummyAvro());
+
+        ByteBuffer heap = ByteBuffer.allocate(bytes.length + 2);
+        heap.position(2);
+        heap.put(bytes);
+        heap.position(2);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes);
+        direct.flip();
+
+        Assert.assertEquals(converter.convert(heap).typedGet("aaa").getValue(), "hello");
+        Assert.assertEquals(converter.convert(direct).typedGet("aaa").getValue(), "hello");
+        Assert.assertEquals(direct.position(), 0);
+        Assert.assertEquals(converter.convert(bytes).typedGet("bbb").getValue(), 2);
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not convert field: \\{name: bbb, reference: myIntList.2, type: INTEGER\\}")
+    public void testSchemaIndexOutOfBounds() throws Exception {
+        DummyAvro dummyAvro = makeDummyAvro();
+        dummyAvro.setMyIntList(singletonList(0));
+
+        makeConverter("schemas/dummy.json").convert(encode(dummyAvro));
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not convert field: \\{name: myBytes, reference: myBytes, type: BOOLEAN\\}")
+    public void testSchemaWrongType() throws Exception {
+        DummyAvro dummyAvro = makeDummyAvro();
+        dummyAvro.setMyBytes(ByteBuffer.allocate(1));
+
+        // Bytes are decoded like any other value, so only type checking catches them
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_AVRO_CLASS_NAME, DummyAvro.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/dummy.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_ENABLE, true);
+        config.validate();
+        new AvroBinaryBulletRecordConverter(config).convert(encode(dummyAvro));
+    }
+
+    @Test
+    public void testSchemaRecordFromMapAndAvroRecord() throws Exception {
+        DummyAvro another = new DummyAvro();
+        another.setMyBool(true);
+        another.setMyInt(1);
+        another.setMyLong(2L);
+        another.setMyFloat(3.0f);
+        another.setMyDouble(4.0);
+        another.setMyString("5.0");
+        DummyAvro dummyAvro = makeDummyAvro();
+        dummyAvro.setMyIntList(null);
+        dummyAvro.setMyDummyAvro(another);
+
+        BulletRecord record = makeConverter("schemas/dummyrecord.json").convert(encode(dummyAvro));
+
+        Assert.assertEquals(record.fieldCount(), 7);
+        Assert.assertEquals(record.typedGet("aaa").getValue(), "hello");
+        Assert.assertEquals(record.typedGet("myBool").getValue(), true);
+        Assert.assertEquals(record.typedGet("myInt").getValue(), 1);
+        Assert.assertEquals(record.typedGet("myLong").getValue(), 2L);
+        Assert.assertEquals(record.typedGet("myFloat").getValue(), 3.0f);
+        Assert.assertEquals(record.typedGet("myDouble").getValue(), 4.0);
+        Assert.assertEquals(record.typedGet("myString").getValue(), "5.0");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDecodeTypes() throws Exception {
+        Map<String, Object> innerFields = new HashMap<>();
+        innerFields.put("first", "bar");
+        innerFields.put("second", 5);
+
+        AvroBinaryBulletRecordConverter converter = makeTestSchemaConverter(null);
+        BulletRecord record = converter.convert(encode(innerFields));
+
+        Assert.assertEquals(record.typedGet("enumeration").getValue(), "two");
+        Assert.assertEquals(record.typedGet("string").getValue(), "foo");
+        Map<String, Map<String, Object>> mapOfRecord = (Map<String, Map<String, Object>>) record.typedGet("mapOfRecord").getValue();
+        Assert.assertEquals(mapOfRecord.get("a"), innerFields);
+    }
+
+    @Test
+    public void testDecodeBytes() throws Exception {
+        Schema schema = SchemaBuilder.record("Bytes").fields()
+                                         .name("bytes").type().bytesType().noDefault()
+                                         .name("fixed").type().fixed("four").size(4).noDefault()
+                                         .name("int").type().intType().noDefault()
+                                     .endRecord();
+        GenericRecord avro = new GenericRecordBuilder(schema).set("bytes", ByteBuffer.wrap(new byte[] {1, 2}))
+                                                             .set("fixed", new GenericData.Fixed(schema.getField("fixed").schema(), new byte[] {3, 4, 5, 6}))
+                                                             .set("int", 7)
+                                                             .build();
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_AVRO_SCHEMA_FILE, schema.toString());
+        config.validate();
+
+        BulletRecord record = new AvroBinaryBulletRecordConverter(config).convert(encode(schema, avro));
+
+        // Bullet has no type for bytes, so they are skipped like the other untyped values
+        Assert.assertEquals(record.fieldCount(), 1);
+        Assert.assertEquals(record.typedGet("int").getValue(), 7);
+
+        AvroBinaryBulletRecordConverter converter = new AvroBinaryBulletRecordConverter(config);
+        Assert.assertEquals((byte[]) converter.get(encode(schema, avro), "bytes"), new byte[] {1, 2});
+        Assert.assertEquals((byte[]) converter.get(encode(schema, avro), "fixed"), new byte[] {3, 4, 5, 6});
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Avro binary records must be a byte\\[\\] or a ByteBuffer: class java\\.lang\\.String")
+    public void testConvertNotBinary() throws Exception {
+        makeConverter(null).convert("foo");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Avro binary records must be a byte\\[\\] or a ByteBuffer: null")
+    public void testGetNotBinary() throws Exception {
+        makeConverter(null).get(null, "myInt");
+    }
+
+    @Test
+    public void testSchemaSkipsAndReadsThroughMaps() throws Exception {
+        Map<String, Object> innerFields = new HashMap<>();
+        innerFields.put("first", "bar");
+        innerFields.put("second", null);
+
+        BulletRecord record = makeTestSchemaConverter("schemas/avrobinary.json").convert(encode(innerFields));
+
+        Assert.assertEquals(record.fieldCount(), 2);
+        Assert.assertEquals(record.typedGet("first").getValue(), "bar");
+        Assert.assertEquals(record.typedGet("string").getValue(), "foo");
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Failed to decode avro record\\.")
+    public void testConvertTruncated() throws Exception {
+        byte[] bytes = encode(makeDummyAvro());
+        makeConverter("schemas/dummy.json").convert(Arrays.copyOf(bytes, 4));
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not get avro schema from class name: java\\.lang\\.String")
+    public void testBadClassName() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_AVRO_CLASS_NAME, String.class.getName());
+        new AvroBinaryBulletRecordConverter(config);
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        Map<String, Object> innerFields = new HashMap<>();
+        innerFields.put("first", "bar");
+        innerFields.put("second", 5);
+
+        AvroBinaryBulletRecordConverter converter = makeTestSchemaConverter(null);
+        byte[] bytes = encode(innerFields);
+
+        Assert.assertEquals(converter.get(bytes, "enumeration"), "two");
+        Assert.assertEquals(converter.get(ByteBuffer.wrap(bytes), "string"), "foo");
+        Assert.assertEquals(converter.get(bytes, "mapOfRecord"), singletonMap("a", innerFields));
+        Assert.assertNull(converter.get(bytes, "dne"));
+    }
+
+    @Test(expectedExceptions = UncheckedIOException.class, expectedExceptionsMessageRegExp = "Failed to decode avro record\\.")
+    public void testGetFailsOnBadBytes() throws Exception {
+        makeConverter(null).get(new byte[0], "myInt");
+    }
+
+    @Test
+    public void testConvertAllInParallel() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_AVRO_CLASS_NAME, DummyAvro.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/dummy.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_PARALLELISM, 4);
+        config.validate();
+        AvroBinaryBulletRecordConverter converter = new AvroBinaryBulletRecordConverter(config);
+
+        List<Object> objects = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            DummyAvro dummyAvro = makeDummyAvro();
+            dummyAvro.setMyLong((long) i);
+            objects.add(encode(dummyAvro));
+        }
+        List<BulletRecord> records = converter.convertAll(objects);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(records.get(i).typedGet("myLong").getValue(), (long) i);
+        }
+    }
+
+    @Test
+    public void testRequiredFields() throws Exception {
+        byte[] bytes = encode(makeDummyAvro());
+
+        AvroBinaryBulletRecordConverter converter = makeConverter(null);
+        converter.setRequiredFields(new HashSet<>(Arrays.asList("myLong", "myStringMap")));
+        BulletRecord record = converter.convert(bytes);
+        Assert.assertEquals(record.typedGet("myLong").getValue(), 1112L);
+        Assert.assertEquals(record.typedGet("myStringMap").getValue(), singletonMap("aaa", "hello"));
+        Assert.assertEquals(record.fieldCount(), 2);
+
+        converter = makeConverter("schemas/dummy.json");
+        converter.setRequiredFields(new HashSet<>(Arrays.asList("aaa", "bbb")));
+        record = converter.convert(bytes);
+        Assert.assertEquals(record.typedGet("aaa").getValue(), "hello");
+        Assert.assertEquals(record.typedGet("bbb").getValue(), 2);
+        Assert.assertEquals(record.fieldCount(), 2);
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        byte[] bytes = encode(makeDummyAvro());
+
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_AVRO_CLASS_NAME, DummyAvro.class.getName());
+        config.set(BulletDSLConfig.FILTER_PREDICATES, Arrays.asList(RecordFilterTest.makePredicate("myString", RecordFilter.EQUALS, "1314"),
+                                                                    RecordFilterTest.makePredicate("myIntList.3", RecordFilter.EXISTS, true)));
+        config.validate();
+        AvroBinaryBulletRecordConverter schemaless = new AvroBinaryBulletRecordConverter(config);
+        Assert.assertEquals(schemaless.convert(bytes).typedGet("myLong").getValue(), 1112L);
+        Assert.assertEquals(schemaless.convert(ByteBuffer.wrap(bytes)).typedGet("myLong").getValue(), 1112L);
+
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/dummy.json");
+        config.validate();
+        AvroBinaryBulletRecordConverter converter = new AvroBinaryBulletRecordConverter(config);
+        Assert.assertEquals(converter.convert(bytes).typedGet("bbb").getValue(), 2);
+
+        DummyAvro dummyAvro = makeDummyAvro();
+        dummyAvro.setMyIntList(Arrays.asList(0, 1, 2));
+        bytes = encode(dummyAvro);
+        Assert.assertNull(converter.convert(bytes));
+        Assert.assertNull(schemaless.convert(bytes));
+    }
+
+    @Test
+    public void testFilterEnum() throws Exception {
+        Map<String, Object> innerFields = new HashMap<>();
+        innerFields.put("first", "a");
+        innerFields.put("second", null);
+        byte[] bytes = encode(innerFields);
+
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_AVRO_SCHEMA_FILE, SCHEMA.toString());
+        config.set(BulletDSLConfig.FILTER_PREDICATES, singletonList(RecordFilterTest.makePredicate("enumeration", RecordFilter.IN, Arrays.asList("one", "two"))));
+        config.validate();
+        AvroBinaryBulletRecordConverter converter = new AvroBinaryBulletRecordConverter(config);
+        Assert.assertEquals(converter.convert(bytes).typedGet("string").getValue(), "foo");
+
+        config.set(BulletDSLConfig.FILTER_PREDICATES, singletonList(RecordFilterTest.makePredicate("enumeration", RecordFilter.EQUALS, "one")));
+        config.validate();
+        converter = new AvroBinaryBulletRecordConverter(config);
+        Assert.assertNull(converter.convert(bytes));
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Failed to decode avro record\\.")
+    public void testFilterFailsToDecode() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_AVRO_CLASS_NAME, DummyAvro.class.getName());
+        config.set(BulletDSLConfig.FILTER_PREDICATES, singletonList(RecordFilterTest.makePredicate("myString", RecordFilter.EXISTS, true)));
+        config.validate();
+        new AvroBinaryBulletRecordConverter(config).convert(new byte[] {1});
+    }
+}
@@ -24,10 +24,13 @@ import org.apache.avro.util.Utf8;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -135,6 +138,48 @@ public class AvroBulletRecordConverterTest {
         Assert.assertFalse(record.hasField("myDummyAvro"));
     }
 
+    @Test
+    public void testConvertWithoutSchemaTypesFromAvroSchema() throws Exception {
+        AvroBulletRecordConverter recordConverter = new AvroBulletRecordConverter();
+
+        // Empty containers are typed from the Avro schema
+        GenericRecord record = make(new Field("mapOfDouble", new HashMap<>()), new Field("listOfBoolean", new ArrayList<>()),
+                                    new Field("int", 1));
+        BulletRecord bulletRecord = recordConverter.convert(record);
+        Assert.assertEquals(bulletRecord.typedGet("mapOfDouble").getType(), Type.DOUBLE_MAP);
+        Assert.assertEquals(bulletRecord.typedGet("listOfBoolean").getType(), Type.BOOLEAN_LIST);
+        Assert.assertEquals(bulletRecord.typedGet("int").getType(), Type.INTEGER);
+
+        // The types are computed once per Avro schema
+        bulletRecord = recordConverter.convert(make(new Field("int", 2)));
+        Assert.assertEquals(bulletRecord.typedGet("int").getValue(), 2);
+    }
+
+    @Test
+    public void testToFieldTypes() {
+        Type[] types = AvroBulletRecordConverter.toFieldTypes(SCHEMA);
+        Assert.assertEquals(types, new Type[] {Type.STRING, Type.INTEGER, Type.STRING_MAP, null, Type.DOUBLE_MAP,
+                                               Type.STRING_MAP_MAP, null, null, Type.STRING_LIST, Type.BOOLEAN_LIST,
+                                               Type.STRING_MAP_LIST, null, null});
+    }
+
+    @Test
+    public void testToType() {
+        Schema nullSchema = Schema.create(Schema.Type.NULL);
+        Schema longSchema = Schema.create(Schema.Type.LONG);
+        Schema floatSchema = Schema.create(Schema.Type.FLOAT);
+
+        Assert.assertEquals(AvroBulletRecordConverter.toType(longSchema), Type.LONG);
+        Assert.assertEquals(AvroBulletRecordConverter.toType(floatSchema), Type.FLOAT);
+        Assert.assertEquals(AvroBulletRecordConverter.toType(Schema.create(Schema.Type.BOOLEAN)), Type.BOOLEAN);
+        Assert.assertEquals(AvroBulletRecordConverter.toType(Schema.createUnion(longSchema, nullSchema)), Type.LONG);
+        Assert.assertEquals(AvroBulletRecordConverter.toType(Schema.createArray(Schema.createMap(floatSchema))), Type.FLOAT_MAP_LIST);
+        Assert.assertNull(AvroBulletRecordConverter.toType(Schema.createUnion(longSchema, floatSchema)));
+        Assert.assertNull(AvroBulletRecordConverter.toType(Schema.createUnion(nullSchema, longSchema, floatSchema)));
+        Assert.assertNull(AvroBulletRecordConverter.toType(Schema.createMap(Schema.createUnion(nullSchema, longSchema))));
+        Assert.assertNull(AvroBulletRecordConverter.toType(Schema.create(Schema.Type.BYTES)));
+    }
+
     @Test(expectedExceptions = ClassCastException.class, expectedExceptionsMessageRegExp = "java\\.nio\\.HeapByteBuffer cannot be cast to java\\.io\\.Serializable")
     public void testConvertWithoutSchemaNotSerializable() throws Exception {
         DummyAvro dummyAvro = new DummyAvro();
@@ -160,6 +205,54 @@ public class AvroBulletRecordConverterTest {
         Assert.assertEquals(record.typedGet("myDouble").getValue(), 30.0);
     }
 
+    @Test
+    public void testLazySchema() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/dummy.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_LAZY_ENABLE, true);
+        config.validate();
+        AvroBulletRecordConverter recordConverter = new AvroBulletRecordConverter(config);
+
+        DummyAvro another = new DummyAvro();
+        another.setMyInt(100);
+        DummyAvro dummyAvro = new DummyAvro();
+        dummyAvro.setMyLong(10L);
+        dummyAvro.setMyStringMap(singletonMap("aaa", "hello"));
+        dummyAvro.setMyDummyAvro(another);
+
+        BulletRecord record = recordConverter.convert(dummyAvro);
+        Assert.assertTrue(record instanceof LazyBulletRecord);
+        Assert.assertEquals(record.typedGet("myDummyInt").getValue(), 100);
+        Assert.assertEquals(record.typedGet("aaa").getValue(), "hello");
+        Assert.assertEquals(record.fieldCount(), new AvroBulletRecordConverter("schemas/dummy.json").convert(dummyAvro).fieldCount());
+        Assert.assertEquals(record.typedGet("myLong").getValue(), 10L);
+    }
+
+    @Test
+    public void testLazySchemaRecord() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/dummyrecord.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_LAZY_ENABLE, true);
+        config.validate();
+        AvroBulletRecordConverter recordConverter = new AvroBulletRecordConverter(config);
+
+        DummyAvro another = new DummyAvro();
+        another.setMyInt(1);
+        another.setMyString("2");
+        another.setMyIntList(emptyList());
+        DummyAvro dummyAvro = new DummyAvro();
+        dummyAvro.setMyStringMap(singletonMap("aaa", "hello"));
+        dummyAvro.setMyDummyAvro(another);
+
+        // The entries of the nested Avro record are typed from its Avro schema
+        BulletRecord record = recordConverter.convert(dummyAvro);
+        Assert.assertEquals(record.typedGet("myInt"), new TypedObject(Type.INTEGER, 1));
+        Assert.assertEquals(record.typedGet("myIntList"), new TypedObject(Type.INTEGER_LIST, new ArrayList<>()));
+        Assert.assertEquals(record.typedGet("aaa").getValue(), "hello");
+        Assert.assertFalse(record.hasField("dne"));
+        Assert.assertEquals(record.fieldCount(), new AvroBulletRecordConverter("schemas/dummyrecord.json").convert(dummyAvro).fieldCount());
+    }
+
     @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not convert field: \\{name: myBytes, reference: myBytes, type: BOOLEAN\\}")
     public void testSchemaWrongType() throws Exception {
         AvroBulletRecordConverter recordConverter = new AvroBulletRecordConverter("schemas/dummy.json");
@@ -531,6 +624,96 @@ public class AvroBulletRecordConverterTest {
         Assert.assertEquals(actual, expected);
     }
 
+    @Test
+    public void testStringFixingDoesNotModifyDatum() throws Exception {
+        AvroBulletRecordConverter converter = fixingConverter();
+        Schema stringMap = SCHEMA.getField("mapOfString").schema();
+        Schema stringList = SCHEMA.getField("listOfString").schema();
+
+        HashMap<CharSequence, Object> map = new HashMap<>();
+        map.put("foo", new Utf8("bar"));
+        map.put(null, "baz");
+        Map<String, Object> expectedMap = new HashMap<>();
+        expectedMap.put("foo", "bar");
+        expectedMap.put(null, "baz");
+        Assert.assertEquals(converter.fix(stringMap, map), expectedMap);
+        Assert.assertEquals(map.get("foo"), new Utf8("bar"));
+
+        List<Object> list = new ArrayList<>(Arrays.asList("foo", new Utf8("bar")));
+        Assert.assertEquals(converter.fix(stringList, list), Arrays.asList("foo", "bar"));
+        Assert.assertEquals(list.get(1), new Utf8("bar"));
+
+        // Serializable containers that need nothing fixed are kept as is
+        Map<String, Object> fixedMap = singletonMap("foo", "bar");
+        List<Object> fixedList = singletonList("foo");
+        Map<String, Double> doubleMap = singletonMap("foo", 1.0);
+        List<Boolean> booleanList = singletonList(true);
+        Assert.assertSame(converter.fix(stringMap, fixedMap), fixedMap);
+        Assert.assertSame(converter.fix(stringList, fixedList), fixedList);
+        Assert.assertSame(converter.fix(SCHEMA.getField("mapOfDouble").schema(), doubleMap), doubleMap);
+        Assert.assertSame(converter.fix(SCHEMA.getField("listOfBoolean").schema(), booleanList), booleanList);
+
+        // Other containers are copied
+        List<Object> stringSingleton = singletonList(new Utf8("foo"));
+        Assert.assertEquals(converter.fix(stringList, stringSingleton), singletonList("foo"));
+        Assert.assertEquals(converter.fix(stringMap, singletonMap(new Utf8("foo"), new Utf8("bar"))), singletonMap("foo", "bar"));
+        Schema booleanArray = SCHEMA.getField("listOfBoolean").schema().getTypes().get(1);
+        GenericData.Array<Boolean> array = new GenericData.Array<>(booleanArray, singletonList(true));
+        Assert.assertEquals(converter.fix(booleanArray, array), new ArrayList<>(singletonList(true)));
+    }
+
+    @Test
+    public void testStringFixingSameDatumTwice() throws Exception {
+        Schema innerSchema = SCHEMA.getField("mapOfRecordOfString").schema().getTypes().get(1).getValueType();
+        GenericRecord inner = make(innerSchema, new Field("firstField", new Utf8("foo")), new Field("secondField", new Utf8("qux")));
+        HashMap<CharSequence, Object> mapOfRecord = new HashMap<>(singletonMap("a", inner));
+        ArrayList<Object> listOfString = new ArrayList<>(singletonList(new Utf8("bar")));
+        GenericRecord input = make(new Field("string", new Utf8("baz")),
+                                   new Field("mapOfRecordOfString", mapOfRecord),
+                                   new Field("listOfString", listOfString));
+        AvroBulletRecordConverter converter = fixingConverter();
+
+        BulletRecord first = converter.convert(input);
+        BulletRecord second = converter.convert(input);
+
+        Map<String, String> expectedInner = new HashMap<>();
+        expectedInner.put("firstField", "foo");
+        expectedInner.put("secondField", "qux");
+        Assert.assertEquals(second, first);
+        Assert.assertEquals(second.typedGet("string").getValue(), "baz");
+        Assert.assertEquals(second.typedGet("listOfString").getValue(), singletonList("bar"));
+        Assert.assertEquals(second.typedGet("mapOfRecordOfString").getValue(), singletonMap("a", expectedInner));
+        Assert.assertSame(mapOfRecord.get("a"), inner);
+        Assert.assertEquals(listOfString.get(0), new Utf8("bar"));
+    }
+
+    @Test
+    public void testUnionFixingUsesDatumBranch() throws Exception {
+        Schema union = SchemaBuilder.unionOf().intType().and().stringType().and().array().items().stringType().endUnion();
+        AvroBulletRecordConverter converter = fixingConverter();
+
+        Assert.assertEquals(converter.fix(union, 1), 1);
+        Assert.assertEquals(converter.fix(union, new Utf8("foo")), "foo");
+        Assert.assertEquals(converter.fix(union, singletonList(new Utf8("foo"))), singletonList("foo"));
+    }
+
+    @Test
+    public void testUnionFixingCanBeOverridden() throws Exception {
+        Schema union = SchemaBuilder.unionOf().nullType().and().stringType().endUnion();
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_AVRO_STRING_TYPE_FIX_ENABLE, true);
+        config.validate();
+        AvroBulletRecordConverter converter = new AvroBulletRecordConverter(config) {
+            @Override
+            protected Serializable fixUnion(List<Schema> types, Object datum) {
+                return "overridden " + types.size();
+            }
+        };
+
+        Assert.assertEquals(converter.fix(union, new Utf8("foo")), "overridden 2");
+        Assert.assertEquals(converter.fix(Schema.createArray(union), singletonList(new Utf8("foo"))), singletonList("overridden 2"));
+    }
+
     @Test(expectedExceptions = UnsupportedOperationException.class, expectedExceptionsMessageRegExp = ".*null or unknown.*")
     public void testUnsupportedStringFixing() throws Exception {
         Schema unionSchema = SCHEMA.getField("unsupportedUnion").schema();
@@ -538,4 +721,28 @@ public class AvroBulletRecordConverterTest {
         GenericRecord input = make (new Field("unsupportedUnion", nested));
         fixingConverter().convert(input);
     }
+
+    @Test
+    public void testRequiredFields() throws Exception {
+        DummyAvro another = new DummyAvro();
+        another.setMyInt(1);
+        another.setMyString("2");
+        DummyAvro dummyAvro = new DummyAvro();
+        dummyAvro.setMyString("3");
+        dummyAvro.setMyDummyAvro(another);
+
+        AvroBulletRecordConverter recordConverter = new AvroBulletRecordConverter();
+        recordConverter.setRequiredFields(Collections.singleton("myString"));
+        BulletRecord record = recordConverter.convert(dummyAvro);
+        Assert.assertEquals(record.typedGet("myString").getValue(), "3");
+        Assert.assertEquals(record.fieldCount(), 1);
+
+        // Only the required fields of the nested Avro record are flattened
+        recordConverter = new AvroBulletRecordConverter("schemas/dummyrecord.json");
+        recordConverter.setRequiredFields(new HashSet<>(Arrays.asList("myInt", "myString")));
+        record = recordConverter.convert(dummyAvro);
+        Assert.assertEquals(record.typedGet("myInt").getValue(), 1);
+        Assert.assertEquals(record.typedGet("myString").getValue(), "2");
+        Assert.assertEquals(record.fieldCount(), 2);
+    }
 }
@@ -9,7 +9,12 @@ import com.yahoo.bullet.common.BulletConfig;
 import com.yahoo.bullet.dsl.BulletDSLConfig;
 import com.yahoo.bullet.dsl.BulletDSLException;
 import com.yahoo.bullet.dsl.DummyAvro;
+import com.yahoo.bullet.dsl.connector.ConnectorRecord;
 import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.record.simple.UntypedSimpleBulletRecord;
+import com.yahoo.bullet.record.simple.UntypedSimpleBulletRecordProvider;
+import com.yahoo.bullet.typesystem.Type;
+import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -18,8 +23,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class BulletRecordConverterTest {
 
@@ -34,6 +43,29 @@ public class BulletRecordConverterTest {
         }
     }
 
+    private static class MockConnectorRecord extends ConnectorRecord {
+        private final String namespace;
+        private final Map<String, Object> metadata;
+        private int reads;
+
+        MockConnectorRecord(String namespace, Object value, Map<String, Object> metadata) {
+            super(value);
+            this.namespace = namespace;
+            this.metadata = metadata;
+        }
+
+        @Override
+        protected String getNamespace() {
+            return namespace;
+        }
+
+        @Override
+        protected Object getMetadata(String key) {
+            reads++;
+            return metadata.get(key);
+        }
+    }
+
     private BulletDSLConfig config;
 
     @BeforeMethod
@@ -161,6 +193,54 @@ public class BulletRecordConverterTest {
         Assert.assertEquals(record.fieldCount(), 1);
     }
 
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not convert field: \\{name: myLongList, reference: myLongList, type: LONG_LIST\\}")
+    public void testMapWrongContainerEntryWithTypeChecking() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/all.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_ENABLE, true);
+        config.validate();
+
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+        converter.convert(Collections.singletonMap("myLongList", Arrays.asList(1L, 2L, 3)));
+    }
+
+    @Test
+    public void testMapSampledTypeChecking() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/all.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_ENABLE, true);
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_SAMPLE_SIZE, 2);
+        config.validate();
+
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        // Only the first two entries are checked
+        BulletRecord record = converter.convert(Collections.singletonMap("myLongList", Arrays.asList(1L, 2L, 3)));
+        Assert.assertEquals(record.typedGet("myLongList").getType(), Type.LONG_LIST);
+    }
+
+    @Test
+    public void testTypeCheckingTypesWithoutValidators() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_ENABLE, true);
+        config.validate();
+
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        HashMap<String, Object> mixed = new HashMap<>();
+        mixed.put("a", 1);
+        mixed.put("b", "2");
+        Assert.assertEquals(converter.getTypedObject("a", Type.UNKNOWN_MAP, mixed).getType(), Type.UNKNOWN_MAP);
+        Assert.assertEquals(converter.getTypedObject("a", Type.UNKNOWN_MAP_MAP, new HashMap<>()).getType(), Type.UNKNOWN_MAP);
+        Assert.assertEquals(converter.getTypedObject("a", Type.UNKNOWN_MAP_LIST, new ArrayList<>()).getType(), Type.UNKNOWN_LIST);
+        try {
+            converter.getTypedObject("a", Type.UNKNOWN_MAP_LIST, new ArrayList<>(Collections.singletonList(1)));
+            Assert.fail();
+        } catch (ClassCastException e) {
+            Assert.assertEquals(e.getMessage(), "Field a had type INTEGER_LIST instead of the expected UNKNOWN_MAP_LIST");
+        }
+    }
+
     @Test
     public void testMapUnknownTypesWithTypeChecking() throws Exception {
         config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
@@ -230,4 +310,610 @@ public class BulletRecordConverterTest {
 
         Assert.assertNull(converter.getField(0, "0"));
     }
+
+    @Test
+    public void testConvertAll() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/all.json");
+
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        List<Object> maps = Arrays.asList(Collections.singletonMap("myInt", 1), Collections.singletonMap("myString", "2"), Collections.emptyMap());
+        List<BulletRecord> records = converter.convertAll(maps);
+
+        Assert.assertEquals(records.size(), 3);
+        Assert.assertEquals(records.get(0).typedGet("myInt").getValue(), 1);
+        Assert.assertEquals(records.get(0).fieldCount(), 1);
+        Assert.assertEquals(records.get(1).typedGet("myString").getValue(), "2");
+        Assert.assertEquals(records.get(1).fieldCount(), 1);
+        Assert.assertEquals(records.get(2).fieldCount(), 0);
+        Assert.assertTrue(converter.convertAll(Collections.emptyList()).isEmpty());
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not convert field: \\{name: myBool, reference: myBool, type: BOOLEAN\\}")
+    public void testConvertAllFails() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/all.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_ENABLE, true);
+        config.validate();
+
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        converter.convertAll(Arrays.asList(Collections.singletonMap("myBool", true), Collections.singletonMap("myBool", 123)));
+    }
+
+    @Test
+    public void testConvertAllInParallel() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/all.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_PARALLELISM, 4);
+        config.validate();
+
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        List<Object> maps = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            maps.add(Collections.singletonMap("myInt", i));
+        }
+        List<BulletRecord> records = converter.convertAll(maps);
+
+        Assert.assertEquals(records.size(), 1000);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(records.get(i).typedGet("myInt").getValue(), i);
+        }
+        // Small batches are converted on the calling thread
+        Assert.assertEquals(converter.convertAll(maps.subList(0, 10)).size(), 10);
+    }
+
+    @Test
+    public void testCloseShutsDownParallelConversion() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/all.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_PARALLELISM, 4);
+        config.validate();
+        Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        BulletRecordConverter converter = new MockBulletRecordConverter(config) {
+            @Override
+            public BulletRecord convert(Object object, BulletRecord record) {
+                threads.add(Thread.currentThread());
+                return record;
+            }
+        }.build();
+
+        List<Object> objects = new ArrayList<>(Collections.nCopies(1000, 0));
+        // Closing before any parallel conversion does nothing
+        converter.close();
+        Assert.assertEquals(converter.convertAll(objects).size(), 1000);
+        threads.remove(Thread.currentThread());
+        Assert.assertFalse(threads.isEmpty());
+
+        converter.close();
+        for (Thread thread : threads) {
+            thread.join(5000L);
+            Assert.assertFalse(thread.isAlive());
+        }
+
+        // A new pool is started if the converter is used again
+        Assert.assertEquals(converter.convertAll(objects).size(), 1000);
+        converter.close();
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not convert field: \\{name: myBool, reference: myBool, type: BOOLEAN\\}")
+    public void testConvertAllInParallelFails() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/all.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_ENABLE, true);
+        config.set(BulletDSLConfig.RECORD_CONVERTER_PARALLELISM, 4);
+        config.validate();
+
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        List<Object> maps = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            maps.add(Collections.singletonMap("myBool", i == 500 ? 123 : true));
+        }
+        converter.convertAll(maps);
+    }
+
+    @Test
+    public void testConvertMetadata() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/metadata.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_ENABLE, true);
+        config.validate();
+
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("offset", 42L);
+        metadata.put("topic", "mytopic");
+        MockConnectorRecord object = new MockConnectorRecord("$kafka", Collections.singletonMap("myInt", 1), metadata);
+        BulletRecord record = converter.convert(object);
+
+        Assert.assertEquals(record.typedGet("myInt").getValue(), 1);
+        Assert.assertEquals(record.typedGet("myOffset").getValue(), 42L);
+        Assert.assertEquals(record.typedGet("myTopic").getValue(), "mytopic");
+        // The Pulsar metadata is not read from a Kafka record
+        Assert.assertTrue(record.typedGet("mySource").isNull());
+        Assert.assertEquals(record.fieldCount(), 3);
+        Assert.assertEquals(object.reads, 2);
+
+        List<BulletRecord> records = converter.convertAll(Arrays.asList(object, Collections.singletonMap("myInt", 2)));
+        Assert.assertEquals(records.get(0).fieldCount(), 3);
+        Assert.assertEquals(records.get(1).typedGet("myInt").getValue(), 2);
+        Assert.assertEquals(records.get(1).fieldCount(), 1);
+    }
+
+    @Test
+    public void testConvertNestedMetadata() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/metadata.json");
+
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        Map<String, Object> properties = Collections.singletonMap("source", "mysource");
+        BulletRecord record = converter.convert(new MockConnectorRecord("$pulsar", Collections.emptyMap(), Collections.singletonMap("properties", properties)));
+        Assert.assertEquals(record.typedGet("mySource").getValue(), "mysource");
+        Assert.assertEquals(record.fieldCount(), 1);
+
+        record = converter.convert(new MockConnectorRecord("$pulsar", Collections.emptyMap(), Collections.singletonMap("properties", Collections.emptyMap())));
+        Assert.assertEquals(record.fieldCount(), 0);
+    }
+
+    @Test
+    public void testConvertMetadataNotReferenced() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/all.json");
+
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        MockConnectorRecord object = new MockConnectorRecord("$kafka", Collections.singletonMap("myInt", 1), Collections.singletonMap("offset", 42L));
+        BulletRecord record = converter.convert(object);
+
+        Assert.assertEquals(record.typedGet("myInt").getValue(), 1);
+        Assert.assertEquals(record.fieldCount(), 1);
+        Assert.assertEquals(object.reads, 0);
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not convert field: \\{name: myOffset, reference: \\$kafka.offset, type: LONG\\}")
+    public void testConvertMetadataWrongTypeWithTypeChecking() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/metadata.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_ENABLE, true);
+        config.validate();
+
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        converter.convert(new MockConnectorRecord("$kafka", Collections.emptyMap(), Collections.singletonMap("offset", "42")));
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "A reference to metadata must have a key: .*")
+    public void testMetadataWithoutKey() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/badmetadata.json");
+
+        new MapBulletRecordConverter(config);
+    }
+
+    @Test
+    public void testReleaseReusesRecords() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_POOL_SIZE, 2);
+        config.validate();
+
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        BulletRecord record = converter.convert(Collections.singletonMap("myInt", 1));
+        converter.release(record);
+        Assert.assertEquals(record.fieldCount(), 0);
+
+        BulletRecord reused = converter.convert(Collections.singletonMap("myString", "2"));
+        Assert.assertSame(reused, record);
+        Assert.assertEquals(reused.typedGet("myString").getValue(), "2");
+        Assert.assertEquals(reused.fieldCount(), 1);
+
+        // Only pooled records are reused
+        Assert.assertNotSame(converter.convert(Collections.emptyMap()), record);
+    }
+
+    @Test
+    public void testReleaseAllDropsRecordsOnceFull() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_POOL_SIZE, 1);
+        config.validate();
+
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        List<BulletRecord> records = converter.convertAll(Arrays.asList(Collections.singletonMap("myInt", 1), Collections.singletonMap("myInt", 2)));
+        converter.releaseAll(records);
+
+        List<BulletRecord> reused = converter.convertAll(Arrays.asList(Collections.singletonMap("myInt", 3), Collections.singletonMap("myInt", 4)));
+        Assert.assertSame(reused.get(0), records.get(0));
+        Assert.assertNotSame(reused.get(1), records.get(1));
+        Assert.assertEquals(reused.get(0).typedGet("myInt").getValue(), 3);
+        Assert.assertEquals(reused.get(1).typedGet("myInt").getValue(), 4);
+    }
+
+    @Test
+    public void testConvertAllTakesPooledRecordsAtOnce() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/all.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_POOL_SIZE, 4);
+        config.set(BulletDSLConfig.FILTER_PREDICATES, Collections.singletonList(RecordFilterTest.makePredicate("myInt", RecordFilter.MAX, 1)));
+        config.validate();
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        List<BulletRecord> pooled = converter.convertAll(Arrays.asList(Collections.singletonMap("myInt", 0), Collections.singletonMap("myInt", 1)));
+        converter.releaseAll(pooled);
+
+        // The records of dropped objects are reused within the batch and the ones left over are given back
+        List<BulletRecord> records = converter.convertAll(Arrays.asList(Collections.singletonMap("myInt", 5), Collections.singletonMap("myInt", 0),
+                                                                        Collections.singletonMap("myInt", 6)));
+        Assert.assertEquals(records.size(), 1);
+        Assert.assertEquals(records.get(0).typedGet("myInt").getValue(), 0);
+        Assert.assertTrue(pooled.contains(records.get(0)));
+
+        BulletRecord leftover = converter.convert(Collections.singletonMap("myInt", 1));
+        Assert.assertTrue(pooled.contains(leftover));
+        Assert.assertNotSame(leftover, records.get(0));
+        Assert.assertEquals(leftover.fieldCount(), 1);
+    }
+
+    @Test
+    public void testFailedConvertAllGivesRecordsBack() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/all.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_ENABLE, true);
+        config.set(BulletDSLConfig.RECORD_CONVERTER_POOL_SIZE, 400);
+        for (int parallelism : new int[] {1, 4}) {
+            config.set(BulletDSLConfig.RECORD_CONVERTER_PARALLELISM, parallelism);
+            config.validate();
+            BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+            List<Object> maps = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                maps.add(Collections.singletonMap("myInt", i));
+            }
+            List<BulletRecord> pooled = converter.convertAll(maps);
+            converter.releaseAll(pooled);
+
+            List<Object> failing = new ArrayList<>(maps);
+            failing.set(200, Collections.singletonMap("myInt", "200"));
+            try {
+                converter.convertAll(failing);
+                Assert.fail();
+            } catch (BulletDSLException e) {
+                Assert.assertEquals(e.getMessage(), "Could not convert field: {name: myInt, reference: myInt, type: INTEGER}");
+            }
+
+            // Every pooled record is still reused
+            Set<BulletRecord> reused = Collections.newSetFromMap(new IdentityHashMap<>());
+            reused.addAll(converter.convertAll(maps));
+            Assert.assertEquals(reused.size(), 400);
+            pooled.forEach(record -> Assert.assertTrue(reused.contains(record)));
+            converter.close();
+        }
+    }
+
+    @Test
+    public void testConvertAllWithConverterOverridingConvert() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/all.json");
+        config.validate();
+        BulletRecordConverter converter = new MockBulletRecordConverter(config) {
+            @Override
+            public BulletRecord convert(Object object, BulletRecord record) {
+                record.setInteger("myInt", (Integer) object);
+                return record;
+            }
+        }.build();
+
+        List<BulletRecord> records = converter.convertAll(Arrays.asList(1, 2));
+        Assert.assertEquals(records.get(0).typedGet("myInt").getValue(), 1);
+        Assert.assertEquals(records.get(1).typedGet("myInt").getValue(), 2);
+    }
+
+    @Test
+    public void testReleaseWithoutPool() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        BulletRecord record = converter.convert(Collections.singletonMap("myInt", 1));
+        converter.release(record);
+        converter.releaseAll(Collections.singletonList(record));
+
+        Assert.assertEquals(record.fieldCount(), 1);
+        Assert.assertNotSame(converter.convert(Collections.emptyMap()), record);
+    }
+
+    @Test
+    public void testReleaseRecordThatCannotBeEmptied() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_POOL_SIZE, 1);
+        config.validate();
+
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        BulletRecord record = Mockito.mock(BulletRecord.class);
+        Mockito.when(record.fieldCount()).thenReturn(1);
+        Mockito.when(record.iterator()).thenReturn(Collections.singletonMap("myInt", 1).entrySet().iterator());
+        Mockito.when(record.remove("myInt")).thenThrow(new UnsupportedOperationException());
+        converter.release(record);
+        converter.release(null);
+
+        Assert.assertNotSame(converter.convert(Collections.emptyMap()), record);
+    }
+
+    @Test
+    public void testConvertToUntypedRecord() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/all.json");
+        config.set(BulletDSLConfig.RECORD_PROVIDER_CLASS_NAME, UntypedSimpleBulletRecordProvider.class.getName());
+
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("myBool", true);
+        map.put("myInt", 123);
+        map.put("myLong", 456L);
+        map.put("myFloat", 7.89f);
+        map.put("myDouble", 0.12);
+        map.put("myString", "345");
+        map.put("myIntMap", Collections.singletonMap("a", 1));
+        map.put("myStringList", Collections.singletonList("b"));
+
+        BulletRecord record = converter.convert(map);
+        Assert.assertTrue(record instanceof UntypedSimpleBulletRecord);
+        Assert.assertEquals(record.fieldCount(), 8);
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            Assert.assertSame(record.typedGet(entry.getKey()).getValue(), entry.getValue());
+        }
+    }
+
+    @Test
+    public void testSetValue() {
+        BulletRecord record = new UntypedSimpleBulletRecord();
+
+        // Values that no setter accepts are wrapped with their known type
+        BulletRecordConverter.setValue(record, "a", Type.STRING, 'a');
+        // and values without a known type are wrapped with their inferred type
+        BulletRecordConverter.setValue(record, "b", null, 1L);
+
+        Assert.assertEquals(record.typedGet("a").getValue(), 'a');
+        Assert.assertEquals(record.typedGet("b").getValue(), 1L);
+    }
+
+    @Test
+    public void testGetContainerType() {
+        Assert.assertEquals(BulletRecordConverter.getContainerType(Type.MAPS, Type.LONG), Type.LONG_MAP);
+        Assert.assertEquals(BulletRecordConverter.getContainerType(Type.MAPS, Type.LONG_MAP), Type.LONG_MAP_MAP);
+        Assert.assertEquals(BulletRecordConverter.getContainerType(Type.LISTS, Type.LONG_MAP), Type.LONG_MAP_LIST);
+        Assert.assertNull(BulletRecordConverter.getContainerType(Type.LISTS, Type.LONG_LIST));
+        Assert.assertNull(BulletRecordConverter.getContainerType(Type.MAPS, null));
+    }
+
+    private static Map<String, Object> makeShared() {
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("e", 5);
+        nested.put("f", "g");
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("a", 1);
+        payload.put("b", "2");
+        payload.put("list", Arrays.asList(3L, 4L));
+        payload.put("nested", nested);
+        Map<String, Object> map = new HashMap<>();
+        map.put("payload", payload);
+        map.put("other", 6.0);
+        return map;
+    }
+
+    @Test
+    public void testSetRequiredFields() throws Exception {
+        MapBulletRecordConverter converter = new MapBulletRecordConverter("schemas/shared.json");
+        Assert.assertNull(converter.getRequiredFields());
+        Assert.assertEquals(converter.convert(makeShared()).fieldCount(), 6);
+
+        Set<String> required = new HashSet<>(Arrays.asList("b", "e", "dne"));
+        converter.setRequiredFields(required);
+        required.clear();
+        Assert.assertEquals(converter.getRequiredFields(), new HashSet<>(Arrays.asList("b", "e", "dne")));
+        Assert.assertEquals(converter.getPlan().getFields().size(), 2);
+
+        // Only the entry e of the nested record is set
+        BulletRecord record = converter.convert(makeShared());
+        Assert.assertEquals(record.typedGet("b").getValue(), "2");
+        Assert.assertEquals(record.typedGet("e").getValue(), 5);
+        Assert.assertEquals(record.fieldCount(), 2);
+
+        converter.setRequiredFields(Collections.emptySet());
+        Assert.assertEquals(converter.convert(makeShared()).fieldCount(), 0);
+
+        converter.setRequiredFields(null);
+        Assert.assertEquals(converter.convert(makeShared()).fieldCount(), 6);
+    }
+
+    @Test
+    public void testSetRequiredFieldsWithoutSchema() throws Exception {
+        MapBulletRecordConverter converter = new MapBulletRecordConverter();
+        Map<String, Object> map = new HashMap<>();
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("c", null);
+
+        converter.setRequiredFields(new HashSet<>(Arrays.asList("b", "c")));
+        BulletRecord record = converter.convert(map);
+        Assert.assertEquals(record.typedGet("b").getValue(), 2);
+        Assert.assertEquals(record.fieldCount(), 1);
+
+        // More required fields than fields in the map
+        converter.setRequiredFields(new HashSet<>(Arrays.asList("a", "c", "d", "e")));
+        record = converter.convert(map);
+        Assert.assertEquals(record.typedGet("a").getValue(), 1);
+        Assert.assertEquals(record.fieldCount(), 1);
+    }
+
+    @Test
+    public void testConversionKeepsRequiredFieldsOfProjection() throws Exception {
+        MapBulletRecordConverter converter = new MapBulletRecordConverter("schemas/shared.json");
+        converter.setRequiredFields(new HashSet<>(Arrays.asList("a", "e")));
+        BulletRecordConverter.Projection current = converter.getProjection();
+        converter.setRequiredFields(Collections.singleton("f"));
+
+        // The entries of the record field are filtered by the fields required when the conversion started
+        BulletRecord record = converter.convert(makeShared(), new UntypedSimpleBulletRecord(), current);
+        Assert.assertEquals(record.typedGet("a").getValue(), 1);
+        Assert.assertEquals(record.typedGet("e").getValue(), 5);
+        Assert.assertEquals(record.fieldCount(), 2);
+
+        converter = new MapBulletRecordConverter();
+        converter.setRequiredFields(Collections.singleton("a"));
+        current = converter.getProjection();
+        converter.setRequiredFields(null);
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("a", 1);
+        map.put("b", 2);
+        record = converter.convert(map, new UntypedSimpleBulletRecord(), current);
+        Assert.assertEquals(record.typedGet("a").getValue(), 1);
+        Assert.assertEquals(record.fieldCount(), 1);
+    }
+
+    @Test
+    public void testSetRequiredFieldsWithMetadata() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/metadata.json");
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("offset", 42L);
+        metadata.put("topic", "mytopic");
+        MockConnectorRecord object = new MockConnectorRecord("$kafka", Collections.singletonMap("myInt", 1), metadata);
+
+        converter.setRequiredFields(Collections.singleton("myTopic"));
+        BulletRecord record = converter.convert(object);
+        Assert.assertEquals(record.typedGet("myTopic").getValue(), "mytopic");
+        Assert.assertEquals(record.fieldCount(), 1);
+        Assert.assertEquals(object.reads, 1);
+    }
+
+    @Test
+    public void testSetRequiredFieldsWithLazyRecords() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/shared.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_LAZY_ENABLE, true);
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        BulletRecord before = converter.convert(makeShared());
+        converter.setRequiredFields(new HashSet<>(Arrays.asList("a", "f")));
+        BulletRecord after = converter.convert(makeShared());
+
+        // Records keep the fields of the schema that were required when they were converted
+        Assert.assertEquals(before.typedGet("b").getValue(), "2");
+        Assert.assertFalse(after.hasField("b"));
+        Assert.assertEquals(after.typedGet("a").getValue(), 1);
+        Assert.assertEquals(after.typedGet("f").getValue(), "g");
+        Assert.assertFalse(after.hasField("e"));
+        Assert.assertEquals(after.fieldCount(), 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFilterWithSchema() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/shared.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_ENABLE, true);
+        config.set(BulletDSLConfig.FILTER_PREDICATES, Arrays.asList(RecordFilterTest.makePredicate("payload.b", RecordFilter.IN, Arrays.asList("1", "2")),
+                                                                    RecordFilterTest.makePredicate("payload.nested.f", RecordFilter.EXISTS, true)));
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        Map<String, Object> map = makeShared();
+        BulletRecord record = converter.convert(map);
+        Assert.assertEquals(record.typedGet("b").getValue(), "2");
+        Assert.assertEquals(record.fieldCount(), 6);
+
+        ((Map<String, Object>) map.get("payload")).put("b", "3");
+        Assert.assertNull(converter.convert(map));
+        Assert.assertNull(converter.convert(new MockConnectorRecord("$kafka", map, Collections.emptyMap())));
+
+        // Objects that do not match are dropped before their fields are type checked
+        ((Map<String, Object>) map.get("payload")).put("a", "1");
+        Assert.assertNull(converter.convert(map));
+        ((Map<String, Object>) map.get("payload")).put("b", "1");
+        try {
+            converter.convert(map);
+            Assert.fail();
+        } catch (BulletDSLException e) {
+            Assert.assertEquals(e.getMessage(), "Could not convert field: {name: a, reference: payload.a, type: INTEGER}");
+        }
+
+        // The references of the filter are extracted whatever the required fields
+        converter.setRequiredFields(Collections.singleton("d"));
+        Assert.assertEquals(converter.getPlan().getReferences(), Arrays.asList("payload.b", "payload.nested.f"));
+        ((Map<String, Object>) map.get("payload")).remove("nested");
+        Assert.assertNull(converter.convert(map));
+    }
+
+    @Test
+    public void testFilterWithoutSchema() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.FILTER_PREDICATES, Collections.singletonList(RecordFilterTest.makePredicate("myInt", RecordFilter.MIN, 10)));
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("myInt", 10);
+        map.put("myString", "a");
+        Assert.assertEquals(converter.convert(map).fieldCount(), 2);
+
+        map.put("myInt", 9);
+        Assert.assertNull(converter.convert(map));
+        Assert.assertNull(converter.convert(Collections.singletonMap("myString", "a")));
+    }
+
+    @Test
+    public void testFilterWithLazyRecords() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/shared.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_LAZY_ENABLE, true);
+        config.set(BulletDSLConfig.FILTER_PREDICATES, Collections.singletonList(RecordFilterTest.makePredicate("other", RecordFilter.EQUALS, 6)));
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        Map<String, Object> map = makeShared();
+        BulletRecord record = converter.convert(map);
+        Assert.assertTrue(record instanceof LazyBulletRecord);
+        Assert.assertEquals(record.fieldCount(), 6);
+
+        map.put("other", 6.5);
+        Assert.assertNull(converter.convert(map));
+    }
+
+    @Test
+    public void testFilterConvertAll() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/all.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_POOL_SIZE, 1);
+        config.set(BulletDSLConfig.FILTER_PREDICATES, Collections.singletonList(RecordFilterTest.makePredicate("myInt", RecordFilter.MAX, 499)));
+        config.validate();
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        List<Object> maps = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            maps.add(Collections.singletonMap("myInt", i));
+        }
+        List<BulletRecord> records = converter.convertAll(maps.subList(0, 10));
+        Assert.assertEquals(records.size(), 10);
+
+        // The records taken from the pool for dropped objects are given back
+        converter.release(records.get(0));
+        Assert.assertTrue(converter.convertAll(maps.subList(500, 510)).isEmpty());
+        Assert.assertSame(converter.convert(maps.get(0)), records.get(0));
+
+        config.set(BulletDSLConfig.RECORD_CONVERTER_PARALLELISM, 4);
+        config.validate();
+        converter = BulletRecordConverter.from(config);
+
+        records = converter.convertAll(maps);
+        Assert.assertEquals(records.size(), 500);
+        for (int i = 0; i < 500; i++) {
+            Assert.assertEquals(records.get(i).typedGet("myInt").getValue(), i);
+        }
+    }
 }
@@ -0,0 +1,103 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.converter;
+
+import com.yahoo.bullet.dsl.BulletDSLException;
+import com.yahoo.bullet.dsl.schema.BulletRecordSchema;
+import com.yahoo.bullet.record.BulletRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Collections.singletonMap;
+
+public class ExtractionPlanTest {
+
+    private static class CountingMapBulletRecordConverter extends MapBulletRecordConverter {
+        private Map<String, Integer> counts = new HashMap<>();
+
+        CountingMapBulletRecordConverter(String schema) throws BulletDSLException {
+            super(schema);
+        }
+
+        @Override
+        protected Object get(Object object, String base) {
+            counts.merge(base, 1, Integer::sum);
+            return super.get(object, base);
+        }
+    }
+
+    private static Map<String, Object> makePayload() {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("a", 1);
+        payload.put("b", "2");
+        payload.put("list", Arrays.asList(3L, 4L));
+        payload.put("nested", singletonMap("e", 5));
+        Map<String, Object> map = new HashMap<>();
+        map.put("payload", payload);
+        map.put("other", 6.0);
+        return map;
+    }
+
+    @Test
+    public void testSharedPrefixIsReadOnce() throws Exception {
+        CountingMapBulletRecordConverter converter = new CountingMapBulletRecordConverter("schemas/shared.json");
+
+        BulletRecord record = converter.convert(makePayload());
+
+        Assert.assertEquals(record.typedGet("a").getValue(), 1);
+        Assert.assertEquals(record.typedGet("b").getValue(), "2");
+        Assert.assertEquals(record.typedGet("c").getValue(), 4L);
+        Assert.assertEquals(record.typedGet("e").getValue(), 5);
+        Assert.assertEquals(record.typedGet("d").getValue(), 6.0);
+        Assert.assertEquals(record.fieldCount(), 5);
+        Assert.assertEquals(converter.counts.get("payload"), (Integer) 1);
+        Assert.assertEquals(converter.counts.get("other"), (Integer) 1);
+    }
+
+    @Test
+    public void testMissingPrefixSkipsAllFieldsUnderIt() throws Exception {
+        MapBulletRecordConverter converter = new MapBulletRecordConverter("schemas/shared.json");
+
+        BulletRecord record = converter.convert(singletonMap("other", 6.0));
+
+        Assert.assertEquals(record.typedGet("d").getValue(), 6.0);
+        Assert.assertEquals(record.fieldCount(), 1);
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not convert field: \\{name: c, reference: payload.list.1, type: LONG\\}")
+    @SuppressWarnings("unchecked")
+    public void testFailureIsReportedForTheFieldInSchemaOrder() throws Exception {
+        MapBulletRecordConverter converter = new MapBulletRecordConverter("schemas/shared.json");
+
+        Map<String, Object> map = makePayload();
+        ((Map<String, Object>) map.get("payload")).put("list", Arrays.asList(3L));
+
+        converter.convert(map);
+    }
+
+    @Test
+    public void testReferencesShareNodesWithFields() throws Exception {
+        CountingMapBulletRecordConverter converter = new CountingMapBulletRecordConverter("schemas/shared.json");
+        ExtractionPlan plan = new ExtractionPlan(BulletRecordSchema.from("schemas/shared.json").getFields(), Arrays.asList("payload.b", "dne.a", "other"));
+        Assert.assertEquals(plan.getFields().size(), 5);
+        Assert.assertEquals(plan.getReferences(), Arrays.asList("payload.b", "dne.a", "other"));
+        Assert.assertEquals(plan.getValueCount(), 8);
+
+        Object[] values = plan.extract(converter, makePayload());
+        Assert.assertEquals(values.length, 8);
+        Assert.assertEquals(values[1], "2");
+        Assert.assertEquals(values[5], "2");
+        Assert.assertNull(values[6]);
+        Assert.assertEquals(values[7], 6.0);
+        Assert.assertEquals(converter.counts.get("payload"), (Integer) 1);
+        Assert.assertEquals(converter.counts.get("other"), (Integer) 1);
+        Assert.assertEquals(converter.counts.get("dne"), (Integer) 1);
+    }
+}
@@ -8,13 +8,18 @@ package com.yahoo.bullet.dsl.converter;
 import com.yahoo.bullet.dsl.BulletDSLConfig;
 import com.yahoo.bullet.dsl.BulletDSLException;
 import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.record.simple.UntypedSimpleBulletRecord;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 
@@ -218,4 +223,158 @@ public class JSONBulletRecordConverterTest {
         Assert.assertEquals(record.typedGet("myFloatMapMap").getValue(), expected);
         Assert.assertFalse(record.hasField("dne"));
     }
+
+    private static JSONBulletRecordConverter makeStreamingConverter(String schema) throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, schema);
+        config.set(BulletDSLConfig.RECORD_CONVERTER_JSON_STREAMING_ENABLE, true);
+        config.validate();
+        return new JSONBulletRecordConverter(config);
+    }
+
+    @Test
+    public void testStreamingIgnoredWithoutSchema() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_JSON_STREAMING_ENABLE, true);
+        config.validate();
+        JSONBulletRecordConverter recordConverter = new JSONBulletRecordConverter(config);
+        Assert.assertFalse(recordConverter.streaming);
+
+        BulletRecord record = recordConverter.convert("{'myInt':123}");
+
+        Assert.assertEquals(record.typedGet("myInt").getValue(), 123.0);
+    }
+
+    @Test
+    public void testStreamingConvertWithSchema() throws Exception {
+        JSONBulletRecordConverter recordConverter = makeStreamingConverter("schemas/all.json");
+        Assert.assertTrue(recordConverter.streaming);
+
+        String json = "{'myBool':true,'myInt':123,'myLong':456,'myFloat':7.89,'myDouble':0.12,'myString':'345','myNull':null," +
+                      "'dne':{'a':[1,2,{'b':3}]},'myLongList':[1,2.9,null],'myIntMapMap':{'a':{'b':1.5}},'myStringList':[]}";
+
+        BulletRecord record = recordConverter.convert(json);
+
+        Assert.assertEquals(record.typedGet("myBool").getValue(), true);
+        Assert.assertEquals(record.typedGet("myInt").getValue(), 123);
+        Assert.assertEquals(record.typedGet("myLong").getValue(), 456L);
+        Assert.assertEquals(record.typedGet("myFloat").getValue(), 7.89f);
+        Assert.assertEquals(record.typedGet("myDouble").getValue(), 0.12);
+        Assert.assertEquals(record.typedGet("myString").getValue(), "345");
+        Assert.assertEquals(record.typedGet("myLongList").getValue(), asList(1L, 2L, null));
+        Assert.assertEquals(record.typedGet("myIntMapMap").getValue(), singletonMap("a", singletonMap("b", 1)));
+        Assert.assertEquals(record.typedGet("myStringList").getValue(), emptyList());
+        Assert.assertFalse(record.hasField("dne"));
+        Assert.assertEquals(record.fieldCount(), 9);
+    }
+
+    @Test
+    public void testStreamingMatchesMapConversion() throws Exception {
+        JSONBulletRecordConverter streamingConverter = makeStreamingConverter("schemas/shared.json");
+        JSONBulletRecordConverter recordConverter = new JSONBulletRecordConverter("schemas/shared.json");
+
+        String json = "{'other':6,'skipped':[{'a':1}],'payload':{'list':[3,4],'a':1,'nested':{'e':5,'f':'g'},'b':'2'}}";
+
+        BulletRecord expected = recordConverter.convert(json);
+        BulletRecord actual = streamingConverter.convert(json);
+
+        Assert.assertEquals(actual.typedGet("a").getValue(), 1);
+        Assert.assertEquals(actual.typedGet("b").getValue(), "2");
+        Assert.assertEquals(actual.typedGet("c").getValue(), 4L);
+        Assert.assertEquals(actual.typedGet("d").getValue(), 6.0);
+        Assert.assertEquals(actual.typedGet("e").getValue(), 5.0);
+        Assert.assertEquals(actual.typedGet("f").getValue(), "g");
+        Assert.assertEquals(actual, expected);
+    }
+
+    @Test
+    public void testStreamingSkipsMissingAndPrimitivePrefixes() throws Exception {
+        JSONBulletRecordConverter recordConverter = makeStreamingConverter("schemas/shared.json");
+
+        BulletRecord record = recordConverter.convert("{'payload':1,'other':null}");
+
+        Assert.assertEquals(record.fieldCount(), 0);
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not convert field: \\{name: c, reference: payload.list.1, type: LONG\\}")
+    public void testStreamingMissingIndex() throws Exception {
+        JSONBulletRecordConverter recordConverter = makeStreamingConverter("schemas/shared.json");
+
+        recordConverter.convert("{'payload':{'list':[3]}}");
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not convert field: \\{name: myInt, reference: myInt, type: INTEGER\\}")
+    public void testStreamingWrongType() throws Exception {
+        JSONBulletRecordConverter recordConverter = makeStreamingConverter("schemas/all.json");
+
+        recordConverter.convert("{'myInt':'123'}");
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not parse JSON\\.")
+    public void testStreamingMalformedJSON() throws Exception {
+        JSONBulletRecordConverter recordConverter = makeStreamingConverter("schemas/all.json");
+
+        recordConverter.convert("{'myInt':");
+    }
+
+    @Test
+    public void testStreamingRequiredFields() throws Exception {
+        JSONBulletRecordConverter streamingConverter = makeStreamingConverter("schemas/shared.json");
+        streamingConverter.setRequiredFields(new HashSet<>(Arrays.asList("c", "f")));
+
+        BulletRecord record = streamingConverter.convert("{'other':6,'payload':{'list':[3,4],'a':1,'nested':{'e':5,'f':'g'}}}");
+        Assert.assertEquals(record.typedGet("c").getValue(), 4L);
+        Assert.assertEquals(record.typedGet("f").getValue(), "g");
+        Assert.assertEquals(record.fieldCount(), 2);
+    }
+
+    @Test
+    public void testStreamingKeepsRequiredFieldsOfProjection() throws Exception {
+        JSONBulletRecordConverter streamingConverter = makeStreamingConverter("schemas/shared.json");
+        streamingConverter.setRequiredFields(new HashSet<>(Arrays.asList("a", "e")));
+        BulletRecordConverter.Projection current = streamingConverter.getProjection();
+        streamingConverter.setRequiredFields(Collections.singleton("f"));
+
+        // The entries of the record field are filtered by the fields required when the conversion started
+        String json = "{'other':6,'payload':{'list':[3,4],'a':1,'nested':{'e':5,'f':'g'}}}";
+        BulletRecord record = streamingConverter.convert(json, new UntypedSimpleBulletRecord(), current);
+        Assert.assertEquals(record.typedGet("a").getValue(), 1);
+        Assert.assertEquals(record.typedGet("e").getValue(), 5.0);
+        Assert.assertEquals(record.fieldCount(), 2);
+    }
+
+    @Test
+    public void testStreamingFilter() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/shared.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_JSON_STREAMING_ENABLE, true);
+        config.set(BulletDSLConfig.FILTER_PREDICATES, asList(RecordFilterTest.makePredicate("payload.nested.f", RecordFilter.EQUALS, "g"),
+                                                             RecordFilterTest.makePredicate("payload.list.0", RecordFilter.MIN, 3)));
+        config.validate();
+        JSONBulletRecordConverter streamingConverter = new JSONBulletRecordConverter(config);
+
+        BulletRecord record = streamingConverter.convert("{'other':6,'payload':{'list':[3,4],'a':1,'nested':{'e':5,'f':'g'}}}");
+        Assert.assertEquals(record.typedGet("c").getValue(), 4L);
+        Assert.assertEquals(record.typedGet("f").getValue(), "g");
+        Assert.assertEquals(record.fieldCount(), 5);
+
+        Assert.assertNull(streamingConverter.convert("{'other':6,'payload':{'list':[2,4],'a':1,'nested':{'e':5,'f':'g'}}}"));
+        Assert.assertNull(streamingConverter.convert("{'other':6,'payload':{'list':[3,4],'a':1,'nested':{'e':5,'f':'h'}}}"));
+        // Mistyped fields of objects that do not match are not converted
+        Assert.assertNull(streamingConverter.convert("{'payload':{'list':[3,'x'],'a':'1','nested':{'f':1}}}"));
+    }
+
+    @Test
+    public void testFilterWithoutSchema() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.FILTER_PREDICATES, singletonList(RecordFilterTest.makePredicate("type", RecordFilter.IN, asList("a", "b"))));
+        config.validate();
+        JSONBulletRecordConverter recordConverter = new JSONBulletRecordConverter(config);
+
+        BulletRecord record = recordConverter.convert("{'type':'b','value':1}");
+        Assert.assertEquals(record.typedGet("value").getValue(), 1.0);
+        Assert.assertEquals(record.fieldCount(), 2);
+        Assert.assertNull(recordConverter.convert("{'type':'c','value':1}"));
+        Assert.assertNull(recordConverter.convert("{'value':{'type':'a'}}"));
+    }
 }
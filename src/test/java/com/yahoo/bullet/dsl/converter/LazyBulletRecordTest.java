@@ -0,0 +1,305 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.converter;
+
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.dsl.BulletDSLException;
+import com.yahoo.bullet.dsl.connector.ConnectorRecord;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LazyBulletRecordTest {
+
+    private static class CountingMap extends HashMap<String, Object> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Object> reads = new ArrayList<>();
+
+        @Override
+        public Object get(Object key) {
+            reads.add(key);
+            return super.get(key);
+        }
+    }
+
+    private static class MockConnectorRecord extends ConnectorRecord {
+        private final Map<String, Object> metadata;
+
+        MockConnectorRecord(Object value, Map<String, Object> metadata) {
+            super(value);
+            this.metadata = metadata;
+        }
+
+        @Override
+        protected String getNamespace() {
+            return "$kafka";
+        }
+
+        @Override
+        protected Object getMetadata(String key) {
+            return metadata.get(key);
+        }
+    }
+
+    private BulletDSLConfig config;
+
+    @BeforeMethod
+    public void init() {
+        config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, MapBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/shared.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_LAZY_ENABLE, true);
+    }
+
+    private static Map<String, Object> makeShared() {
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("a", 10);
+        nested.put("d", 20.0);
+        nested.put("e", "nested");
+        Map<String, Object> payload = new CountingMap();
+        payload.put("a", 1);
+        payload.put("b", "2");
+        payload.put("list", Arrays.asList(3L, 4L));
+        payload.put("nested", nested);
+        CountingMap shared = new CountingMap();
+        shared.put("payload", payload);
+        shared.put("other", 5.0);
+        return shared;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Serializable> toMap(BulletRecord record) {
+        Map<String, Serializable> map = new HashMap<>();
+        for (Map.Entry<String, TypedObject> entry : (Iterable<Map.Entry<String, TypedObject>>) record) {
+            map.put(entry.getKey(), entry.getValue().getValue());
+        }
+        return map;
+    }
+
+    @Test
+    public void testOnlyReadFieldsAreConverted() throws Exception {
+        CountingMap shared = (CountingMap) makeShared();
+        CountingMap payload = (CountingMap) shared.get("payload");
+        shared.reads.clear();
+        BulletRecord record = BulletRecordConverter.from(config).convert(shared);
+
+        Assert.assertTrue(record instanceof LazyBulletRecord);
+        Assert.assertEquals(shared.reads, Collections.emptyList());
+
+        // d is set by other after the nested record, so only those two are read
+        Assert.assertEquals(record.typedGet("d").getValue(), 5.0);
+        Assert.assertEquals(shared.reads, Arrays.asList("payload", "other"));
+        Assert.assertEquals(payload.reads, Collections.singletonList("nested"));
+
+        // Read fields are kept
+        Assert.assertEquals(record.typedGet("d").getValue(), 5.0);
+        Assert.assertEquals(shared.reads.size(), 2);
+        Assert.assertFalse(((LazyBulletRecord) record).isMaterialized());
+    }
+
+    @Test
+    public void testSameFieldsAsEagerRecord() throws Exception {
+        BulletRecordConverter lazy = BulletRecordConverter.from(config);
+        config.set(BulletDSLConfig.RECORD_CONVERTER_LAZY_ENABLE, false);
+        BulletRecordConverter eager = BulletRecordConverter.from(config);
+
+        BulletRecord expected = eager.convert(makeShared());
+        BulletRecord record = lazy.convert(makeShared());
+
+        // The nested record sets a after the payload.a field and other sets d after the nested record
+        Assert.assertEquals(record.typedGet("a").getValue(), 10);
+        Assert.assertEquals(record.typedGet("b").getValue(), "2");
+        Assert.assertEquals(record.typedGet("c").getValue(), 4L);
+        Assert.assertEquals(record.typedGet("d").getValue(), 5.0);
+        Assert.assertEquals(record.typedGet("e").getValue(), "nested");
+        Assert.assertEquals(record.typedGet("e", Type.STRING).getValue(), "nested");
+        Assert.assertTrue(record.typedGet("dne").isNull());
+        Assert.assertFalse(record.hasField("dne"));
+
+        Assert.assertEquals(toMap(record), toMap(expected));
+        Assert.assertEquals(record.fieldCount(), expected.fieldCount());
+        Assert.assertTrue(((LazyBulletRecord) record).isMaterialized());
+        Assert.assertEquals(record.typedGet("a").getValue(), 10);
+        Assert.assertFalse(record.hasField("dne"));
+    }
+
+    @Test
+    public void testSetAndRemoveBeforeMaterializing() throws Exception {
+        BulletRecord record = BulletRecordConverter.from(config).convert(makeShared());
+
+        record.remove("b");
+        record.setString("d", "set");
+        Assert.assertEquals(record.getAndRemove("a"), new TypedObject(Type.INTEGER, 10));
+        Assert.assertNull(record.getAndRemove("dne"));
+
+        Assert.assertEquals(record.fieldCount(), 3);
+        Assert.assertFalse(record.hasField("a"));
+        Assert.assertFalse(record.hasField("b"));
+        Assert.assertEquals(record.typedGet("d").getValue(), "set");
+
+        record.remove("c");
+        Assert.assertEquals(record.fieldCount(), 2);
+    }
+
+    @Test
+    public void testCopyEqualsAndSerialize() throws Exception {
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+        BulletRecord record = converter.convert(makeShared());
+        BulletRecord another = converter.convert(makeShared());
+        Assert.assertEquals(record.typedGet("b").getValue(), "2");
+
+        BulletRecord copy = record.copy();
+        Assert.assertTrue(copy instanceof LazyBulletRecord);
+        Assert.assertTrue(((LazyBulletRecord) copy).isMaterialized());
+        Assert.assertEquals(copy, record);
+        Assert.assertEquals(another, record);
+        Assert.assertEquals(another.hashCode(), record.hashCode());
+        Assert.assertNotEquals(record, toMap(record));
+        copy.remove("a");
+        Assert.assertNotEquals(copy, record);
+
+        // The wrapped map is not serialized
+        record = converter.convert(makeShared());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(record);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        BulletRecord deserialized = (BulletRecord) in.readObject();
+        Assert.assertEquals(deserialized, another);
+        Assert.assertEquals(deserialized.typedGet("e").getValue(), "nested");
+        Assert.assertTrue(deserialized.typedGet("dne").isNull());
+    }
+
+    @Test
+    public void testConvertMetadata() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/metadata.json");
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        Map<String, Object> metadata = Collections.singletonMap("offset", 42L);
+        List<BulletRecord> records = converter.convertAll(Arrays.asList(new MockConnectorRecord(Collections.singletonMap("myInt", 1), metadata),
+                                                                        Collections.singletonMap("myInt", 2)));
+
+        Assert.assertEquals(records.get(0).typedGet("myOffset").getValue(), 42L);
+        Assert.assertEquals(records.get(0).typedGet("myInt").getValue(), 1);
+        Assert.assertFalse(records.get(0).hasField("myTopic"));
+        Assert.assertEquals(records.get(0).fieldCount(), 2);
+        Assert.assertFalse(records.get(1).hasField("myOffset"));
+        Assert.assertEquals(records.get(1).typedGet("myInt").getValue(), 2);
+        Assert.assertEquals(records.get(1).fieldCount(), 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "Could not convert field: \\{name: a, reference: payload.a, type: INTEGER\\}")
+    public void testReadWrongTypeWithTypeChecking() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_ENABLE, true);
+        Map<String, Object> shared = makeShared();
+        ((Map<String, Object>) shared.get("payload")).put("a", "1");
+
+        BulletRecord record = BulletRecordConverter.from(config).convert(shared);
+        Assert.assertEquals(record.typedGet("b").getValue(), "2");
+        record.typedGet("a");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testReadWrongTypeAgainWithTypeChecking() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_ENABLE, true);
+        Map<String, Object> shared = makeShared();
+        ((Map<String, Object>) shared.get("payload")).put("a", "1");
+
+        BulletRecord record = BulletRecordConverter.from(config).convert(shared);
+        for (int i = 0; i < 2; i++) {
+            try {
+                record.typedGet("a");
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                // The field is converted again instead of being missing
+                Assert.assertEquals(e.getMessage(), "Could not convert field: {name: a, reference: payload.a, type: INTEGER}");
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "Could not convert field: \\{name: a, reference: payload.a, type: INTEGER\\}")
+    public void testMaterializeWrongTypeWithTypeChecking() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_TYPE_CHECK_ENABLE, true);
+        Map<String, Object> shared = makeShared();
+        ((Map<String, Object>) shared.get("payload")).put("a", "1");
+
+        BulletRecordConverter.from(config).convert(shared).fieldCount();
+    }
+
+    @Test
+    public void testNotLazyWithoutSchema() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, null);
+        config.set(BulletDSLConfig.RECORD_CONVERTER_POOL_SIZE, 1);
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        BulletRecord record = converter.convert(Collections.singletonMap("a", 1));
+        Assert.assertFalse(record instanceof LazyBulletRecord);
+        converter.release(record);
+        Assert.assertSame(converter.convert(Collections.singletonMap("a", 2)), record);
+    }
+
+    @Test
+    public void testLazyRecordsAreNotPooled() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_POOL_SIZE, 1);
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        BulletRecord record = converter.convert(makeShared());
+        converter.release(record);
+        Assert.assertEquals(record.typedGet("b").getValue(), "2");
+        Assert.assertNotSame(converter.convert(makeShared()), record);
+    }
+
+    @Test
+    public void testJSONIsLazyUnlessStreaming() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, JSONBulletRecordConverter.class.getName());
+        String json = "{'payload':{'a':1,'b':'2','list':[3,4]},'other':5}";
+
+        BulletRecord record = BulletRecordConverter.from(config).convert(json);
+        Assert.assertTrue(record instanceof LazyBulletRecord);
+        Assert.assertEquals(record.typedGet("a").getValue(), 1);
+        Assert.assertEquals(record.typedGet("c").getValue(), 4L);
+        Assert.assertEquals(record.fieldCount(), 4);
+
+        config.set(BulletDSLConfig.RECORD_CONVERTER_JSON_STREAMING_ENABLE, true);
+        record = BulletRecordConverter.from(config).convert(json);
+        Assert.assertFalse(record instanceof LazyBulletRecord);
+        Assert.assertEquals(record.typedGet("c").getValue(), 4L);
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Object is not of type: .*")
+    public void testPOJOOfWrongType() throws Exception {
+        config.set(BulletDSLConfig.RECORD_CONVERTER_CLASS_NAME, POJOBulletRecordConverter.class.getName());
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/foo.json");
+        config.set(BulletDSLConfig.RECORD_CONVERTER_POJO_CLASS_NAME, POJOBulletRecordConverterTest.Foo.class.getName());
+        BulletRecordConverter converter = BulletRecordConverter.from(config);
+
+        BulletRecord record = converter.convert(new POJOBulletRecordConverterTest.Foo());
+        Assert.assertEquals(record.typedGet("myInt").getValue(), 123);
+        Assert.assertTrue(record.typedGet("bar").isNull());
+
+        converter.convert(new Object());
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.converter;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+public class POJOAccessorTest {
+
+    static class Dummy {
+        private Integer myInt = 1;
+        private Long myLong = 2L;
+
+        Integer getMyInt() {
+            return myInt;
+        }
+
+        private Long getMyLong() {
+            return myLong;
+        }
+
+        private Integer getThrows() throws Exception {
+            throw new Exception("getter threw");
+        }
+    }
+
+    @Test
+    public void testAccessibleGetter() throws Throwable {
+        Method method = Dummy.class.getDeclaredMethod("getMyInt");
+        method.setAccessible(true);
+        POJOAccessor accessor = POJOAccessor.of(method);
+
+        Assert.assertEquals(accessor.get(new Dummy()), 1);
+    }
+
+    @Test
+    public void testPrivateGetter() throws Throwable {
+        Method method = Dummy.class.getDeclaredMethod("getMyLong");
+        method.setAccessible(true);
+        POJOAccessor accessor = POJOAccessor.of(method);
+
+        Assert.assertEquals(accessor.get(new Dummy()), 2L);
+    }
+
+    @Test
+    public void testPrivateField() throws Throwable {
+        Field field = Dummy.class.getDeclaredField("myInt");
+        field.setAccessible(true);
+        POJOAccessor accessor = POJOAccessor.of(field);
+
+        Dummy dummy = new Dummy();
+        dummy.myInt = 3;
+
+        Assert.assertEquals(accessor.get(dummy), 3);
+    }
+
+    @Test(expectedExceptions = Exception.class, expectedExceptionsMessageRegExp = "getter threw")
+    public void testGetterThrows() throws Throwable {
+        Method method = Dummy.class.getDeclaredMethod("getThrows");
+        method.setAccessible(true);
+        POJOAccessor.of(method).get(new Dummy());
+    }
+
+    @Test(expectedExceptions = IllegalAccessException.class)
+    public void testInaccessibleField() throws Throwable {
+        POJOAccessor.of(Dummy.class.getDeclaredField("myLong"));
+    }
+}
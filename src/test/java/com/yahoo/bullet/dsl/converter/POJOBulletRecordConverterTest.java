@@ -8,12 +8,15 @@ package com.yahoo.bullet.dsl.converter;
 import com.yahoo.bullet.dsl.BulletDSLConfig;
 import com.yahoo.bullet.dsl.BulletDSLException;
 import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
 import lombok.Getter;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -166,6 +169,24 @@ public class POJOBulletRecordConverterTest {
         Assert.assertEquals(record.typedGet("myIntList").getValue(), foo.getMyIntList());
     }
 
+    @Test
+    public void testFromBarTypesFromFields() throws Exception {
+        POJOBulletRecordConverter converter = new POJOBulletRecordConverter(Bar.class);
+
+        // Empty containers are typed from the declared types of the fields
+        BulletRecord record = converter.convert(new Bar());
+        Assert.assertEquals(record.typedGet("myBoolMap").getType(), Type.BOOLEAN_MAP);
+        Assert.assertEquals(record.typedGet("myStringMap").getType(), Type.STRING_MAP);
+        Assert.assertEquals(record.typedGet("myFloatMapMap").getType(), Type.FLOAT_MAP_MAP);
+        Assert.assertEquals(record.typedGet("myLongList").getType(), Type.LONG_LIST);
+        Assert.assertEquals(record.typedGet("myDoubleMapList").getType(), Type.DOUBLE_MAP_LIST);
+
+        record = new POJOBulletRecordConverter(Foo.class).convert(new Foo());
+        Assert.assertEquals(record.typedGet("myInt").getType(), Type.INTEGER);
+        Assert.assertEquals(record.typedGet("myString").getType(), Type.STRING);
+        Assert.assertEquals(record.typedGet("myIntMap").getType(), Type.INTEGER_MAP);
+    }
+
     @Test
     public void testFromBar() throws Exception {
         Bar bar = new Bar();
@@ -405,12 +426,12 @@ public class POJOBulletRecordConverterTest {
 
         Assert.assertEquals(record.typedGet("myString").getValue(), "hello");
 
-        // should never happen really
+        // generated accessors are linked at build time and are not affected by later access changes
         recordConverter.getAccessors().get("myString").getValue().setAccessible(false);
 
         record = recordConverter.convert(dummy);
 
-        Assert.assertFalse(record.hasField("myString"));
+        Assert.assertEquals(record.typedGet("myString").getValue(), "hello");
     }
 
     @Test
@@ -673,4 +694,15 @@ public class POJOBulletRecordConverterTest {
         }
         new POJOBulletRecordConverter(Dummy.class, "schemas/RECORD.json");
     }
+
+    @Test
+    public void testFromFooRequiredFields() throws Exception {
+        POJOBulletRecordConverter converter = new POJOBulletRecordConverter(Foo.class);
+        converter.setRequiredFields(new HashSet<>(Arrays.asList("myInt", "myString")));
+
+        BulletRecord record = converter.convert(new Foo());
+        Assert.assertEquals(record.typedGet("myInt").getValue(), 123);
+        Assert.assertEquals(record.typedGet("myString").getValue(), "789");
+        Assert.assertEquals(record.fieldCount(), 2);
+    }
 }
@@ -0,0 +1,200 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.converter;
+
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.dsl.BulletDSLException;
+import com.yahoo.bullet.typesystem.Type;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.util.Utf8;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+
+public class RecordFilterTest {
+
+    static Map<String, Object> makePredicate(String reference, Object... entries) {
+        Map<String, Object> predicate = new HashMap<>();
+        predicate.put(RecordFilter.REFERENCE, reference);
+        for (int i = 0; i < entries.length; i += 2) {
+            predicate.put((String) entries[i], entries[i + 1]);
+        }
+        return predicate;
+    }
+
+    private static RecordFilter makeFilter(Object... entries) throws BulletDSLException {
+        return new RecordFilter(singletonList(makePredicate("a", entries)));
+    }
+
+    private static boolean test(RecordFilter filter, Object value) {
+        return filter.test(new Object[] {value}, 0);
+    }
+
+    @Test
+    public void testEquals() throws Exception {
+        RecordFilter filter = makeFilter(RecordFilter.EQUALS, 5);
+        Assert.assertTrue(test(filter, 5));
+        Assert.assertTrue(test(filter, 5L));
+        Assert.assertTrue(test(filter, 5.0));
+        Assert.assertTrue(test(filter, 5.0f));
+        Assert.assertFalse(test(filter, 5.5));
+        Assert.assertFalse(test(filter, "5"));
+        Assert.assertFalse(test(filter, null));
+
+        filter = makeFilter(RecordFilter.EQUALS, 0.5);
+        Assert.assertTrue(test(filter, 0.5f));
+        Assert.assertFalse(test(filter, 0L));
+
+        filter = makeFilter(RecordFilter.EQUALS, "click");
+        Assert.assertTrue(test(filter, "click"));
+        Assert.assertTrue(test(filter, new Utf8("click")));
+        Assert.assertTrue(test(filter, new StringBuilder("click")));
+        Assert.assertFalse(test(filter, "view"));
+
+        filter = makeFilter(RecordFilter.EQUALS, true);
+        Assert.assertTrue(test(filter, true));
+        Assert.assertFalse(test(filter, false));
+        Assert.assertFalse(test(filter, "true"));
+    }
+
+    @Test
+    public void testEqualsEnums() throws Exception {
+        RecordFilter filter = makeFilter(RecordFilter.EQUALS, "LONG");
+        Assert.assertTrue(test(filter, Type.LONG));
+        Assert.assertFalse(test(filter, Type.INTEGER));
+
+        Schema schema = Schema.createEnum("Color", null, null, Arrays.asList("RED", "BLUE"));
+        filter = makeFilter(RecordFilter.EQUALS, "RED");
+        Assert.assertTrue(test(filter, new GenericData.EnumSymbol(schema, "RED")));
+        Assert.assertFalse(test(filter, new GenericData.EnumSymbol(schema, "BLUE")));
+    }
+
+    @Test
+    public void testIn() throws Exception {
+        RecordFilter filter = makeFilter(RecordFilter.IN, Arrays.asList("click", 1, 2.5));
+        Assert.assertTrue(test(filter, "click"));
+        Assert.assertTrue(test(filter, new Utf8("click")));
+        Assert.assertTrue(test(filter, 1L));
+        Assert.assertTrue(test(filter, 2.5f));
+        Assert.assertFalse(test(filter, "view"));
+        Assert.assertFalse(test(filter, 2));
+        Assert.assertFalse(test(filter, null));
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        RecordFilter filter = makeFilter(RecordFilter.MIN, 10, RecordFilter.MAX, 20.5);
+        Assert.assertTrue(test(filter, 10));
+        Assert.assertTrue(test(filter, 20.5f));
+        Assert.assertTrue(test(filter, 15L));
+        Assert.assertFalse(test(filter, 9.99));
+        Assert.assertFalse(test(filter, 21));
+        Assert.assertFalse(test(filter, "15"));
+        Assert.assertFalse(test(filter, null));
+
+        filter = makeFilter(RecordFilter.MIN, Long.MAX_VALUE - 1);
+        Assert.assertTrue(test(filter, Long.MAX_VALUE));
+        Assert.assertFalse(test(filter, Long.MAX_VALUE - 2));
+
+        filter = makeFilter(RecordFilter.MAX, "m");
+        Assert.assertTrue(test(filter, "apple"));
+        Assert.assertTrue(test(filter, new Utf8("m")));
+        Assert.assertFalse(test(filter, "zebra"));
+        Assert.assertFalse(test(filter, 1));
+    }
+
+    @Test
+    public void testExists() throws Exception {
+        RecordFilter filter = makeFilter(RecordFilter.EXISTS, true);
+        Assert.assertTrue(test(filter, 1));
+        Assert.assertTrue(test(filter, Collections.emptyMap()));
+        Assert.assertFalse(test(filter, null));
+
+        filter = makeFilter(RecordFilter.EXISTS, false);
+        Assert.assertTrue(test(filter, null));
+        Assert.assertFalse(test(filter, "a"));
+    }
+
+    @Test
+    public void testAllPredicatesMustMatch() throws Exception {
+        RecordFilter filter = new RecordFilter(Arrays.asList(makePredicate("a", RecordFilter.EQUALS, "click"),
+                                                             makePredicate("b.c", RecordFilter.MIN, 5)));
+        Assert.assertEquals(filter.getReferences(), Arrays.asList("a", "b.c"));
+        Assert.assertTrue(filter.test(new Object[] {null, "click", 5}, 1));
+        Assert.assertFalse(filter.test(new Object[] {null, "click", 4}, 1));
+        Assert.assertFalse(filter.test(new Object[] {null, "view", 5}, 1));
+    }
+
+    @Test
+    public void testTestObject() throws Exception {
+        RecordFilter filter = new RecordFilter(Arrays.asList(makePredicate("a", RecordFilter.EQUALS, "click"),
+                                                             makePredicate("b.1", RecordFilter.EXISTS, true),
+                                                             makePredicate("b.2", RecordFilter.EXISTS, false)));
+        MapBulletRecordConverter converter = new MapBulletRecordConverter();
+        Map<String, Object> map = new HashMap<>();
+        map.put("a", "click");
+        map.put("b", Arrays.asList(1, 2));
+        // The index that is out of bounds is missing
+        Assert.assertTrue(filter.test(converter, map));
+
+        map.put("b", Arrays.asList(1, null));
+        Assert.assertFalse(filter.test(converter, map));
+        Assert.assertFalse(filter.test(converter, singletonMap("a", "click")));
+    }
+
+    @Test
+    public void testFrom() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        Assert.assertNull(RecordFilter.from(config));
+
+        config.set(BulletDSLConfig.FILTER_PREDICATES, Collections.emptyList());
+        Assert.assertNull(RecordFilter.from(config));
+
+        config.set(BulletDSLConfig.FILTER_PREDICATES, singletonList(makePredicate("a", RecordFilter.EQUALS, 1)));
+        Assert.assertEquals(RecordFilter.from(config).getReferences(), singletonList("a"));
+    }
+
+    @Test
+    public void testInvalidPredicates() {
+        assertInvalid("A filter predicate must be a map", "a");
+        assertInvalid("A filter predicate must have a reference", singletonMap(RecordFilter.EQUALS, 1));
+        assertInvalid("A filter predicate must have a reference", makePredicate(""));
+        assertInvalid("The reference of a filter predicate cannot have trailing delimiters", makePredicate("a."));
+        assertInvalid("The reference of a filter predicate cannot be metadata", makePredicate("$kafka.topic"));
+        assertInvalid("A filter predicate must have exactly one of equals, in, min and max, or exists", makePredicate("a"));
+        assertInvalid("A filter predicate must have exactly one of equals, in, min and max, or exists",
+                      makePredicate("a", RecordFilter.MIN, 1, RecordFilter.EXISTS, true));
+        assertInvalid("The values of a filter predicate must be strings, numbers or booleans",
+                      makePredicate("a", RecordFilter.EQUALS, null));
+        assertInvalid("The values of a filter predicate must be a non-empty list",
+                      makePredicate("a", RecordFilter.IN, Collections.emptyList()));
+        assertInvalid("The values of a filter predicate must be strings, numbers or booleans",
+                      makePredicate("a", RecordFilter.IN, singletonList(Collections.emptyMap())));
+        assertInvalid("The bounds of a filter predicate must be strings or numbers",
+                      makePredicate("a", RecordFilter.MAX, true));
+        assertInvalid("The bounds of a filter predicate must both be numbers or strings",
+                      makePredicate("a", RecordFilter.MIN, 1, RecordFilter.MAX, "b"));
+        assertInvalid("The exists of a filter predicate must be a boolean",
+                      makePredicate("a", RecordFilter.EXISTS, "yes"));
+    }
+
+    private static void assertInvalid(String message, Object predicate) {
+        try {
+            new RecordFilter(singletonList(predicate));
+            Assert.fail();
+        } catch (BulletDSLException e) {
+            Assert.assertEquals(e.getMessage(), message + ": " + predicate);
+        }
+    }
+}
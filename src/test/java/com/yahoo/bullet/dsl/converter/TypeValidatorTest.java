@@ -0,0 +1,87 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.converter;
+
+import com.yahoo.bullet.typesystem.Type;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+
+public class TypeValidatorTest {
+
+    @Test
+    public void testPrimitives() {
+        Assert.assertTrue(new TypeValidator(Type.BOOLEAN, 0).isValid(true));
+        Assert.assertTrue(new TypeValidator(Type.LONG, 0).isValid(1L));
+        Assert.assertTrue(new TypeValidator(Type.STRING, 0).isValid("1"));
+        Assert.assertFalse(new TypeValidator(Type.LONG, 0).isValid(1));
+        Assert.assertFalse(new TypeValidator(Type.FLOAT, 0).isValid(1.0));
+        Assert.assertFalse(new TypeValidator(Type.STRING, 0).isValid(singletonList("1")));
+    }
+
+    @Test
+    public void testMaps() {
+        TypeValidator validator = new TypeValidator(Type.INTEGER_MAP, 0);
+        Assert.assertTrue(validator.isValid(new HashMap<>()));
+        Assert.assertTrue(validator.isValid(singletonMap("a", 1)));
+        Assert.assertTrue(validator.isValid(singletonMap("a", null)));
+        Assert.assertFalse(validator.isValid(singletonMap("a", 1L)));
+        Assert.assertFalse(validator.isValid(singletonMap(1, 1)));
+        Assert.assertFalse(validator.isValid(singletonList(1)));
+
+        validator = new TypeValidator(Type.INTEGER_MAP_MAP, 0);
+        Assert.assertTrue(validator.isValid(singletonMap("a", singletonMap("b", 1))));
+        Assert.assertTrue(validator.isValid(singletonMap("a", new HashMap<>())));
+        Assert.assertFalse(validator.isValid(singletonMap("a", 1)));
+        Assert.assertFalse(validator.isValid(singletonMap("a", singletonMap("b", "1"))));
+        Assert.assertFalse(validator.isValid(singletonMap("a", singletonMap(1, 1))));
+    }
+
+    @Test
+    public void testLists() {
+        TypeValidator validator = new TypeValidator(Type.DOUBLE_LIST, 0);
+        Assert.assertTrue(validator.isValid(new ArrayList<>()));
+        Assert.assertTrue(validator.isValid(Arrays.asList(1.0, null, 2.0)));
+        Assert.assertFalse(validator.isValid(Arrays.asList(1.0, 2.0f)));
+        Assert.assertFalse(validator.isValid(singletonMap("a", 1.0)));
+
+        validator = new TypeValidator(Type.STRING_MAP_LIST, 0);
+        Assert.assertTrue(validator.isValid(singletonList(singletonMap("a", "b"))));
+        Assert.assertFalse(validator.isValid(singletonList("a")));
+        Assert.assertFalse(validator.isValid(singletonList(singletonMap("a", 1))));
+    }
+
+    @Test
+    public void testSampling() {
+        TypeValidator validator = new TypeValidator(Type.LONG_LIST, 2);
+        Assert.assertTrue(validator.isValid(Arrays.asList(1L, 2L, "3")));
+        Assert.assertFalse(validator.isValid(Arrays.asList(1L, "2", 3L)));
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("a", Collections.singletonMap("b", 1L));
+        map.put("c", Collections.singletonMap("d", "2"));
+        Assert.assertFalse(new TypeValidator(Type.LONG_MAP_MAP, 0).isValid(map));
+        Assert.assertTrue(new TypeValidator(Type.LONG_MAP_MAP, 1).isValid(map));
+    }
+
+    @Test
+    public void testForAllTypes() {
+        Map<Type, TypeValidator> validators = TypeValidator.forAllTypes(0);
+        Assert.assertEquals(validators.size(), 30);
+        Assert.assertTrue(validators.get(Type.BOOLEAN_MAP_LIST).isValid(singletonList(singletonMap("a", true))));
+        Assert.assertFalse(validators.containsKey(Type.NULL));
+        Assert.assertFalse(validators.containsKey(Type.UNKNOWN_MAP));
+        Assert.assertFalse(validators.containsKey(Type.UNKNOWN_MAP_LIST));
+    }
+}
@@ -7,7 +7,13 @@ package com.yahoo.bullet.dsl.deserializer;
 
 import com.yahoo.bullet.dsl.BulletDSLConfig;
 import com.yahoo.bullet.dsl.BulletDSLException;
+import com.yahoo.bullet.dsl.DummyAvro;
 import com.yahoo.bullet.dsl.ListsAvro;
+import com.yahoo.bullet.dsl.converter.AvroBulletRecordConverter;
+import com.yahoo.bullet.dsl.converter.RecordFilter;
+import com.yahoo.bullet.dsl.schema.BulletRecordSchema;
+import com.yahoo.bullet.record.BulletRecord;
+import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.io.BinaryEncoder;
@@ -18,12 +24,45 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class AvroDeserializerTest {
 
     private ListsAvro listsAvro = new ListsAvro();
     private byte[] listsAvroBytes;
+    private byte[] dummyAvroBytes;
+
+    private static byte[] write(GenericRecord record) throws Exception {
+        DatumWriter<GenericRecord> writer = new GenericDatumWriter<>(record.getSchema());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+        writer.write(record, encoder);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    private static DummyAvro dummyAvro(int i) {
+        DummyAvro dummyAvro = new DummyAvro();
+        dummyAvro.setMyInt(i);
+        dummyAvro.setMyLong((long) i);
+        dummyAvro.setMyFloat((float) i);
+        dummyAvro.setMyDouble((double) i);
+        dummyAvro.setMyBool(true);
+        dummyAvro.setMyString(String.valueOf(i));
+        dummyAvro.setMyIntList(Collections.singletonList(i));
+        dummyAvro.setMyStringMap(Collections.singletonMap("aaa", String.valueOf(i)));
+        return dummyAvro;
+    }
+
+    private static List<String> getFieldNames(Schema schema) {
+        return schema.getFields().stream().map(Schema.Field::name).collect(Collectors.toList());
+    }
 
     @BeforeClass
     public void setup() throws Exception {
@@ -40,13 +79,12 @@ public class AvroDeserializerTest {
         listsAvro.setMyDoubleMapList(Collections.singletonList(Collections.singletonMap("w", 23.0)));
         listsAvro.setMyStringMapList(Collections.singletonList(Collections.singletonMap("x", "24")));
 
-        DatumWriter<GenericRecord> writer = new GenericDatumWriter<>(ListsAvro.getClassSchema());
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
-        writer.write(listsAvro, encoder);
-        encoder.flush();
+        listsAvroBytes = write(listsAvro);
 
-        listsAvroBytes = outputStream.toByteArray();
+        DummyAvro dummyAvro = dummyAvro(1);
+        dummyAvro.setMyDummyAvro(dummyAvro(2));
+        dummyAvro.getMyDummyAvro().setMyDummyAvro(dummyAvro(3));
+        dummyAvroBytes = write(dummyAvro);
     }
 
     @Test
@@ -121,4 +159,112 @@ public class AvroDeserializerTest {
 
         deserializer.deserialize(listsAvroBytes);
     }
+
+    @Test
+    public void testDeserializeByteBuffers() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.DESERIALIZER_AVRO_CLASS_NAME, ListsAvro.class.getName());
+
+        AvroDeserializer deserializer = new AvroDeserializer(config);
+
+        // A slice of a larger heap buffer
+        ByteBuffer padded = ByteBuffer.allocate(listsAvroBytes.length + 4);
+        padded.position(2);
+        padded.put(listsAvroBytes);
+        padded.position(2);
+        padded.limit(2 + listsAvroBytes.length);
+        ByteBuffer slice = padded.slice();
+
+        GenericRecord record = (GenericRecord) deserializer.deserialize(slice);
+        Assert.assertEquals(record.get("myIntList"), listsAvro.getMyIntList());
+        Assert.assertEquals(record.get("myStringMapList"), listsAvro.getMyStringMapList());
+        Assert.assertEquals(slice.remaining(), listsAvroBytes.length);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(listsAvroBytes.length);
+        direct.put(listsAvroBytes);
+        direct.flip();
+
+        record = (GenericRecord) deserializer.deserialize(direct);
+        Assert.assertEquals(record.get("myIntList"), listsAvro.getMyIntList());
+        Assert.assertEquals(record.get("myStringMapList"), listsAvro.getMyStringMapList());
+        Assert.assertEquals(direct.remaining(), listsAvroBytes.length);
+    }
+
+    @Test
+    public void testDeserializeReturnsNewRecords() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.DESERIALIZER_AVRO_CLASS_NAME, ListsAvro.class.getName());
+
+        AvroDeserializer deserializer = new AvroDeserializer(config);
+
+        Assert.assertNotSame(deserializer.deserialize(listsAvroBytes), deserializer.deserialize(listsAvroBytes));
+    }
+
+    @Test
+    public void testDeserializeWithProjection() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.DESERIALIZER_AVRO_CLASS_NAME, DummyAvro.class.getName());
+        config.set(BulletDSLConfig.DESERIALIZER_AVRO_PROJECTION_ENABLE, true);
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/projection.json");
+        config.validate();
+
+        AvroDeserializer deserializer = new AvroDeserializer(config);
+
+        GenericRecord record = (GenericRecord) deserializer.deserialize(dummyAvroBytes);
+        Assert.assertEquals(getFieldNames(record.getSchema()), Arrays.asList("myInt", "myStringMap", "myDummyAvro"));
+        Assert.assertEquals(record.get("myInt"), 1);
+        Assert.assertEquals(record.get("myStringMap").toString(), "{aaa=1}");
+
+        GenericRecord nested = (GenericRecord) record.get("myDummyAvro");
+        Assert.assertEquals(getFieldNames(nested.getSchema()), Arrays.asList("myString", "myDummyAvro"));
+        Assert.assertEquals(nested.get("myString").toString(), "2");
+
+        nested = (GenericRecord) nested.get("myDummyAvro");
+        Assert.assertEquals(getFieldNames(nested.getSchema()), Collections.singletonList("myLong"));
+        Assert.assertEquals(nested.get("myLong"), 3L);
+
+        // The projected records convert like whole ones
+        BulletRecord bulletRecord = new AvroBulletRecordConverter(config).convert(record);
+        Assert.assertEquals(bulletRecord.typedGet("myInt").getValue(), 1);
+        Assert.assertEquals(bulletRecord.typedGet("nestedLong").getValue(), 3L);
+        Assert.assertEquals(bulletRecord.fieldCount(), 4);
+    }
+
+    @Test
+    public void testProjectWholeRecords() throws Exception {
+        Schema schema = AvroDeserializer.project(DummyAvro.getClassSchema(), BulletRecordSchema.from("schemas/projectionwhole.json").getFields());
+        Assert.assertEquals(getFieldNames(schema), Collections.singletonList("myDummyAvro"));
+        Assert.assertSame(schema.getField("myDummyAvro").schema(), DummyAvro.getClassSchema().getField("myDummyAvro").schema());
+
+        schema = AvroDeserializer.project(DummyAvro.getClassSchema(), BulletRecordSchema.from("schemas/dummyrecord.json").getFields());
+        Assert.assertEquals(getFieldNames(schema), Arrays.asList("myIntList", "myStringMap", "myDummyAvro"));
+    }
+
+    @Test
+    public void testProjectFilterReferences() throws Exception {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.DESERIALIZER_AVRO_CLASS_NAME, DummyAvro.class.getName());
+        config.set(BulletDSLConfig.DESERIALIZER_AVRO_PROJECTION_ENABLE, true);
+        config.set(BulletDSLConfig.RECORD_CONVERTER_SCHEMA_FILE, "schemas/projection.json");
+        Map<String, Object> predicate = new HashMap<>();
+        predicate.put(RecordFilter.REFERENCE, "myDummyAvro.myLong");
+        predicate.put(RecordFilter.EXISTS, true);
+        config.set(BulletDSLConfig.FILTER_PREDICATES, Collections.singletonList(predicate));
+        config.validate();
+
+        AvroDeserializer deserializer = new AvroDeserializer(config);
+
+        GenericRecord record = (GenericRecord) deserializer.deserialize(dummyAvroBytes);
+        Assert.assertEquals(getFieldNames(record.getSchema()), Arrays.asList("myInt", "myStringMap", "myDummyAvro"));
+        GenericRecord nested = (GenericRecord) record.get("myDummyAvro");
+        Assert.assertEquals(getFieldNames(nested.getSchema()), Arrays.asList("myLong", "myString", "myDummyAvro"));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testProjectionWithoutSchemaFile() {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.DESERIALIZER_AVRO_CLASS_NAME, DummyAvro.class.getName());
+        config.set(BulletDSLConfig.DESERIALIZER_AVRO_PROJECTION_ENABLE, true);
+        config.validate();
+    }
 }
@@ -7,13 +7,17 @@ package com.yahoo.bullet.dsl.deserializer;
 
 import com.yahoo.bullet.common.SerializerDeserializer;
 import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.dsl.BulletDSLException;
+import com.yahoo.bullet.dsl.connector.ConnectorRecord;
 import org.junit.Assert;
 import org.testng.annotations.Test;
 
+import java.nio.ByteBuffer;
+
 public class JavaDeserializerTest {
 
     @Test
-    public void testDeserialize() {
+    public void testDeserialize() throws Exception {
         JavaDeserializer deserializer = new JavaDeserializer(new BulletDSLConfig());
 
         byte[] bytes = SerializerDeserializer.toBytes("hello world!");
@@ -22,4 +26,64 @@ public class JavaDeserializerTest {
         String message = (String) deserializer.deserialize(bytes);
         Assert.assertEquals(message, "hello world!");
     }
+
+    @Test
+    public void testDeserializeConnectorRecord() throws Exception {
+        JavaDeserializer deserializer = new JavaDeserializer(new BulletDSLConfig());
+
+        ConnectorRecord record = new ConnectorRecord(SerializerDeserializer.toBytes("hello world!")) {
+            @Override
+            protected String getNamespace() {
+                return "$mock";
+            }
+
+            @Override
+            protected Object getMetadata(String key) {
+                return key;
+            }
+        };
+
+        // Deserializes the value in place and keeps the metadata
+        Assert.assertSame(deserializer.deserialize(record), record);
+        Assert.assertEquals(record.getValue(), "hello world!");
+        Assert.assertEquals(record.getMetadata("$mock", "offset"), "offset");
+        Assert.assertNull(record.getMetadata("$kafka", "offset"));
+    }
+
+    @Test
+    public void testDeserializeByteBuffer() throws Exception {
+        JavaDeserializer deserializer = new JavaDeserializer(new BulletDSLConfig());
+
+        byte[] bytes = SerializerDeserializer.toBytes("hello world!");
+        Assert.assertNotNull(bytes);
+
+        // A slice of a larger array
+        byte[] padded = new byte[bytes.length + 4];
+        System.arraycopy(bytes, 0, padded, 2, bytes.length);
+        ByteBuffer heap = ByteBuffer.wrap(padded, 2, bytes.length).slice();
+        Assert.assertEquals(deserializer.deserialize(heap), "hello world!");
+        Assert.assertEquals(heap.remaining(), bytes.length);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        Assert.assertEquals(deserializer.deserialize(direct), "hello world!");
+        Assert.assertEquals(direct.remaining(), bytes.length);
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not deserialize the buffer\\.")
+    public void testDeserializeBadByteBuffer() throws Exception {
+        JavaDeserializer deserializer = new JavaDeserializer(new BulletDSLConfig());
+
+        deserializer.deserialize(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+    }
+
+    @Test(expectedExceptions = BulletDSLException.class, expectedExceptionsMessageRegExp = "Could not deserialize the buffer\\.")
+    public void testDeserializeTruncatedByteBuffer() throws Exception {
+        JavaDeserializer deserializer = new JavaDeserializer(new BulletDSLConfig());
+
+        byte[] bytes = SerializerDeserializer.toBytes("hello world!");
+        Assert.assertNotNull(bytes);
+
+        deserializer.deserialize(ByteBuffer.wrap(bytes, 0, bytes.length - 1));
+    }
 }
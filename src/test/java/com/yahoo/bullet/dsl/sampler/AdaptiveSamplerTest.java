@@ -0,0 +1,73 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.sampler;
+
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.yahoo.bullet.dsl.sampler.FixedRateSamplerTest.batch;
+
+public class AdaptiveSamplerTest {
+
+    private static class ClockedSampler extends AdaptiveSampler {
+        private long ms;
+
+        private ClockedSampler(BulletDSLConfig config) {
+            super(config);
+        }
+
+        @Override
+        long now() {
+            return TimeUnit.MILLISECONDS.toNanos(ms);
+        }
+    }
+
+    private static ClockedSampler makeSampler(int recordsPerSecond) {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.SAMPLER_CLASS_NAME, AdaptiveSampler.class.getName());
+        config.set(BulletDSLConfig.SAMPLER_ADAPTIVE_RECORDS_PER_SECOND, recordsPerSecond);
+        config.set(BulletDSLConfig.SAMPLER_ADAPTIVE_WINDOW_MS, 1000);
+        config.validate();
+        return new ClockedSampler(config);
+    }
+
+    @Test
+    public void testFrom() {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.SAMPLER_CLASS_NAME, AdaptiveSampler.class.getName());
+        config.validate();
+        Assert.assertTrue(BulletSampler.from(config) instanceof AdaptiveSampler);
+        Assert.assertTrue(new AdaptiveSampler(config).now() > 0L);
+    }
+
+    @Test
+    public void testAdaptsToReadRate() {
+        ClockedSampler sampler = makeSampler(1000);
+
+        // Everything is kept during the first window
+        List<Object> batch = batch(2000);
+        Assert.assertSame(sampler.sample(batch), batch);
+        sampler.ms = 500;
+        Assert.assertSame(sampler.sample(batch), batch);
+        Assert.assertEquals(sampler.getRate(), 1.0);
+
+        // 4000 objects were read in the first second
+        sampler.ms = 1000;
+        List<Object> sampled = sampler.sample(batch);
+        Assert.assertEquals(sampler.getRate(), 0.25);
+        Assert.assertTrue(sampled.size() > 300 && sampled.size() < 700);
+
+        // 2000 objects were read in the next two seconds
+        sampler.ms = 3000;
+        batch = batch(10);
+        Assert.assertSame(sampler.sample(batch), batch);
+        Assert.assertEquals(sampler.getRate(), 1.0);
+    }
+}
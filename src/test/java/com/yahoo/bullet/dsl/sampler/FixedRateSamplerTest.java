@@ -0,0 +1,89 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.sampler;
+
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.record.simple.TypedSimpleBulletRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class FixedRateSamplerTest {
+
+    static List<Object> batch(int size) {
+        List<Object> batch = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            batch.add(String.valueOf(i));
+        }
+        return batch;
+    }
+
+    private static BulletSampler makeSampler(double rate) {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.SAMPLER_CLASS_NAME, FixedRateSampler.class.getName());
+        config.set(BulletDSLConfig.SAMPLER_RATE, rate);
+        config.validate();
+        return BulletSampler.from(config);
+    }
+
+    @Test
+    public void testFrom() {
+        Assert.assertTrue(makeSampler(0.5) instanceof FixedRateSampler);
+    }
+
+    @Test
+    public void testKeepsAllAtRateOne() {
+        BulletSampler sampler = makeSampler(1.0);
+        List<Object> batch = batch(100);
+        Assert.assertSame(sampler.sample(batch), batch);
+        Assert.assertEquals(sampler.getRate(), 1.0);
+    }
+
+    @Test
+    public void testSample() {
+        BulletSampler sampler = makeSampler(0.25);
+        List<Object> batch = batch(10000);
+        List<Object> sampled = sampler.sample(batch);
+        Assert.assertEquals(sampler.getRate(), 0.25);
+        Assert.assertTrue(sampled.size() > 2000 && sampled.size() < 3000);
+        Assert.assertTrue(batch.containsAll(sampled));
+    }
+
+    @Test
+    public void testInvalidRateIsDefaulted() {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.SAMPLER_RATE, 0.0);
+        config.validate();
+        Assert.assertEquals(config.get(BulletDSLConfig.SAMPLER_RATE), BulletDSLConfig.DEFAULT_SAMPLER_RATE);
+
+        config.set(BulletDSLConfig.SAMPLER_RATE, 1.5);
+        config.validate();
+        Assert.assertEquals(config.get(BulletDSLConfig.SAMPLER_RATE), BulletDSLConfig.DEFAULT_SAMPLER_RATE);
+    }
+
+    @Test
+    public void testAnnotate() {
+        BulletSampler sampler = makeSampler(0.5);
+        Assert.assertEquals(sampler.getRateField(), BulletDSLConfig.DEFAULT_SAMPLER_RATE_FIELD);
+
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.SAMPLER_RATE_FIELD, "rate");
+        config.validate();
+        Assert.assertEquals(new FixedRateSampler(config).getRateField(), "rate");
+
+        BulletRecord first = new TypedSimpleBulletRecord();
+        BulletRecord second = new TypedSimpleBulletRecord();
+        List<BulletRecord> records = Arrays.asList(first, second);
+
+        Assert.assertSame(sampler.annotate(records, 0.5), records);
+        Assert.assertEquals(first.typedGet(BulletDSLConfig.DEFAULT_SAMPLER_RATE_FIELD).getValue(), 0.5);
+        Assert.assertEquals(second.typedGet(BulletDSLConfig.DEFAULT_SAMPLER_RATE_FIELD).getValue(), 0.5);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *  Copyright 2022, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.dsl.sampler;
+
+import com.yahoo.bullet.dsl.BulletDSLConfig;
+import com.yahoo.bullet.dsl.connector.ConnectorRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.yahoo.bullet.dsl.sampler.FixedRateSamplerTest.batch;
+
+public class KeyHashSamplerTest {
+
+    private static class TestRecord extends ConnectorRecord {
+        private final Object key;
+
+        private TestRecord(Object value, Object key) {
+            super(value);
+            this.key = key;
+        }
+
+        @Override
+        protected String getNamespace() {
+            return "$test";
+        }
+
+        @Override
+        protected Object getMetadata(String key) {
+            return "key".equals(key) ? this.key : null;
+        }
+    }
+
+    private static KeyHashSampler makeSampler(double rate, String reference) {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.SAMPLER_RATE, rate);
+        config.set(BulletDSLConfig.SAMPLER_KEY_REFERENCE, reference);
+        config.set(BulletDSLConfig.CONNECTOR_METADATA_ENABLE, reference != null);
+        config.validate();
+        return new KeyHashSampler(config);
+    }
+
+    @Test
+    public void testSampleIsConsistent() {
+        List<Object> batch = batch(10000);
+        List<Object> sampled = makeSampler(0.25, null).sample(batch);
+        Assert.assertTrue(sampled.size() > 2000 && sampled.size() < 3000);
+
+        // Another instance keeps the same keys and a higher rate keeps a superset of them
+        Assert.assertEquals(makeSampler(0.25, null).sample(batch), sampled);
+        Assert.assertTrue(makeSampler(0.5, null).sample(batch).containsAll(sampled));
+    }
+
+    @Test
+    public void testSampleByMetadata() {
+        KeyHashSampler sampler = makeSampler(0.5, "$test.key");
+        List<Object> batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            // The values differ but the keys repeat
+            batch.add(new TestRecord(i, "user-" + (i % 10)));
+        }
+        List<Object> sampled = sampler.sample(batch);
+        Assert.assertEquals(sampled.size() % 100, 0);
+        for (Object object : batch) {
+            TestRecord record = (TestRecord) object;
+            Assert.assertEquals(sampled.contains(record), sampler.keep(new TestRecord(null, record.key), 0.5));
+        }
+    }
+
+    @Test
+    public void testSampleByValue() {
+        KeyHashSampler sampler = makeSampler(0.5, null);
+        boolean kept = sampler.keep("a", 0.5);
+        Assert.assertEquals(sampler.keep(new TestRecord("a", "b"), 0.5), kept);
+        Assert.assertEquals(sampler.keep(new StringBuilder("a"), 0.5), kept);
+
+        byte[] bytes = "a".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(sampler.keep(bytes, 0.5), sampler.keep(bytes.clone(), 0.5));
+        Assert.assertEquals(sampler.keep(null, 0.5), sampler.keep(new TestRecord(null, null), 0.5));
+    }
+
+    @Test
+    public void testMissingMetadataIsHashedAsNull() {
+        KeyHashSampler sampler = makeSampler(0.5, "$other.key");
+        Assert.assertEquals(sampler.keep(new TestRecord("a", "b"), 0.5), sampler.keep(null, 0.5));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testKeyReferenceMustBeMetadata() {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.CONNECTOR_METADATA_ENABLE, true);
+        config.set(BulletDSLConfig.SAMPLER_KEY_REFERENCE, "key");
+        config.validate();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testKeyReferenceNeedsMetadata() {
+        BulletDSLConfig config = new BulletDSLConfig();
+        config.set(BulletDSLConfig.SAMPLER_KEY_REFERENCE, "$kafka.key");
+        config.validate();
+    }
+}